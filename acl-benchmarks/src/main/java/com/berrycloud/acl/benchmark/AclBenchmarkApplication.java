@@ -0,0 +1,22 @@
+package com.berrycloud.acl.benchmark;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.berrycloud.acl.configuration.EnableAclJpaRepositories;
+
+/**
+ * Spring Boot application of the benchmarks. It's started by the {@link AclBenchmarkState} with an embedded H2
+ * database. The JDBC executions of the data-source are counted by the {@link JdbcExecutionCounter}.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EnableAclJpaRepositories
+public class AclBenchmarkApplication {
+
+    @Bean
+    public static JdbcExecutionCounter jdbcExecutionCounter() {
+        return new JdbcExecutionCounter();
+    }
+}
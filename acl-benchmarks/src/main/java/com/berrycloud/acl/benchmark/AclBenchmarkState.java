@@ -0,0 +1,234 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.AclConstants;
+import com.berrycloud.acl.AclLogic;
+import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.benchmark.entity.Document;
+import com.berrycloud.acl.benchmark.entity.Person;
+import com.berrycloud.acl.benchmark.entity.PersonHasDocumentPermission;
+import com.berrycloud.acl.benchmark.entity.TestGroup;
+import com.berrycloud.acl.benchmark.repository.DocumentRepository;
+import com.berrycloud.acl.benchmark.repository.PersonRepository;
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+/**
+ * Shared state of the ACL benchmarks. It starts the {@link AclBenchmarkApplication} with the parameterized ACL
+ * settings, loads the test model into the embedded database and authenticates the benchmark user.
+ * <p>
+ * The test model contains {@value #USER_COUNT} persons (each created by the previous one), {@value #GROUP_COUNT}
+ * groups with different roles and {@value #DOCUMENTS_PER_USER} documents per person. The documents of a person form
+ * a parent-chain and each document has {@link #linkCount} permission-links to other persons.
+ */
+@State(Scope.Benchmark)
+public class AclBenchmarkState {
+
+    public static final int USER_COUNT = 100;
+    public static final int GROUP_COUNT = 20;
+    public static final int ROLE_COUNT = 5;
+    public static final int DOCUMENTS_PER_USER = 10;
+
+    /**
+     * Maximum depth of the parent permission-checks
+     */
+    @Param({ "0", "2" })
+    public int maxDepth;
+
+    /**
+     * Number of permission-links per document
+     */
+    @Param({ "1", "10" })
+    public int linkCount;
+
+    /**
+     * Number of groups per person
+     */
+    @Param({ "1", "10" })
+    public int groupFanOut;
+
+    @Param({ "join", "exists" })
+    public String predicateStrategy;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private AclSpecification aclSpecification;
+
+    private AclLogic aclLogic;
+
+    private PersonRepository personRepository;
+
+    private DocumentRepository documentRepository;
+
+    private Integer userId;
+
+    private Integer documentId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(AclBenchmarkApplication.class)
+                .properties("spring.data.jpa.acl.max-depth=" + maxDepth,
+                        "spring.data.jpa.acl.predicate-strategy=" + predicateStrategy.toUpperCase())
+                .run();
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        aclSpecification = context.getBean(AclSpecification.class);
+        aclLogic = context.getBean(AclLogic.class);
+        personRepository = context.getBean(PersonRepository.class);
+        documentRepository = context.getBean(DocumentRepository.class);
+
+        transactionTemplate.execute(status -> {
+            populate(context.getBean(EntityManager.class));
+            return null;
+        });
+
+        // The JMH worker threads must see the same authentication
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        transactionTemplate.execute(status -> {
+            AclUserDetails userDetails = context.getBean(AclUserDetailsService.class)
+                    .loadUserByUsername(username(USER_COUNT / 2));
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities()));
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        entityManager.close();
+        context.close();
+    }
+
+    private void populate(EntityManager em) {
+        List<SimpleAclRole> roles = new ArrayList<>();
+        for (int i = 0; i < ROLE_COUNT; i++) {
+            SimpleAclRole role = new SimpleAclRole("ROLE_BENCHMARK_" + i);
+            em.persist(role);
+            roles.add(role);
+        }
+        SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+        em.persist(userRole);
+
+        List<TestGroup> groups = new ArrayList<>();
+        for (int i = 0; i < GROUP_COUNT; i++) {
+            TestGroup group = new TestGroup("group" + i, null, roles.get(i % ROLE_COUNT));
+            em.persist(group);
+            groups.add(group);
+        }
+
+        List<Person> persons = new ArrayList<>();
+        Person previous = null;
+        for (int i = 0; i < USER_COUNT; i++) {
+            Person person = new Person(username(i), previous);
+            person.getAclRoles().add(userRole);
+            for (int k = 0; k < groupFanOut; k++) {
+                person.getGroups().add(groups.get((i + k) % GROUP_COUNT));
+            }
+            em.persist(person);
+            persons.add(person);
+            previous = person;
+        }
+
+        for (int i = 0; i < USER_COUNT; i++) {
+            Document parent = null;
+            for (int d = 0; d < DOCUMENTS_PER_USER; d++) {
+                Document document = new Document("document" + i + "-" + d, persons.get(i), parent);
+                em.persist(document);
+                for (int k = 0; k < linkCount; k++) {
+                    em.persist(new PersonHasDocumentPermission(persons.get((i + k + 1) % USER_COUNT), document,
+                            AclConstants.READ_PERMISSION));
+                }
+                parent = document;
+            }
+            if (i == USER_COUNT / 2 - 1) {
+                // The last document of the chain: readable by the benchmark user via a permission-link
+                documentId = parent.getId();
+            }
+        }
+        userId = persons.get(USER_COUNT / 2).getId();
+    }
+
+    private static String username(int index) {
+        return "user" + index;
+    }
+
+    /**
+     * Creates the given number of new documents of the benchmark user and returns them detached.
+     */
+    public List<Document> createDocuments(int count) {
+        return inTransaction(() -> {
+            EntityManager em = context.getBean(EntityManager.class);
+            Person creator = em.find(Person.class, userId);
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Document document = new Document("batch-document" + i, creator, null);
+                em.persist(document);
+                documents.add(document);
+            }
+            return documents;
+        });
+    }
+
+    /**
+     * Executes the supplier in a new transaction (like a service call of a request).
+     */
+    public <T> T inTransaction(Supplier<T> supplier) {
+        return transactionTemplate.execute(status -> supplier.get());
+    }
+
+    /**
+     * Returns a non-shared entity-manager for building criteria queries outside of transactions.
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public AclSpecification getAclSpecification() {
+        return aclSpecification;
+    }
+
+    public AclLogic getAclLogic() {
+        return aclLogic;
+    }
+
+    public PersonRepository getPersonRepository() {
+        return personRepository;
+    }
+
+    public DocumentRepository getDocumentRepository() {
+        return documentRepository;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Integer getDocumentId() {
+        return documentId;
+    }
+}
@@ -0,0 +1,90 @@
+package com.berrycloud.acl.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Counts the statements executed via the data-sources of the application. A JDBC batch is counted as one execution
+ * (one round trip), however many statements were added to it. (Hibernate prepares a batched statement only once, so the
+ * prepared-statement count of the Hibernate statistics doesn't show the number of the executions.)
+ */
+public class JdbcExecutionCounter implements BeanPostProcessor {
+
+    private static final AtomicLong STATEMENTS = new AtomicLong();
+
+    private static final AtomicLong BATCHES = new AtomicLong();
+
+    /**
+     * Returns the number of the single statements executed so far.
+     */
+    public static long getStatementCount() {
+        return STATEMENTS.get();
+    }
+
+    /**
+     * Returns the number of the JDBC batches executed so far.
+     */
+    public static long getBatchCount() {
+        return BATCHES.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource) {
+            return proxy(bean, DataSource.class);
+        }
+        return bean;
+    }
+
+    private static Object proxy(Object target, Class<?> type) {
+        return Proxy.newProxyInstance(JdbcExecutionCounter.class.getClassLoader(), new Class<?>[] { type },
+                new CountingHandler(target));
+    }
+
+    private static class CountingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        CountingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                BATCHES.incrementAndGet();
+            } else if (name.startsWith("execute")) {
+                STATEMENTS.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof CallableStatement) {
+                return proxy(result, CallableStatement.class);
+            } else if (result instanceof PreparedStatement) {
+                return proxy(result, PreparedStatement.class);
+            } else if (result instanceof Statement) {
+                return proxy(result, Statement.class);
+            } else if (result instanceof Connection) {
+                return proxy(result, Connection.class);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.berrycloud.acl.AclConstants;
+import com.berrycloud.acl.data.PermissionData;
+
+/**
+ * Measures the permission lookup of the annotation metadata.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionDataBenchmark {
+
+    private final PermissionData allPermissions = new PermissionData(new String[] { AclConstants.ALL_PERMISSION });
+
+    private final PermissionData listedPermissions = new PermissionData(new String[] {
+            AclConstants.READ_PERMISSION, AclConstants.UPDATE_PERMISSION, "execute", "documents-read" });
+
+    @Benchmark
+    public boolean allPermission() {
+        return allPermissions.hasPermission(AclConstants.DELETE_PERMISSION);
+    }
+
+    @Benchmark
+    public boolean listedPermissionHit() {
+        return listedPermissions.hasPermission("execute");
+    }
+
+    @Benchmark
+    public boolean listedPermissionMiss() {
+        return listedPermissions.hasPermission(AclConstants.DELETE_PERMISSION);
+    }
+}
@@ -0,0 +1,51 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import com.berrycloud.acl.benchmark.entity.Document;
+import com.berrycloud.acl.benchmark.entity.Person;
+
+/**
+ * Measures full repository round trips (criteria construction, SQL execution and entity loading) in separate
+ * transactions. The sample-time mode reports the percentiles of the latency too.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @Benchmark
+    public List<Document> documentFindAllPage(AclBenchmarkState state) {
+        return state.inTransaction(() -> state.getDocumentRepository().findAll(PAGE).getContent());
+    }
+
+    @Benchmark
+    public Optional<Document> documentFindById(AclBenchmarkState state) {
+        return state.inTransaction(() -> state.getDocumentRepository().findById(state.getDocumentId()));
+    }
+
+    @Benchmark
+    public List<Person> personFindAllPage(AclBenchmarkState state) {
+        return state.inTransaction(() -> state.getPersonRepository().findAll(PAGE).getContent());
+    }
+
+    @Benchmark
+    public Optional<Person> personFindById(AclBenchmarkState state) {
+        return state.inTransaction(() -> state.getPersonRepository().findById(state.getUserId()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.berrycloud.acl.domain.AclRole;
+
+/**
+ * Measures the collection of all the roles of a user (direct roles and roles of the role-provider groups).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleBenchmark {
+
+    @Benchmark
+    public Set<AclRole> getAllRoles(AclBenchmarkState state) {
+        return state.inTransaction(() -> state.getAclLogic()
+                .getAllRoles(state.getPersonRepository().findByIdWithoutPermissionCheck(state.getUserId()).get()));
+    }
+}
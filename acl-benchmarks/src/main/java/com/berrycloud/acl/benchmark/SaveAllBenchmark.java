@@ -0,0 +1,122 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.berrycloud.acl.benchmark.entity.Document;
+
+/**
+ * Compares the updates of a batch of detached documents via {@code save} calls one by one and via a single
+ * {@code saveAll} call. The JDBC round trips are reported as secondary results: {@code jdbcStatements} (single
+ * statements, e.g. permission-checks and merge-selects), {@code jdbcBatches} (executed JDBC batches) and
+ * {@code savedEntities}. The round trips per saved entity are {@code (jdbcStatements + jdbcBatches) / savedEntities}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveAllBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+
+        /**
+         * Number of the documents saved in one invocation
+         */
+        @Param({ "1000" })
+        public int batchSize;
+
+        private List<Document> documents;
+
+        private int revision;
+
+        @Setup(Level.Trial)
+        public void setup(AclBenchmarkState state) {
+            documents = state.createDocuments(batchSize);
+        }
+
+        List<Document> nextDocuments() {
+            revision++;
+            for (Document document : documents) {
+                document.setName("batch-document-" + revision);
+            }
+            return documents;
+        }
+    }
+
+    /**
+     * The JDBC executions of the iteration. JMH reports the public fields as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class JdbcCounters {
+
+        public long jdbcStatements;
+
+        public long jdbcBatches;
+
+        public long savedEntities;
+
+        private long statementCount;
+
+        private long batchCount;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            jdbcStatements = 0;
+            jdbcBatches = 0;
+            savedEntities = 0;
+        }
+
+        void start() {
+            statementCount = JdbcExecutionCounter.getStatementCount();
+            batchCount = JdbcExecutionCounter.getBatchCount();
+        }
+
+        void stop(int entities) {
+            jdbcStatements += JdbcExecutionCounter.getStatementCount() - statementCount;
+            jdbcBatches += JdbcExecutionCounter.getBatchCount() - batchCount;
+            savedEntities += entities;
+        }
+    }
+
+    @Benchmark
+    public int saveOneByOne(AclBenchmarkState state, Batch batch, JdbcCounters counters) {
+        List<Document> documents = batch.nextDocuments();
+        counters.start();
+        int count = state.inTransaction(() -> {
+            int saved = 0;
+            for (Document document : documents) {
+                state.getDocumentRepository().save(document);
+                saved++;
+            }
+            return saved;
+        });
+        counters.stop(count);
+        return count;
+    }
+
+    @Benchmark
+    public List<Document> saveAll(AclBenchmarkState state, Batch batch, JdbcCounters counters) {
+        List<Document> documents = batch.nextDocuments();
+        counters.start();
+        List<Document> saved = state.inTransaction(() -> state.getDocumentRepository().saveAll(documents));
+        counters.stop(saved.size());
+        return saved;
+    }
+}
@@ -0,0 +1,53 @@
+package com.berrycloud.acl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.berrycloud.acl.AclConstants;
+import com.berrycloud.acl.benchmark.entity.Document;
+import com.berrycloud.acl.benchmark.entity.Person;
+
+/**
+ * Measures the criteria construction of the ACL predicates (without executing the queries).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    @Benchmark
+    public Predicate documentReadPredicate(AclBenchmarkState state) {
+        return toPredicate(state, Document.class, AclConstants.READ_PERMISSION);
+    }
+
+    @Benchmark
+    public Predicate documentUpdatePredicate(AclBenchmarkState state) {
+        return toPredicate(state, Document.class, AclConstants.UPDATE_PERMISSION);
+    }
+
+    @Benchmark
+    public Predicate personReadPredicate(AclBenchmarkState state) {
+        return toPredicate(state, Person.class, AclConstants.READ_PERMISSION);
+    }
+
+    private <T> Predicate toPredicate(AclBenchmarkState state, Class<T> domainClass, String permission) {
+        CriteriaBuilder cb = state.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        return state.getAclSpecification().toPredicate(root, query, cb, permission);
+    }
+}
@@ -0,0 +1,87 @@
+package com.berrycloud.acl.benchmark.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+
+import com.berrycloud.acl.annotation.AclOwner;
+import com.berrycloud.acl.annotation.AclParent;
+
+@Entity
+public class Document {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Integer id;
+
+    private String name;
+
+    @AclOwner
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Person creator;
+
+    // Documents form chains, so the depth of the parent-checks is limited only by the max-depth setting
+    @AclParent
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Document parent;
+
+    @OneToMany(mappedBy = "target")
+    private List<PersonHasDocumentPermission> personOwner = new ArrayList<>();
+
+    public Document() {
+    }
+
+    public Document(String name, Person creator, Document parent) {
+        this.name = name;
+        this.creator = creator;
+        this.parent = parent;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Person getCreator() {
+        return creator;
+    }
+
+    public void setCreator(Person creator) {
+        this.creator = creator;
+    }
+
+    public Document getParent() {
+        return parent;
+    }
+
+    public void setParent(Document parent) {
+        this.parent = parent;
+    }
+
+    public List<PersonHasDocumentPermission> getPersonOwner() {
+        return personOwner;
+    }
+
+    public void setPersonOwner(List<PersonHasDocumentPermission> personOwner) {
+        this.personOwner = personOwner;
+    }
+
+}
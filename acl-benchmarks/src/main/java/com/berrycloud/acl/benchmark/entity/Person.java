@@ -0,0 +1,106 @@
+package com.berrycloud.acl.benchmark.entity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+
+import com.berrycloud.acl.annotation.AclOwner;
+import com.berrycloud.acl.annotation.AclRoleProvider;
+import com.berrycloud.acl.annotation.AclSelf;
+import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.domain.SimpleAclRole;
+
+@Entity
+@AclSelf({ "read" })
+public class Person implements AclUser {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Integer id;
+
+    @Column(unique = true, nullable = false)
+    private String username;
+
+    private String password = "password";
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    private Set<SimpleAclRole> aclRoles = new HashSet<>();
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @AclOwner
+    private Person createdBy;
+
+    @AclOwner
+    @AclRoleProvider
+    @ManyToMany(fetch = FetchType.LAZY)
+    private List<TestGroup> groups = new ArrayList<>();
+
+    public Person() {
+    }
+
+    public Person(String username, Person createdBy) {
+        this.username = username;
+        this.createdBy = createdBy;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Set<SimpleAclRole> getAclRoles() {
+        return aclRoles;
+    }
+
+    public void setAclRoles(Set<SimpleAclRole> aclRoles) {
+        this.aclRoles = aclRoles;
+    }
+
+    public Person getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(Person createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public List<TestGroup> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<TestGroup> groups) {
+        this.groups = groups;
+    }
+
+}
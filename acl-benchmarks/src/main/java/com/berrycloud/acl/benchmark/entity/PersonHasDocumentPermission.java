@@ -0,0 +1,17 @@
+package com.berrycloud.acl.benchmark.entity;
+
+import javax.persistence.Entity;
+
+import com.berrycloud.acl.domain.PermissionLink;
+
+@Entity
+public class PersonHasDocumentPermission extends PermissionLink<Person, Document> {
+
+    public PersonHasDocumentPermission() {
+    }
+
+    public PersonHasDocumentPermission(Person owner, Document target, String permission) {
+        super(owner, target, permission);
+    }
+
+}
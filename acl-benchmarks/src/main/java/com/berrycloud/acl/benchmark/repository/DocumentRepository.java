@@ -0,0 +1,8 @@
+package com.berrycloud.acl.benchmark.repository;
+
+import com.berrycloud.acl.benchmark.entity.Document;
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+public interface DocumentRepository extends AclJpaRepository<Document, Integer> {
+
+}
@@ -0,0 +1,8 @@
+package com.berrycloud.acl.benchmark.repository;
+
+import com.berrycloud.acl.benchmark.entity.Person;
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+public interface PersonRepository extends AclJpaRepository<Person, Integer> {
+
+}
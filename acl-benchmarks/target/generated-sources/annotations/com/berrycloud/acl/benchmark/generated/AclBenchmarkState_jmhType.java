@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class AclBenchmarkState_jmhType extends AclBenchmarkState_jmhType_B3 {
+}
+
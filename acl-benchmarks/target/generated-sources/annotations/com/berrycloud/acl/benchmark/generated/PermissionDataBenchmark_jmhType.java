@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class PermissionDataBenchmark_jmhType extends PermissionDataBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class RepositoryBenchmark_jmhType extends RepositoryBenchmark_jmhType_B3 {
+}
+
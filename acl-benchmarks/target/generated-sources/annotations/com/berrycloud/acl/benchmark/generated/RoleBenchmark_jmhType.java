@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class RoleBenchmark_jmhType extends RoleBenchmark_jmhType_B3 {
+}
+
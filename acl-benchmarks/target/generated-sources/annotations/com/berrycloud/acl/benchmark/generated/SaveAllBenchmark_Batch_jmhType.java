@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class SaveAllBenchmark_Batch_jmhType extends SaveAllBenchmark_Batch_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.berrycloud.acl.benchmark.generated;
+public class SaveAllBenchmark_JdbcCounters_jmhType extends SaveAllBenchmark_JdbcCounters_jmhType_B3 {
+}
+
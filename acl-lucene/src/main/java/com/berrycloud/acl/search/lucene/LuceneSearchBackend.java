@@ -0,0 +1,333 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search.lucene;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.proxy.HibernateProxyHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.data.AclEntityMetaData;
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.repository.AclStreams;
+import com.berrycloud.acl.search.AclSearchable;
+import com.berrycloud.acl.search.SearchBackend;
+
+/**
+ * Embedded Lucene implementation of the {@link SearchBackend}. The {@link AclSearchable} properties of all the entities
+ * are indexed in a single index stored in a local directory. Every entity is a Lucene document with its type (and all
+ * of its supertypes, so a search for a type finds the instances of its subtypes too), its id and one tokenized field
+ * per searchable property.
+ * <p>
+ * The index is kept up to date via the {@link AclEntityListener}: the changes of a transaction are written to the
+ * index after the commit (the property values are captured when the entity is flushed). A search matches the words of
+ * the patterns as prefixes of the indexed tokens in any of the properties, and the whole words score higher.
+ * <p>
+ * The index is local, so every instance of a clustered application maintains its own one, and the changes made by
+ * other instances (or directly in the DB) are visible only after a rebuild.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class LuceneSearchBackend implements SearchBackend, AclEntityListener.Handler {
+
+    private static Logger LOG = LoggerFactory.getLogger(LuceneSearchBackend.class);
+
+    private static final String TYPE_FIELD = "_type";
+    private static final String ID_FIELD = "_id";
+    private static final String KEY_FIELD = "_key";
+
+    private static final float WHOLE_WORD_BOOST = 2f;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private AclMetaData aclMetaData;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.data.jpa.acl.search.lucene.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${spring.data.jpa.acl.stream.fetch-size:500}")
+    private int fetchSize = 500;
+
+    private final Path indexPath;
+
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private Directory directory;
+
+    private IndexWriter indexWriter;
+
+    private SearcherManager searcherManager;
+
+    public LuceneSearchBackend(Path indexPath) {
+        this.indexPath = indexPath;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        LOG.info("Opening search index in {}", indexPath.toAbsolutePath());
+        directory = FSDirectory.open(indexPath);
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+        searcherManager = new SearcherManager(indexWriter, null);
+        AclEntityListener.addHandler(em.getEntityManagerFactory(), this);
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        AclEntityListener.removeHandler(em.getEntityManagerFactory(), this);
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                rebuild();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> domainClass) {
+        AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(domainClass);
+        return metaData != null && !metaData.getSearchableAttributes().isEmpty();
+    }
+
+    @Override
+    public Map<Object, Float> search(Class<?> domainClass, List<String> patterns, int maxResults) {
+        List<String> properties = aclMetaData.getAclEntityMetaData(domainClass).getSearchableAttributes();
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        query.add(new TermQuery(new Term(TYPE_FIELD, domainClass.getName())), Occur.FILTER);
+        for (String pattern : patterns) {
+            // Every word must appear in any of the properties
+            BooleanQuery.Builder patternQuery = new BooleanQuery.Builder();
+            for (String property : properties) {
+                patternQuery.add(new BoostQuery(new TermQuery(new Term(property, pattern)), WHOLE_WORD_BOOST),
+                        Occur.SHOULD);
+                patternQuery.add(new PrefixQuery(new Term(property, pattern)), Occur.SHOULD);
+            }
+            query.add(patternQuery.build(), Occur.MUST);
+        }
+
+        Class<?> idType = aclMetaData.getAclEntityMetaData(domainClass).getIdAttribute().getJavaType();
+        Map<Object, Float> result = new LinkedHashMap<>();
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query.build(), maxResults);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    String id = searcher.doc(scoreDoc.doc).get(ID_FIELD);
+                    result.put(conversionService.convert(id, idType), scoreDoc.score);
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Called by the {@link AclEntityListener} for every persisted or updated entity.
+     */
+    @Override
+    public void entityChanged(Object entity) {
+        if (supports(entity.getClass())) {
+            Document document = createDocument(entity);
+            Term key = new Term(KEY_FIELD, document.get(KEY_FIELD));
+            apply(writer -> writer.updateDocument(key, document));
+        }
+    }
+
+    /**
+     * Called by the {@link AclEntityListener} for every removed entity.
+     */
+    @Override
+    public void entityRemoved(Object entity) {
+        if (supports(entity.getClass())) {
+            Term key = new Term(KEY_FIELD, createKey(entity.getClass(), getId(entity)));
+            apply(writer -> writer.deleteDocuments(key));
+        }
+    }
+
+    /**
+     * Drops and recreates the whole index from the DB. It must be called in a transaction.
+     */
+    public void rebuild() {
+        LOG.info("Rebuilding search index");
+        List<IndexOperation> operations = new ArrayList<>();
+        operations.add(IndexWriter::deleteAll);
+        execute(operations);
+        for (Class<?> javaType : aclMetaData.getEntityTypes()) {
+            if (!supports(javaType)) {
+                continue;
+            }
+            String entityName = em.getMetamodel().entity(javaType).getName();
+            try (Stream<Object> entities = AclStreams.stream(em.createQuery("select e from " + entityName + " e"),
+                    em, fetchSize)) {
+                entities.forEach(entity -> {
+                    // The instances of the subtypes are indexed by the query of their own type
+                    if (HibernateProxyHelper.getClassWithoutInitializingProxy(entity) != javaType) {
+                        return;
+                    }
+                    Document document = createDocument(entity);
+                    operations.add(writer -> writer.updateDocument(new Term(KEY_FIELD, document.get(KEY_FIELD)),
+                            document));
+                    if (operations.size() >= fetchSize) {
+                        execute(operations);
+                    }
+                });
+            }
+        }
+        execute(operations);
+    }
+
+    private Document createDocument(Object entity) {
+        Class<?> javaType = HibernateProxyHelper.getClassWithoutInitializingProxy(entity);
+        Object id = getId(entity);
+        Document document = new Document();
+        for (Class<?> type = javaType; type != null && type != Object.class; type = type.getSuperclass()) {
+            document.add(new StringField(TYPE_FIELD, type.getName(), Field.Store.NO));
+        }
+        document.add(new StringField(ID_FIELD, id.toString(), Field.Store.YES));
+        document.add(new StringField(KEY_FIELD, createKey(javaType, id), Field.Store.YES));
+        BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        for (String property : aclMetaData.getAclEntityMetaData(javaType).getSearchableAttributes()) {
+            Object value = beanWrapper.getPropertyValue(property);
+            if (value != null) {
+                document.add(new TextField(property, value.toString(), Field.Store.NO));
+            }
+        }
+        return document;
+    }
+
+    private Object getId(Object entity) {
+        return em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    private static String createKey(Class<?> javaType, Object id) {
+        return javaType.getName() + "#" + id;
+    }
+
+    /**
+     * Applies the operation after the commit of the current transaction, or immediately if there is no transaction.
+     */
+    private void apply(IndexOperation operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<IndexOperation> operations = new ArrayList<>();
+            operations.add(operation);
+            execute(operations);
+            return;
+        }
+        PendingOperations pendingOperations = (PendingOperations) TransactionSynchronizationManager.getResource(this);
+        if (pendingOperations == null) {
+            pendingOperations = new PendingOperations();
+            TransactionSynchronizationManager.bindResource(this, pendingOperations);
+            TransactionSynchronizationManager.registerSynchronization(pendingOperations);
+        }
+        pendingOperations.operations.add(operation);
+    }
+
+    /**
+     * Executes and clears the given operations, then commits the index and refreshes the searchers.
+     */
+    private void execute(List<IndexOperation> operations) {
+        try {
+            for (IndexOperation operation : operations) {
+                operation.apply(indexWriter);
+            }
+            operations.clear();
+            indexWriter.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexOperation {
+        void apply(IndexWriter writer) throws IOException;
+    }
+
+    /**
+     * The index operations of the current transaction
+     */
+    private class PendingOperations extends TransactionSynchronizationAdapter {
+
+        private final List<IndexOperation> operations = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LuceneSearchBackend.this);
+            if (status == STATUS_COMMITTED) {
+                execute(operations);
+            }
+        }
+    }
+}
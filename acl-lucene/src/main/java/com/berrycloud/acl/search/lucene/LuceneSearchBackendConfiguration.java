@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search.lucene;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.berrycloud.acl.configuration.AclConfiguration;
+import com.berrycloud.acl.configuration.AclSearchBackendImportSelector;
+import com.berrycloud.acl.search.SearchBackend;
+
+/**
+ * Configuration of the Lucene based search backend. It's imported by the {@link AclSearchBackendImportSelector} of the
+ * ACL configuration if Lucene is on the classpath, and it's active only if
+ * {@code spring.data.jpa.acl.search.lucene.enabled} is set.
+ *
+ * @author István Rátkai (Selindek)
+ */
+@Configuration
+@ConditionalOnProperty(AclConfiguration.LUCENE_SEARCH_ENABLED_PROPERTY)
+public class LuceneSearchBackendConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(SearchBackend.class)
+    public LuceneSearchBackend luceneSearchBackend(
+            @Value("${spring.data.jpa.acl.search.lucene.directory:acl-search-index}") String directory) {
+        return new LuceneSearchBackend(Paths.get(directory));
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.berrycloud.acl.search.lucene;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.domain.SimpleAclUser;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.search.lucene.sample.AclAppLucene;
+import com.berrycloud.acl.search.lucene.sample.Article;
+import com.berrycloud.acl.search.lucene.sample.ArticleRepository;
+import com.berrycloud.acl.search.lucene.sample.NewsArticle;
+import com.berrycloud.acl.search.lucene.sample.UserRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+/**
+ * The index is updated after the commit, so the test data is committed in separate transactions.
+ */
+@SpringBootTest(classes = AclAppLucene.class)
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "spring.data.jpa.acl.search.max-candidates=1")
+public class LuceneSearchBackendIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private LuceneSearchBackend searchBackend;
+
+  @Autowired
+  private ArticleRepository articleRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private Article action, actions, other;
+
+  private NewsArticle news;
+
+  @Before
+  public void initTests() {
+    inTransaction(status -> {
+      em.createQuery("delete from Article").executeUpdate();
+      em.createQuery("delete from SimpleAclUser").executeUpdate();
+      searchBackend.rebuild();
+      return null;
+    });
+    inTransaction(status -> {
+      SimpleAclUser owner = userRepository.saveWithoutPermissionCheck(new SimpleAclUser("owner"));
+      SimpleAclUser stranger = userRepository.saveWithoutPermissionCheck(new SimpleAclUser("stranger"));
+      action = articleRepository.saveWithoutPermissionCheck(new Article("lucene in action", stranger));
+      actions = articleRepository.saveWithoutPermissionCheck(new Article("lucene actions", owner));
+      other = articleRepository.saveWithoutPermissionCheck(new Article("something else", owner));
+      news = articleRepository.saveWithoutPermissionCheck(new NewsArticle("breaking lucene news", owner));
+      return null;
+    });
+  }
+
+  @After
+  public void clearAuthentication() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private <T> T inTransaction(TransactionCallback<T> callback) {
+    return new TransactionTemplate(transactionManager).execute(callback);
+  }
+
+  private List<Object> search(Class<?> domainClass, String... patterns) {
+    return new ArrayList<>(searchBackend.search(domainClass, Arrays.asList(patterns), 10).keySet());
+  }
+
+  @Test
+  public void testGivenIndexedEntitiesWhenSearchThenReturnMatchingIdsOrderedByScore() {
+    assertThat(search(Article.class, "action"), is(Arrays.<Object> asList(action.getId(), actions.getId())));
+    assertThat(search(Article.class, "lucene", "act"), is(Arrays.<Object> asList(action.getId(), actions.getId())));
+    assertTrue(search(Article.class, "missing").isEmpty());
+  }
+
+  @Test
+  public void testGivenSubclassEntityWhenSearchBaseTypeThenSubclassIsFound() {
+    assertThat(search(Article.class, "breaking"), is(Collections.<Object> singletonList(news.getId())));
+    assertThat(search(NewsArticle.class, "lucene"), is(Collections.<Object> singletonList(news.getId())));
+  }
+
+  @Test
+  public void testGivenRemovedEntityWhenSearchThenEntityIsNotFound() {
+    inTransaction(status -> {
+      articleRepository.deleteWithoutPermissionCheck(articleRepository.findByIdWithoutPermissionCheck(action.getId())
+          .get());
+      return null;
+    });
+
+    assertThat(search(Article.class, "action"), is(Collections.<Object> singletonList(actions.getId())));
+  }
+
+  @Test
+  public void testGivenChangeOutsideOfIndexWhenRebuildThenChangeIsFound() {
+    inTransaction(status -> em.createQuery("update Article set title = 'rebuilt' where id = :id")
+        .setParameter("id", other.getId()).executeUpdate());
+    assertTrue(search(Article.class, "rebuilt").isEmpty());
+
+    inTransaction(status -> {
+      searchBackend.rebuild();
+      return null;
+    });
+
+    assertThat(search(Article.class, "rebuilt"), is(Collections.<Object> singletonList(other.getId())));
+    assertThat(search(Article.class, "breaking"), is(Collections.<Object> singletonList(news.getId())));
+  }
+
+  @Test
+  public void testGivenPermittedMatchesBelowCutoffWhenCallFindAllWithSearchThenReturnPermittedMatches() {
+    List<Article> list = inTransaction(status -> {
+      AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("owner");
+      SecurityContextHolder.getContext().setAuthentication(
+          new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities()));
+      return articleRepository.findAll(new Search("action"));
+    });
+
+    // The article of the other user ranks higher, but it's not readable for the owner
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(actions.getId()));
+  }
+}
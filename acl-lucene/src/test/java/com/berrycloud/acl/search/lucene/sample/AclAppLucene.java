@@ -0,0 +1,16 @@
+package com.berrycloud.acl.search.lucene.sample;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+
+import com.berrycloud.acl.configuration.EnableAclJpaRepositories;
+import com.berrycloud.acl.domain.SimpleAclUser;
+
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EnableAclJpaRepositories
+@EntityScan(basePackageClasses = { AclAppLucene.class, SimpleAclUser.class })
+public class AclAppLucene {
+
+}
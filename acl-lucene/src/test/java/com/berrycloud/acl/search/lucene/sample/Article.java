@@ -0,0 +1,59 @@
+package com.berrycloud.acl.search.lucene.sample;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+import com.berrycloud.acl.annotation.AclOwner;
+import com.berrycloud.acl.domain.SimpleAclUser;
+import com.berrycloud.acl.search.AclSearchable;
+
+@Entity
+public class Article {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+
+  @AclSearchable
+  private String title;
+
+  @AclOwner
+  @ManyToOne(fetch = FetchType.LAZY)
+  private SimpleAclUser owner;
+
+  public Article() {
+  }
+
+  public Article(String title, SimpleAclUser owner) {
+    this.title = title;
+    this.owner = owner;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public SimpleAclUser getOwner() {
+    return owner;
+  }
+
+  public void setOwner(SimpleAclUser owner) {
+    this.owner = owner;
+  }
+}
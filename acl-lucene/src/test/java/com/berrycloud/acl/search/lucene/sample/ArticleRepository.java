@@ -0,0 +1,7 @@
+package com.berrycloud.acl.search.lucene.sample;
+
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+public interface ArticleRepository extends AclJpaRepository<Article, Long> {
+
+}
@@ -0,0 +1,16 @@
+package com.berrycloud.acl.search.lucene.sample;
+
+import javax.persistence.Entity;
+
+import com.berrycloud.acl.domain.SimpleAclUser;
+
+@Entity
+public class NewsArticle extends Article {
+
+  public NewsArticle() {
+  }
+
+  public NewsArticle(String title, SimpleAclUser owner) {
+    super(title, owner);
+  }
+}
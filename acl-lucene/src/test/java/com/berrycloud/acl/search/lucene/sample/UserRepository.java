@@ -0,0 +1,8 @@
+package com.berrycloud.acl.search.lucene.sample;
+
+import com.berrycloud.acl.domain.SimpleAclUser;
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+public interface UserRepository extends AclJpaRepository<SimpleAclUser, Integer> {
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.metrics.micrometer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.berrycloud.acl.metrics.AclDecisionPath;
+import com.berrycloud.acl.metrics.AclMetrics;
+import com.berrycloud.acl.security.AclUserDetailsCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Micrometer based {@link AclMetrics} implementation. It records the following meters:
+ * <ul>
+ * <li>{@code acl.query.creation} timer (tags: type, permission, source)</li>
+ * <li>{@code acl.predicate} counter and {@code acl.predicate.joins}, {@code acl.predicate.branches} distribution
+ * summaries (tags: type, permission, path)</li>
+ * <li>{@code acl.permission.check} timer (tags: type, permission, result)</li>
+ * <li>{@code acl.user.load} timer (tags: cache)</li>
+ * <li>{@code acl.user.cache.*} counters and gauge of the {@link AclUserDetailsCache} (if it's enabled)</li>
+ * </ul>
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class MicrometerAclMetrics implements AclMetrics {
+
+    private final MeterRegistry registry;
+
+    public MicrometerAclMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers the counters of the user-cache.
+     */
+    public void bindUserDetailsCache(AclUserDetailsCache userDetailsCache) {
+        FunctionCounter.builder("acl.user.cache.requests", userDetailsCache, AclUserDetailsCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("acl.user.cache.requests", userDetailsCache, AclUserDetailsCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("acl.user.cache.evictions", userDetailsCache, AclUserDetailsCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("acl.user.cache.size", userDetailsCache, AclUserDetailsCache::size).register(registry);
+    }
+
+    @Override
+    public void recordQueryCreation(String source, Class<?> domainType, String permission, long nanos) {
+        registry.timer("acl.query.creation", "type", domainType.getSimpleName(), "permission", permission, "source",
+                source).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordPredicate(Class<?> domainType, String permission, AclDecisionPath path, int joinCount,
+            int branchCount) {
+        String[] tags = { "type", domainType.getSimpleName(), "permission", permission, "path", toTag(path) };
+        registry.counter("acl.predicate", tags).increment();
+        registry.summary("acl.predicate.joins", tags).record(joinCount);
+        registry.summary("acl.predicate.branches", tags).record(branchCount);
+    }
+
+    @Override
+    public void recordPermissionCheck(Class<?> domainType, String permission, boolean permitted, long nanos) {
+        registry.timer("acl.permission.check", "type", domainType.getSimpleName(), "permission", permission, "result",
+                permitted ? "granted" : "denied").record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordUserDetailsLoad(boolean cached, long nanos) {
+        registry.timer("acl.user.load", "cache", cached ? "hit" : "miss").record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String toTag(AclDecisionPath path) {
+        return path.name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+    }
+}
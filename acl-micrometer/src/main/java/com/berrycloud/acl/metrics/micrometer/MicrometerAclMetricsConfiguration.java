@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.metrics.micrometer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.berrycloud.acl.configuration.AclMetricsImportSelector;
+import com.berrycloud.acl.metrics.AclMetrics;
+import com.berrycloud.acl.security.AclUserDetailsCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Configuration of the Micrometer based ACL metrics. It's imported by the {@link AclMetricsImportSelector} of the ACL
+ * configuration if Micrometer is on the classpath. The metrics are recorded to the {@link MeterRegistry} bean of the
+ * application or to the global registry if there is no such bean.
+ *
+ * @author István Rátkai (Selindek)
+ */
+@Configuration
+public class MicrometerAclMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(AclMetrics.class)
+    public MicrometerAclMetrics aclMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<AclUserDetailsCache> userDetailsCache) {
+        MicrometerAclMetrics aclMetrics = new MicrometerAclMetrics(
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        userDetailsCache.ifAvailable(aclMetrics::bindUserDetailsCache);
+        return aclMetrics;
+    }
+
+}
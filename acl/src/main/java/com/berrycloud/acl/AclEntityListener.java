@@ -0,0 +1,327 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.AbstractPreDatabaseOperationEvent;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreCollectionRecreateEvent;
+import org.hibernate.event.spi.PreCollectionRecreateEventListener;
+import org.hibernate.event.spi.PreCollectionRemoveEvent;
+import org.hibernate.event.spi.PreCollectionRemoveEventListener;
+import org.hibernate.event.spi.PreCollectionUpdateEvent;
+import org.hibernate.event.spi.PreCollectionUpdateEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Default entity listener of the ACL. One listener is registered to the Hibernate events of every entity manager
+ * factory which has any feature that needs entity change events, and it forwards the events to the {@link Handler}s
+ * registered to the same entity manager factory.
+ * <p>
+ * Besides the changes of the entities it also reports the changes of their collections (which don't change the entity
+ * itself) and the queries executed in a transaction (right after the auto-flush of the persistence context).
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclEntityListener implements PreInsertEventListener, PreUpdateEventListener, PostInsertEventListener,
+    PostUpdateEventListener, PostDeleteEventListener, PreCollectionRecreateEventListener,
+    PreCollectionUpdateEventListener, PreCollectionRemoveEventListener, PostCollectionRecreateEventListener,
+    PostCollectionUpdateEventListener, PostCollectionRemoveEventListener, AutoFlushEventListener {
+
+  private static final long serialVersionUID = 6218432750914362014L;
+
+  private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+
+  /**
+   * The added and removed elements of the collections between their pre and post events
+   */
+  private final Map<PersistentCollection, Collection<Object>> changedElements = Collections
+      .synchronizedMap(new IdentityHashMap<>());
+
+  /**
+   * Handler of the entity change events.
+   */
+  public interface Handler {
+
+    /**
+     * Called before an entity is inserted or updated. The handler can modify the state of the entity.
+     */
+    default void entityChanging(Object entity) {
+    }
+
+    /**
+     * Called after an entity was inserted, updated or removed.
+     */
+    void entityChanged(Object entity);
+
+    /**
+     * Called after an entity was removed. By default it's handled as any other change.
+     */
+    default void entityRemoved(Object entity) {
+      entityChanged(entity);
+    }
+
+    /**
+     * Called after a collection of an entity was recreated, updated or removed. The changed elements are the ones which
+     * were added to or removed from the collection (if the collection was initialized). By default it's handled as a
+     * change of the owner.
+     */
+    default void collectionChanged(Object owner, Collection<?> changedElements) {
+      entityChanged(owner);
+    }
+
+    /**
+     * Called after the entities of the given type were deleted by a bulk statement (which doesn't send any event for
+     * the deleted entities).
+     */
+    default void entitiesDeleted(Class<?> entityType) {
+    }
+
+    /**
+     * Called before a query is executed in a transaction, after the persistence context was auto-flushed (if it was
+     * needed for the query).
+     *
+     * @param querySpaces
+     *          the names of the tables what the query reads
+     */
+    default void beforeQuery(Set<?> querySpaces) {
+    }
+  }
+
+  /**
+   * Returns the listener of the given entity manager factory. The listener is registered to the factory on the first
+   * call.
+   */
+  public static AclEntityListener getListener(EntityManagerFactory entityManagerFactory) {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    synchronized (registry) {
+      for (Object listener : registry.getEventListenerGroup(EventType.POST_INSERT).listeners()) {
+        if (listener instanceof AclEntityListener) {
+          return (AclEntityListener) listener;
+        }
+      }
+      AclEntityListener listener = new AclEntityListener();
+      registry.appendListeners(EventType.PRE_INSERT, listener);
+      registry.appendListeners(EventType.PRE_UPDATE, listener);
+      registry.appendListeners(EventType.POST_INSERT, listener);
+      registry.appendListeners(EventType.POST_UPDATE, listener);
+      registry.appendListeners(EventType.POST_DELETE, listener);
+      registry.appendListeners(EventType.PRE_COLLECTION_RECREATE, listener);
+      registry.appendListeners(EventType.PRE_COLLECTION_UPDATE, listener);
+      registry.appendListeners(EventType.PRE_COLLECTION_REMOVE, listener);
+      registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+      registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+      registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+      registry.appendListeners(EventType.AUTO_FLUSH, listener);
+      return listener;
+    }
+  }
+
+  public static void addHandler(EntityManagerFactory entityManagerFactory, Handler handler) {
+    getListener(entityManagerFactory).handlers.add(handler);
+  }
+
+  public static void removeHandler(EntityManagerFactory entityManagerFactory, Handler handler) {
+    getListener(entityManagerFactory).handlers.remove(handler);
+  }
+
+  /**
+   * Notifies the handlers of the given entity manager factory about a bulk delete of the given entity type.
+   */
+  public static void fireEntitiesDeleted(EntityManagerFactory entityManagerFactory, Class<?> entityType) {
+    for (Handler handler : getListener(entityManagerFactory).handlers) {
+      handler.entitiesDeleted(entityType);
+    }
+  }
+
+  @Override
+  public boolean onPreInsert(PreInsertEvent event) {
+    entityChanging(event, event.getState());
+    return false;
+  }
+
+  @Override
+  public boolean onPreUpdate(PreUpdateEvent event) {
+    entityChanging(event, event.getState());
+    return false;
+  }
+
+  /**
+   * Calls the handlers and copies the modified properties of the entity into the state what will be written to the
+   * database.
+   */
+  private void entityChanging(AbstractPreDatabaseOperationEvent event, Object[] state) {
+    if (handlers.isEmpty()) {
+      return;
+    }
+    EntityPersister persister = event.getPersister();
+    Object[] before = persister.getPropertyValues(event.getEntity());
+    for (Handler handler : handlers) {
+      handler.entityChanging(event.getEntity());
+    }
+    // Only the properties changed by the handlers are copied (e.g. the version of the state is already incremented)
+    Object[] after = persister.getPropertyValues(event.getEntity());
+    for (int i = 0; i < after.length; i++) {
+      if (after[i] != before[i]) {
+        state[i] = after[i];
+      }
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    entityChanged(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    entityChanged(event.getEntity());
+  }
+
+  private void entityChanged(Object entity) {
+    for (Handler handler : handlers) {
+      handler.entityChanged(entity);
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    for (Handler handler : handlers) {
+      handler.entityRemoved(event.getEntity());
+    }
+  }
+
+  @Override
+  public void onPreRecreateCollection(PreCollectionRecreateEvent event) {
+    // all the elements of a new collection are added
+    rememberChangedElements(event.getCollection(), null, event.getCollection());
+  }
+
+  @Override
+  public void onPreUpdateCollection(PreCollectionUpdateEvent event) {
+    // the snapshot still contains the elements before the update
+    rememberChangedElements(event.getCollection(), event.getCollection().getStoredSnapshot(), event.getCollection());
+  }
+
+  @Override
+  public void onPreRemoveCollection(PreCollectionRemoveEvent event) {
+    rememberChangedElements(event.getCollection(), event.getCollection().getStoredSnapshot(), null);
+  }
+
+  @Override
+  public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+    collectionChanged(event);
+  }
+
+  @Override
+  public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+    collectionChanged(event);
+  }
+
+  @Override
+  public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+    collectionChanged(event);
+  }
+
+  /**
+   * Stores the elements what are only in the old or only in the new state of the collection.
+   */
+  private void rememberChangedElements(PersistentCollection collection, Object oldState, Object newState) {
+    if (handlers.isEmpty() || !collection.wasInitialized()) {
+      return;
+    }
+    Set<Object> oldElements = getElements(oldState);
+    Set<Object> newElements = getElements(newState);
+    Collection<Object> elements = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Object element : oldElements) {
+      if (!newElements.contains(element)) {
+        elements.add(element);
+      }
+    }
+    for (Object element : newElements) {
+      if (!oldElements.contains(element)) {
+        elements.add(element);
+      }
+    }
+    changedElements.put(collection, elements);
+  }
+
+  private static Set<Object> getElements(Object state) {
+    Set<Object> elements = Collections.newSetFromMap(new IdentityHashMap<>());
+    if (state instanceof Map) {
+      elements.addAll(((Map<?, ?>) state).values());
+    } else if (state instanceof Collection) {
+      elements.addAll((Collection<?>) state);
+    }
+    return elements;
+  }
+
+  private void collectionChanged(AbstractCollectionEvent event) {
+    Collection<Object> elements = changedElements.remove(event.getCollection());
+    Object owner = event.getAffectedOwnerOrNull();
+    if (owner == null) {
+      return;
+    }
+    for (Handler handler : handlers) {
+      handler.collectionChanged(owner, elements == null ? Collections.emptySet() : elements);
+    }
+  }
+
+  @Override
+  public void onAutoFlush(AutoFlushEvent event) {
+    for (Handler handler : handlers) {
+      handler.beforeQuery(event.getQuerySpaces());
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+}
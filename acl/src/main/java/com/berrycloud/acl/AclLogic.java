@@ -33,5 +33,12 @@ public interface AclLogic {
 
     Object getUserId(AclUser user);
 
+    Class<AclUser> getAclUserType();
+
+    /**
+     * Returns the types of the {@link com.berrycloud.acl.annotation.AclRoleProvider} properties of the AclUser type.
+     */
+    Set<Class<?>> getRoleProviderTypes();
+
     boolean isManagedType(Class<?> javaType);
 }
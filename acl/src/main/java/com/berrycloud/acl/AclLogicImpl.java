@@ -25,8 +25,10 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -42,6 +44,7 @@ import javax.persistence.metamodel.IdentifiableType;
 import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.SingularAttribute;
 
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanWrapper;
@@ -70,11 +73,14 @@ import com.berrycloud.acl.data.AclMetaData;
 import com.berrycloud.acl.data.CreatePermissionData;
 import com.berrycloud.acl.data.OwnerData;
 import com.berrycloud.acl.data.ParentData;
+import com.berrycloud.acl.data.PermissionBits;
 import com.berrycloud.acl.data.PermissionData;
+import com.berrycloud.acl.data.PermissionVocabulary;
 import com.berrycloud.acl.data.PermissionLinkData;
 import com.berrycloud.acl.data.RolePermissionData;
 import com.berrycloud.acl.domain.AclRole;
 import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.domain.BitmaskPermissionLink;
 import com.berrycloud.acl.domain.PermissionLink;
 import com.berrycloud.acl.domain.SimpleAclRole;
 import com.berrycloud.acl.domain.SimpleAclUser;
@@ -96,10 +102,45 @@ public class AclLogicImpl implements AclLogic {
     @Value("${spring.data.jpa.acl.self-permissions:" + ALL_PERMISSION + "}")
     private String[] defaultSelfPermissions;
 
+    /**
+     * Maintain and search the shadow properties of the {@link AclSearchable} properties
+     */
+    @Value("${spring.data.jpa.acl.search.shadow-columns.enabled:false}")
+    private boolean searchShadowColumns;
+
+    /**
+     * Check the permission fields of the permission-links with exact permission lists instead of patterns
+     */
+    @Value("${spring.data.jpa.acl.permission-link.exact-match:false}")
+    private boolean permissionLinkExactMatch;
+
+    @Value("${spring.data.jpa.acl.permission-link.extra-permissions:}")
+    private String[] permissionLinkExtraPermissions;
+
+    @Value("${spring.data.jpa.acl.max-depth:2}")
+    private int maxDepth;
+
+    /**
+     * Resolve the {@link AclParent#closure()} parents via the closure table
+     */
+    @Value("${spring.data.jpa.acl.parent-closure.enabled:false}")
+    private boolean parentClosure;
+
+    /**
+     * The permissions of the bitmask permission-links in the order of their bits
+     */
+    @Value("${spring.data.jpa.acl.permission-link.bitmask.permissions:all,read,update,delete,create}")
+    private String[] bitmaskPermissions;
+
     private Class<AclUser> aclUserType;
     private JpaEntityInformation<AclUser, ?> userInformation;
     private Class<AclRole> aclRoleType;
     private Set<Class<?>> javaTypes;
+    private Set<Class<?>> roleProviderTypes;
+    private List<String> userRoleProperties;
+    private Map<String, List<String>> roleProviderProperties;
+    private Map<String, Class<?>> roleProviderTypeMap;
+    private String allRolesQuery;
 
     @SuppressWarnings("unchecked")
     @Transactional
@@ -112,9 +153,18 @@ public class AclLogicImpl implements AclLogic {
 
         addDefaultUsersIfNeeded();
 
+        createRoleAccessors();
+
         Map<Class<?>, AclEntityMetaData> metaDataMap = createMetaDataMap();
 
-        return new AclMetaData(metaDataMap, new PermissionData(defaultSelfPermissions));
+        PermissionData selfPermissions = new PermissionData(defaultSelfPermissions);
+        AclMetaData aclMetaData = new AclMetaData(metaDataMap, selfPermissions);
+        aclMetaData.setPermissionBits(new PermissionBits(Arrays.asList(bitmaskPermissions)));
+        if (permissionLinkExactMatch) {
+            aclMetaData.setPermissionVocabulary(PermissionVocabulary.create(metaDataMap, selfPermissions,
+                    Arrays.asList(permissionLinkExtraPermissions), maxDepth));
+        }
+        return aclMetaData;
     }
 
     private void createJavaTypeSet() {
@@ -128,6 +178,120 @@ public class AclLogicImpl implements AclLogic {
 
     }
 
+    /**
+     * Resolves the role properties of the AclUser type and the role properties of its {@link AclRoleProvider}
+     * properties once, and creates the JPQL query what fetches all the roles of a user.
+     */
+    private void createRoleAccessors() {
+        userRoleProperties = new ArrayList<>();
+        roleProviderProperties = new HashMap<>();
+        roleProviderTypeMap = new HashMap<>();
+        roleProviderTypes = new HashSet<>();
+        if (aclUserType == null || aclRoleType == null) {
+            return;
+        }
+
+        BeanWrapper beanWrapper = createBeanWrapper(aclUserType);
+        if (beanWrapper == null) {
+            return;
+        }
+        for (final PropertyDescriptor propertyDescriptor : beanWrapper.getPropertyDescriptors()) {
+            final String propertyName = propertyDescriptor.getName();
+            final TypeDescriptor typeDescriptor = beanWrapper.getPropertyTypeDescriptor(propertyName);
+            if (isRoleProperty(typeDescriptor)) {
+                userRoleProperties.add(propertyName);
+            } else if (typeDescriptor.getAnnotation(AclRoleProvider.class) != null) {
+                TypeDescriptor elementTypeDescriptor = typeDescriptor.getElementTypeDescriptor();
+                Class<?> roleProviderType = elementTypeDescriptor != null ? elementTypeDescriptor.getObjectType()
+                        : typeDescriptor.getObjectType();
+                roleProviderTypes.add(roleProviderType);
+                roleProviderTypeMap.put(propertyName, roleProviderType);
+                roleProviderProperties.put(propertyName, getRoleProperties(roleProviderType));
+                LOG.trace("Found AclRoleProvider: {}.{}", aclUserType, propertyName);
+            }
+        }
+        allRolesQuery = createAllRolesQuery();
+    }
+
+    private List<String> getRoleProperties(Class<?> javaType) {
+        List<String> roleProperties = new ArrayList<>();
+        BeanWrapper beanWrapper = createBeanWrapper(javaType);
+        if (beanWrapper != null) {
+            for (final PropertyDescriptor propertyDescriptor : beanWrapper.getPropertyDescriptors()) {
+                final String propertyName = propertyDescriptor.getName();
+                if (isRoleProperty(beanWrapper.getPropertyTypeDescriptor(propertyName))) {
+                    roleProperties.add(propertyName);
+                }
+            }
+        }
+        return roleProperties;
+    }
+
+    private boolean isRoleProperty(TypeDescriptor typeDescriptor) {
+        final TypeDescriptor elementTypeDescriptor = typeDescriptor.getElementTypeDescriptor();
+        return aclRoleType == typeDescriptor.getType()
+                || (elementTypeDescriptor != null && aclRoleType == elementTypeDescriptor.getType());
+    }
+
+    private BeanWrapper createBeanWrapper(Class<?> javaType) {
+        try {
+            return PropertyAccessorFactory.forBeanPropertyAccess(javaType.newInstance());
+        } catch (InstantiationException | IllegalAccessException e) {
+            LOG.warn("Cannot instantiate {} ", javaType, e);
+            return null;
+        }
+    }
+
+    private boolean isPersistentAttribute(Class<?> javaType, String propertyName) {
+        try {
+            return isManagedType(javaType) && em.getMetamodel().managedType(javaType).getAttribute(propertyName) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a single JPQL query what selects all the roles of the user: directly assigned roles and the roles of the
+     * role-providers too. Returns null if some of the role properties are not persistent (they are collected via the
+     * accessors then).
+     */
+    private String createAllRolesQuery() {
+        String userEntity = em.getMetamodel().entity(aclUserType).getName();
+        String userId = userInformation.getIdAttribute().getName();
+        String roleId = em.getMetamodel().entity(aclRoleType).getId(Object.class).getName();
+
+        List<String> subQueries = new ArrayList<>();
+        for (String roleProperty : userRoleProperties) {
+            if (!isPersistentAttribute(aclUserType, roleProperty)) {
+                return null;
+            }
+            subQueries.add("r." + roleId + " in (select x." + roleId + " from " + userEntity + " u join u."
+                    + roleProperty + " x where u." + userId + " = :userId)");
+        }
+        for (Map.Entry<String, List<String>> entry : roleProviderProperties.entrySet()) {
+            if (!isPersistentAttribute(aclUserType, entry.getKey())) {
+                return null;
+            }
+            for (String roleProperty : entry.getValue()) {
+                if (!isPersistentAttribute(roleProviderTypeMap.get(entry.getKey()), roleProperty)) {
+                    return null;
+                }
+                subQueries.add("r." + roleId + " in (select x." + roleId + " from " + userEntity + " u join u."
+                        + entry.getKey() + " p join p." + roleProperty + " x where u." + userId + " = :userId)");
+            }
+        }
+        if (subQueries.isEmpty()) {
+            return "";
+        }
+        return "select r from " + em.getMetamodel().entity(aclRoleType).getName() + " r where "
+                + String.join(" or ", subQueries);
+    }
+
+    @Override
+    public Set<Class<?>> getRoleProviderTypes() {
+        return Collections.unmodifiableSet(roleProviderTypes);
+    }
+
     @Override
     public boolean isManagedType(Class<?> javaType) {
         return javaTypes != null && javaTypes.contains(javaType);
@@ -183,7 +347,7 @@ public class AclLogicImpl implements AclLogic {
             for (final PropertyDescriptor propertyDescriptor : beanWrapper.getPropertyDescriptors()) {
                 final String propertyName = propertyDescriptor.getName();
                 final TypeDescriptor typeDescriptor = beanWrapper.getPropertyTypeDescriptor(propertyName);
-                checkAclSearchable(metaData, identifiableType, propertyName, typeDescriptor);
+                checkAclSearchable(metaData, identifiableType, beanWrapper, propertyName, typeDescriptor);
                 checkAclOwner(metaData, identifiableType, propertyName, typeDescriptor);
                 checkAclParent(metaData, identifiableType, propertyName, typeDescriptor);
                 checkAclPermissionLinks(metaData, identifiableType, propertyName, typeDescriptor);
@@ -269,13 +433,32 @@ public class AclLogicImpl implements AclLogic {
                 && PermissionLink.class.isAssignableFrom(typeDescriptor.getElementTypeDescriptor().getType())) {
             if ("target".equals(oneToMany.mappedBy())) {
                 LOG.trace("PermissionLink owner: {}", propertyName);
-                metaData.getPermissionLinkList().add(new PermissionLinkData(propertyName, "permission"));
+                metaData.getPermissionLinkList().add(new PermissionLinkData(propertyName,
+                        typeDescriptor.getElementTypeDescriptor().getType(), "permission"));
+            }
+        }
+        if (oneToMany != null && (typeDescriptor.isCollection() || typeDescriptor.isArray())
+                && BitmaskPermissionLink.class
+                        .isAssignableFrom(typeDescriptor.getElementTypeDescriptor().getType())) {
+            if ("target".equals(oneToMany.mappedBy())) {
+                LOG.trace("BitmaskPermissionLink owner: {}", propertyName);
+                checkBitAndFunction();
+                metaData.getPermissionLinkList().add(new PermissionLinkData(propertyName,
+                        typeDescriptor.getElementTypeDescriptor().getType(), "permissionMask", true));
             }
         }
     }
 
-    private void checkAclSearchable(AclEntityMetaData metaData, IdentifiableType<?> type, final String propertyName,
-            final TypeDescriptor typeDescriptor) {
+    private void checkBitAndFunction() {
+        if (em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getSqlFunctionRegistry()
+                .findSQLFunction(BitAndFunction.NAME) == null) {
+            LOG.warn("The {} query function is not registered (the AclPersistenceUnitPostProcessor is not applied?)."
+                    + " BitmaskPermissionLinks cannot be checked.", BitAndFunction.NAME);
+        }
+    }
+
+    private void checkAclSearchable(AclEntityMetaData metaData, IdentifiableType<?> type, BeanWrapper beanWrapper,
+            final String propertyName, final TypeDescriptor typeDescriptor) {
       
         final AclSearchable aclSearchable = typeDescriptor.getAnnotation(AclSearchable.class);
         if(aclSearchable!=null) {
@@ -283,6 +466,9 @@ public class AclLogicImpl implements AclLogic {
             if(!attribute.isAssociation() && !attribute.isCollection() 
                     && !ClassUtils.isPrimitiveOrWrapper(attribute.getJavaType())) {
                 metaData.getSearchableAttributes().add(propertyName);
+                if (searchShadowColumns && !aclSearchable.shadow().isEmpty()) {
+                    checkSearchShadow(metaData, type, beanWrapper, propertyName, aclSearchable.shadow());
+                }
             } else {
                 LOG.warn("Non-searchable entity property '{}.{} is annotated with @AclSearchable ... ignored", 
                         type.getJavaType(), propertyName);
@@ -290,6 +476,23 @@ public class AclLogicImpl implements AclLogic {
         }
     }
     
+    private void checkSearchShadow(AclEntityMetaData metaData, IdentifiableType<?> type, BeanWrapper beanWrapper,
+            String propertyName, String shadowName) {
+        Attribute<?, ?> shadow = null;
+        try {
+            shadow = type.getAttribute(shadowName);
+        } catch (IllegalArgumentException e) {
+            // handled below
+        }
+        if (shadow != null && String.class.equals(shadow.getJavaType()) && beanWrapper.isReadableProperty(shadowName)
+                && beanWrapper.isWritableProperty(shadowName)) {
+            metaData.getSearchShadowAttributes().put(propertyName, shadowName);
+        } else {
+            LOG.warn("Shadow property '{}.{}' of @AclSearchable property is not a writable string property ... ignored",
+                    type.getJavaType(), shadowName);
+        }
+    }
+
     private void checkAclOwner(AclEntityMetaData metaData, IdentifiableType<?> type, final String propertyName,
             final TypeDescriptor typeDescriptor) {
         final AclOwner aclOwner = typeDescriptor.getAnnotation(AclOwner.class);
@@ -327,16 +530,20 @@ public class AclLogicImpl implements AclLogic {
             final TypeDescriptor typeDescriptor) {
         final AclParent aclParent = typeDescriptor.getAnnotation(AclParent.class);
         if (aclParent != null) {
-            if (isManagedType(typeDescriptor.getObjectType())
-                    || ((typeDescriptor.isArray() || typeDescriptor.isCollection())
+            Class<?> parentType = isManagedType(typeDescriptor.getObjectType()) ? typeDescriptor.getObjectType()
+                    : (typeDescriptor.isArray() || typeDescriptor.isCollection())
                             && typeDescriptor.getElementTypeDescriptor() != null
-                            && isManagedType(typeDescriptor.getElementTypeDescriptor().getObjectType()))) {
+                            && isManagedType(typeDescriptor.getElementTypeDescriptor().getObjectType())
+                                    ? typeDescriptor.getElementTypeDescriptor().getObjectType()
+                                    : null;
+            if (parentType != null) {
                 if (aclParent.prefix().indexOf(PERMISSION_PREFIX_DELIMITER) != -1) {
                     LOG.warn("@AclParent's prefix property contains illegal character at '{}.{}' ... ignored",
                             type.getJavaType(), propertyName);
                 } else {
-                    metaData.getParentDataList()
-                            .add(new ParentData(propertyName, aclParent.prefix(), aclParent.value()));
+                    metaData.getParentDataList().add(new ParentData(propertyName, parentType, aclParent.prefix(),
+                            aclParent.value(), aclParent.closure() && checkClosure(type, propertyName, typeDescriptor,
+                                    parentType, aclParent)));
                 }
             } else {
                 LOG.warn("Non-managed entity property '{}.{}' is annotated by @AclParent ... ignored",
@@ -345,54 +552,73 @@ public class AclLogicImpl implements AclLogic {
         }
     }
 
+    /**
+     * Checks if the given parent property can be resolved via the closure table
+     */
+    private boolean checkClosure(IdentifiableType<?> type, String propertyName, TypeDescriptor typeDescriptor,
+            Class<?> parentType, AclParent aclParent) {
+        if (!parentClosure) {
+            LOG.warn("Closure of '{}.{}' is ignored (spring.data.jpa.acl.parent-closure.enabled is not set)",
+                    type.getJavaType(), propertyName);
+            return false;
+        }
+        Class<?> idType = ClassUtils.resolvePrimitiveIfNecessary(type.getIdType().getJavaType());
+        if (typeDescriptor.isArray() || typeDescriptor.isCollection() || !parentType.isAssignableFrom(type.getJavaType())
+                || !aclParent.prefix().isEmpty() || !Number.class.isAssignableFrom(idType)) {
+            LOG.warn("Closure of '{}.{}' is ignored. Only single-valued self-referencing parents with empty prefix and"
+                    + " numeric id are supported.", type.getJavaType(), propertyName);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collects all the roles of the user: the directly assigned roles and the roles of its {@link AclRoleProvider}
+     * properties. Persisted users' roles are fetched by a single JPQL query, other users' roles are collected via the
+     * precomputed role properties.
+     */
     @Override
     public Set<AclRole> getAllRoles(AclUser aclUser) {
+        if (allRolesQuery != null && allRolesQuery.isEmpty()) {
+            return new HashSet<>();
+        }
+        Object userId = getUserId(aclUser);
+        if (allRolesQuery != null && userId != null) {
+            return new HashSet<>(
+                    em.createQuery(allRolesQuery, AclRole.class).setParameter("userId", userId).getResultList());
+        }
 
         Set<AclRole> roleSet = new HashSet<>();
-        roleSet.addAll(getRoles(aclUser));
-
         BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(aclUser);
-        for (final PropertyDescriptor propertyDescriptor : beanWrapper.getPropertyDescriptors()) {
-            final String propertyName = propertyDescriptor.getName();
-            final TypeDescriptor typeDescriptor = beanWrapper.getPropertyTypeDescriptor(propertyName);
-            AclRoleProvider roleProvider = typeDescriptor.getAnnotation(AclRoleProvider.class);
-            if (roleProvider != null) {
-                LOG.trace("Found AclRoleProvider: {}.{}", aclUser.getClass(), propertyName);
-                @SuppressWarnings("unchecked")
-                Collection<Object> values = beanWrapper.convertIfNecessary(beanWrapper.getPropertyValue(propertyName),
-                        Collection.class);
-                if (values == null) {
-                    continue;
-                }
-                for (Object value : values) {
-                    LOG.trace("Collecting roles from {}", value);
-                    roleSet.addAll(getRoles(value));
-                }
+        roleSet.addAll(getRoles(beanWrapper, userRoleProperties));
+
+        for (Map.Entry<String, List<String>> entry : roleProviderProperties.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Collection<Object> values = beanWrapper.convertIfNecessary(beanWrapper.getPropertyValue(entry.getKey()),
+                    Collection.class);
+            if (values == null) {
+                continue;
+            }
+            for (Object value : values) {
+                LOG.trace("Collecting roles from {}", value);
+                roleSet.addAll(getRoles(PropertyAccessorFactory.forBeanPropertyAccess(value), entry.getValue()));
             }
         }
 
         return roleSet;
     }
 
-    private Collection<AclRole> getRoles(Object entity) {
+    private Collection<AclRole> getRoles(BeanWrapper beanWrapper, List<String> roleProperties) {
         Collection<AclRole> roleSet = new ArrayList<>();
-        BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
-        for (final PropertyDescriptor propertyDescriptor : beanWrapper.getPropertyDescriptors()) {
-            final String propertyName = propertyDescriptor.getName();
-            final TypeDescriptor typeDescriptor = beanWrapper.getPropertyTypeDescriptor(propertyName);
-            final TypeDescriptor elementTypeDescriptor = typeDescriptor.getElementTypeDescriptor();
-            if (aclRoleType == typeDescriptor.getType()
-                    || (elementTypeDescriptor != null && aclRoleType == elementTypeDescriptor.getType())) {
-                @SuppressWarnings("unchecked")
-                Collection<AclRole> roles = beanWrapper.convertIfNecessary(beanWrapper.getPropertyValue(propertyName),
-                        Collection.class);
-                if (roles != null) {
-                    LOG.trace("Add roles from {}.{} : {}", entity.getClass(), propertyName, roles);
-                    roleSet.addAll(roles);
-                }
+        for (String propertyName : roleProperties) {
+            @SuppressWarnings("unchecked")
+            Collection<AclRole> roles = beanWrapper.convertIfNecessary(beanWrapper.getPropertyValue(propertyName),
+                    Collection.class);
+            if (roles != null) {
+                LOG.trace("Add roles from {}.{} : {}", beanWrapper.getWrappedClass(), propertyName, roles);
+                roleSet.addAll(roles);
             }
         }
-
         return roleSet;
     }
 
@@ -415,6 +641,11 @@ public class AclLogicImpl implements AclLogic {
         return aclUser;
     }
 
+    @Override
+    public Class<AclUser> getAclUserType() {
+        return aclUserType;
+    }
+
     @Override
     public Object getUserId(AclUser user) {
         return userInformation.getId(user);
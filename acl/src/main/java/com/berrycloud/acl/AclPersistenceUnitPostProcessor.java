@@ -16,20 +16,35 @@
 package com.berrycloud.acl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import org.hibernate.boot.spi.MetadataBuilderContributor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
 import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
 import org.springframework.orm.jpa.persistenceunit.PersistenceUnitPostProcessor;
 
+import com.berrycloud.acl.configuration.AclMetadataBuilderContributor;
+import com.berrycloud.acl.domain.AclEffectivePermission;
+import com.berrycloud.acl.domain.AclParentClosure;
 import com.berrycloud.acl.domain.AclRole;
 import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.domain.BitmaskPermissionLink;
 import com.berrycloud.acl.domain.SimpleAclRole;
 import com.berrycloud.acl.domain.SimpleAclUser;
 
 /**
- * PostProcessor for adding missing {@link AclUser} and {@link AclRole} domain classes to the Persistence MAnager.
+ * PostProcessor for adding missing {@link AclUser} and {@link AclRole} domain classes to the Persistence MAnager. If the
+ * permission-index is enabled it also adds the {@link AclEffectivePermission} entity, if the parent closure table is
+ * enabled it adds the {@link AclParentClosure} entity.
+ * <p>
+ * If there are {@link BitmaskPermissionLink} entities or the database-native full-text search is enabled it registers
+ * the {@link AclMetadataBuilderContributor} in the JPA properties. A {@code hibernate.metadata_builder_contributor} of
+ * the application is chained by the ACL contributor.
  *
  * @author István Rátkai (Selindek)
  */
@@ -37,6 +52,34 @@ public class AclPersistenceUnitPostProcessor implements PersistenceUnitPostProce
 
     private static Logger LOG = LoggerFactory.getLogger(AclPersistenceUnitPostProcessor.class);
 
+    private static final String HIBERNATE_METADATA_BUILDER_CONTRIBUTOR = "hibernate.metadata_builder_contributor";
+
+    private final boolean permissionIndex;
+    private final boolean parentClosure;
+    private final boolean fullTextSearch;
+    private final Map<String, Object> jpaPropertyMap;
+
+    public AclPersistenceUnitPostProcessor() {
+        this(false, false);
+    }
+
+    public AclPersistenceUnitPostProcessor(boolean permissionIndex, boolean parentClosure) {
+        this(permissionIndex, parentClosure, false, Collections.emptyMap());
+    }
+
+    /**
+     * @param jpaPropertyMap
+     *            the (mutable) JPA properties of the entity manager factory where the query functions of the ACL are
+     *            registered if they are needed
+     */
+    public AclPersistenceUnitPostProcessor(boolean permissionIndex, boolean parentClosure, boolean fullTextSearch,
+            Map<String, Object> jpaPropertyMap) {
+        this.permissionIndex = permissionIndex;
+        this.parentClosure = parentClosure;
+        this.fullTextSearch = fullTextSearch;
+        this.jpaPropertyMap = jpaPropertyMap;
+    }
+
     @Override
     public void postProcessPersistenceUnitInfo(MutablePersistenceUnitInfo pui) {
         List<Class<?>> entityClasses = createClasses(pui);
@@ -49,6 +92,56 @@ public class AclPersistenceUnitPostProcessor implements PersistenceUnitPostProce
             pui.addManagedClassName(SimpleAclRole.class.getName());
             LOG.info("{} was added to managed entities.", SimpleAclRole.class);
         }
+        if (permissionIndex) {
+            pui.addManagedClassName(AclEffectivePermission.class.getName());
+            LOG.info("{} was added to managed entities.", AclEffectivePermission.class);
+        }
+        if (parentClosure) {
+            pui.addManagedClassName(AclParentClosure.class.getName());
+            LOG.info("{} was added to managed entities.", AclParentClosure.class);
+        }
+        if (fullTextSearch || !missClass(entityClasses, BitmaskPermissionLink.class)) {
+            registerMetadataBuilderContributor(pui);
+        }
+    }
+
+    private void registerMetadataBuilderContributor(MutablePersistenceUnitInfo pui) {
+        Object contributor = jpaPropertyMap.get(HIBERNATE_METADATA_BUILDER_CONTRIBUTOR);
+        if (contributor == null) {
+            contributor = pui.getProperties().getProperty(HIBERNATE_METADATA_BUILDER_CONTRIBUTOR);
+        }
+        if (contributor == null) {
+            jpaPropertyMap.put(HIBERNATE_METADATA_BUILDER_CONTRIBUTOR, AclMetadataBuilderContributor.class.getName());
+            LOG.info("{} was registered as {}.", AclMetadataBuilderContributor.class,
+                    HIBERNATE_METADATA_BUILDER_CONTRIBUTOR);
+        } else if (!isAclMetadataBuilderContributor(contributor)) {
+            jpaPropertyMap.put(HIBERNATE_METADATA_BUILDER_CONTRIBUTOR,
+                    new AclMetadataBuilderContributor(createMetadataBuilderContributor(contributor, pui)));
+            LOG.info("{} was registered as {} chaining {}.", AclMetadataBuilderContributor.class,
+                    HIBERNATE_METADATA_BUILDER_CONTRIBUTOR, contributor);
+        }
+    }
+
+    private static boolean isAclMetadataBuilderContributor(Object contributor) {
+        return contributor instanceof AclMetadataBuilderContributor
+                || contributor == AclMetadataBuilderContributor.class
+                || AclMetadataBuilderContributor.class.getName().equals(contributor);
+    }
+
+    private static MetadataBuilderContributor createMetadataBuilderContributor(Object contributor,
+            MutablePersistenceUnitInfo pui) {
+        if (contributor instanceof MetadataBuilderContributor) {
+            return (MetadataBuilderContributor) contributor;
+        }
+        try {
+            Class<?> contributorClass = contributor instanceof Class ? (Class<?>) contributor
+                    : ClassUtils.forName(contributor.toString().trim(), pui.getClassLoader());
+            return (MetadataBuilderContributor) BeanUtils.instantiateClass(contributorClass);
+        } catch (ClassNotFoundException | RuntimeException e) {
+            throw new IllegalStateException("The query functions of the ACL cannot be registered: the configured "
+                    + HIBERNATE_METADATA_BUILDER_CONTRIBUTOR + " (" + contributor
+                    + ") cannot be instantiated as a MetadataBuilderContributor to be chained.", e);
+        }
     }
 
     private static boolean missClass(List<Class<?>> entityClasses, Class<?> checkClass) {
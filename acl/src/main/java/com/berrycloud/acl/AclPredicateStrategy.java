@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl;
+
+/**
+ * The possible strategies for building the permission predicates. It can be set via the
+ * {@code spring.data.jpa.acl.predicate-strategy} property.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public enum AclPredicateStrategy {
+
+  /**
+   * All the owner, owner-group, parent and permission-link checks are LEFT JOINed to the queried entity. The query is
+   * forced to be distinct. This is the default strategy.
+   */
+  JOIN,
+
+  /**
+   * All the checks which need a join are built as correlated EXISTS sub-queries. The row count of the queried entity
+   * is unchanged, so the query doesn't need to be distinct and the database can stop at the first matching check.
+   */
+  EXISTS
+
+}
@@ -15,20 +15,53 @@
  */
 package com.berrycloud.acl;
 
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import com.berrycloud.acl.metrics.AclMetrics;
+
 import com.berrycloud.acl.search.Search;
 
 public interface AclSpecification extends Specification<Object> {
 
   Predicate toPredicate(Root<?> root, CriteriaQuery<?> query, CriteriaBuilder cb, String permission);
 
+  /**
+   * Creates the full permission predicate (including the role based rules) on the root of a sub-query. It can be used
+   * for set-based updates and deletes where the ACL check must be a sub-query of the statement. The sub-query is never
+   * made distinct, so the joins of the predicate could duplicate its rows.
+   *
+   * @param root
+   * @param subquery
+   * @param cb
+   * @param permission
+   * @return
+   */
+  Predicate toSubqueryPredicate(Root<?> root, Subquery<?> subquery, CriteriaBuilder cb, String permission);
+
+  /**
+   * Creates the predicate of the self, owner, owner-group, parent and permission-link rules for the user identified by
+   * the given expression. The role based rules are NOT applied and the query is not modified.
+   *
+   * @param from
+   * @param query
+   * @param cb
+   * @param userId
+   *          an expression of the id of the user (a literal or a path of a joined user entity)
+   * @param permission
+   * @return
+   */
+  Predicate toUserPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb, Expression<?> userId,
+      String permission);
+
   /**
    * Checks whether this new entity can be created based on the Acl rules. (Does the current user have create permission
    * on this entity type or not.)
@@ -38,6 +71,23 @@ public interface AclSpecification extends Specification<Object> {
    */
   boolean canBeCreated(Object newEntity);
 
-  void applySearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder, From<?, ?> next, Search sort);
+  /**
+   * Restricts the query by the search and orders the result by the relevance. The candidates of a search backend are
+   * filtered by the given permission.
+   */
+  void applySearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder, From<?, ?> from, Search search,
+      String permission);
+
+  default void applySearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder, From<?, ?> from,
+      Search search) {
+    applySearch(criteriaQuery, criteriaBuilder, from, search, AclConstants.READ_PERMISSION);
+  }
+
+  /**
+   * Returns the metrics what the repositories and queries using this specification should record to.
+   */
+  default AclMetrics getMetrics() {
+    return AclMetrics.NOOP;
+  }
 
 }
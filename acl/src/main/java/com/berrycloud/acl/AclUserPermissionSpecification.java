@@ -15,41 +15,64 @@
  */
 package com.berrycloud.acl;
 
-import static com.berrycloud.acl.AclConstants.ALL_PERMISSION;
 import static com.berrycloud.acl.AclConstants.CREATE_PERMISSION;
-import static com.berrycloud.acl.AclConstants.PERMISSION_PREFIX_DELIMITER;
 import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
 import javax.persistence.metamodel.SingularAttribute;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.berrycloud.acl.annotation.AclOwner;
 import com.berrycloud.acl.annotation.AclParent;
 import com.berrycloud.acl.data.AclEntityMetaData;
 import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.AuthorityMask;
+import com.berrycloud.acl.data.AuthorityRegistry;
 import com.berrycloud.acl.data.CreatePermissionData;
-import com.berrycloud.acl.data.OwnerData;
-import com.berrycloud.acl.data.ParentData;
-import com.berrycloud.acl.data.PermissionLinkData;
+import com.berrycloud.acl.data.PermissionPlan;
+import com.berrycloud.acl.data.PermissionPlan.OwnerGroupStep;
+import com.berrycloud.acl.data.PermissionPlan.OwnerStep;
+import com.berrycloud.acl.data.PermissionPlan.ParentStep;
+import com.berrycloud.acl.data.PermissionPlan.PermissionCheck;
+import com.berrycloud.acl.data.PermissionPlan.PermissionLinkStep;
 import com.berrycloud.acl.data.RolePermissionData;
-import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.index.AclClosureTable;
+import com.berrycloud.acl.index.AclPermissionIndex;
+import com.berrycloud.acl.metrics.AclDecisionPath;
+import com.berrycloud.acl.metrics.AclMetrics;
+import com.berrycloud.acl.search.AclSearchable;
+import com.berrycloud.acl.search.FullTextSearch;
 import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.search.SearchBackend;
+import com.berrycloud.acl.search.SearchShadowColumns;
 import com.berrycloud.acl.security.AclUserDetails;
 import com.berrycloud.acl.security.AclUserDetailsService;
 
@@ -64,9 +87,16 @@ public class AclUserPermissionSpecification implements AclSpecification {
 
   private static Logger LOG = LoggerFactory.getLogger(AclUserPermissionSpecification.class);
 
+  private static final BitSet EMPTY_MASK = new BitSet();
+
+  private static final char LIKE_ESCAPE = '\\';
+
   @Autowired
   private AclMetaData aclMetaData;
 
+  @PersistenceContext
+  private EntityManager em;
+
   /**
    * Maximum depth of parent-permission checks. It prevents infinite loops and also limits the complexity of the queries
    */
@@ -79,28 +109,120 @@ public class AclUserPermissionSpecification implements AclSpecification {
   @Value("${spring.data.jpa.acl.max-search-words:3}")
   private int maxWords = 3;
 
+  /**
+   * Strategy of building the permission predicates. See {@link AclPredicateStrategy}
+   */
+  @Value("${spring.data.jpa.acl.predicate-strategy:JOIN}")
+  private AclPredicateStrategy predicateStrategy = AclPredicateStrategy.JOIN;
+
+  /**
+   * The materialized permission-index. It's available only if {@code spring.data.jpa.acl.permission-index.enabled} is
+   * set.
+   */
+  @Autowired(required = false)
+  private AclPermissionIndex permissionIndex;
+
+  /**
+   * The closure table of the {@link AclParent#closure()} hierarchies. It's available only if
+   * {@code spring.data.jpa.acl.parent-closure.enabled} is set.
+   */
+  @Autowired(required = false)
+  private AclClosureTable closureTable;
+
+  @Autowired(required = false)
+  private AclMetrics aclMetrics = AclMetrics.NOOP;
+
+  /**
+   * The external full-text search backend of the {@link AclSearchable} properties (if any)
+   */
+  @Autowired(required = false)
+  private SearchBackend searchBackend;
+
+  /**
+   * Match the search words as prefixes of the shadow properties (with a {@code LIKE 'word%'} predicate what can use the
+   * index of the shadow column) instead of anywhere in them
+   */
+  @Value("${spring.data.jpa.acl.search.shadow-columns.prefix-match:false}")
+  private boolean shadowPrefixMatch;
+
+  /**
+   * Maximum number of the permitted candidate ids what the search backend returns for a search
+   */
+  @Value("${spring.data.jpa.acl.search.max-candidates:1000}")
+  private int maxSearchCandidates = 1000;
+
+  /**
+   * Maximum number of the candidate ids checked by a single permission query of the backend search
+   */
+  @Value("${spring.data.jpa.acl.max-in-list-size:1000}")
+  private int maxInListSize = 1000;
+
+  /**
+   * The database-native full-text search. It's available only if {@code spring.data.jpa.acl.search.full-text.enabled}
+   * is set.
+   */
+  @Autowired(required = false)
+  private FullTextSearch fullTextSearch;
+
+  @Override
+  public AclMetrics getMetrics() {
+    return aclMetrics;
+  }
+
   @Override
-  public void applySearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder cb, From<?, ?> from, Search search) {
+  public void applySearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder cb, From<?, ?> from, Search search,
+      String permission) {
 
-    final List<String> properties = aclMetaData.getAclEntityMetaData(from.getJavaType()).getSearchableAttributes();
+    final AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
+    final List<String> properties = metaData.getSearchableAttributes();
     if (properties.isEmpty()) {
       return;
     }
 
+    if (searchBackend != null && searchBackend.supports(from.getJavaType())) {
+      applyBackendSearch(criteriaQuery, cb, from, search, permission);
+      return;
+    }
+
+    if (fullTextSearch != null && fullTextSearch.isSupported()) {
+      applyFullTextSearch(criteriaQuery, cb, from, properties, search);
+      return;
+    }
+
     float patternNum = 1f;
     Expression<Number> order = null;
+    // The explicit match predicates are used only if any shadow property is matched by prefix
+    final List<Predicate> matches = new ArrayList<>();
+    boolean prefixMatch = false;
 
     for (final String pattern : search.getPatterns()) {
 
       final Float weight = pattern.length() / patternNum;
       Expression<Number> patternOrder = null;
+      final List<Predicate> patternMatches = new ArrayList<>();
 
       for (final String p : properties) {
-        final Expression<Number> value = cb
-            .coalesce(cb.quot(weight, cb.nullif(cb.locate(cb.lower(from.get(p)), pattern, 1), 0)), 0f);
+        // The shadow property already contains the normalized value, so it's compared with the normalized pattern
+        final String shadow = metaData.getSearchShadowAttributes().get(p);
+        final Expression<String> text = shadow == null ? cb.lower(from.get(p)) : from.get(shadow);
+        final String textPattern = shadow == null ? pattern : SearchShadowColumns.normalize(pattern);
+        final Expression<Integer> position = cb.locate(text, textPattern, 1);
+        if (shadow != null && shadowPrefixMatch) {
+          prefixMatch = true;
+          // A prefix match is always at the first position, so its order value is the weight itself
+          final Predicate like = cb.like(text, escapeLike(textPattern) + "%", LIKE_ESCAPE);
+          patternMatches.add(like);
+          final Expression<Number> value = cb.<Number> selectCase().when(like, weight).otherwise(0f);
+          patternOrder = patternOrder == null ? value : cb.sum(patternOrder, value);
+          continue;
+        }
+        patternMatches.add(cb.gt(position, 0));
+        // The position is cast to float, otherwise the bound weight would be typed as an integer
+        final Expression<Number> value = cb.coalesce(cb.quot(weight, cb.nullif(position, 0).as(Float.class)), 0f);
         patternOrder = patternOrder == null ? value : cb.sum(patternOrder, value);
       }
 
+      matches.add(cb.or(patternMatches.toArray(new Predicate[0])));
       // If a pattern cannot be found at all then invalidate the whole order by setting the current order to null
       patternOrder = cb.nullif(patternOrder, 0f);
       // Sum the order value of all patterns
@@ -115,15 +237,113 @@ public class AclUserPermissionSpecification implements AclSpecification {
       return;
     }
 
-    // add the search predicate to the query
-    Predicate predicate = cb.gt(order, 0f);
+    // Every pattern must match any of the properties. The order is evaluated only on the matching rows then.
+    applySearchOrder(criteriaQuery, cb, from,
+        prefixMatch ? cb.and(matches.toArray(new Predicate[0])) : cb.gt(order, 0f), order);
+  }
+
+  /**
+   * Escapes the wildcards of the LIKE pattern with the {@link #LIKE_ESCAPE} character.
+   */
+  private static String escapeLike(String pattern) {
+    return pattern.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /**
+   * Restricts the query to the candidate ids of the search backend what the current user has the given permission to and
+   * orders the result by their scores.
+   */
+  private void applyBackendSearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder cb, From<?, ?> from,
+      Search search, String permission) {
+    List<String> patterns = getSearchPatterns(search);
+    if (patterns.isEmpty()) {
+      return;
+    }
+
+    // The candidates are filtered by the permissions of the current user, so the candidates of other users don't
+    // truncate the result
+    Map<Object, Float> candidates = searchBackend.search(from.getJavaType(), patterns, maxSearchCandidates,
+        ids -> getPermittedIds(from.getJavaType(), ids, permission));
+    if (candidates.isEmpty()) {
+      Predicate original = criteriaQuery.getRestriction();
+      criteriaQuery.where(original == null ? cb.disjunction() : cb.and(original, cb.disjunction()));
+      return;
+    }
+
+    // The candidates are already in score order, so their position is used as the order. The ids are split into chunks
+    // of maxInListSize: the outer CASE selects the chunk of the id by its IN-list, the inner one selects the position
+    // of the id in the chunk. (The ids are compared as values, so it works for any type of id.)
+    @SuppressWarnings("unchecked")
+    Path<Object> id = (Path<Object>) from.get(aclMetaData.getAclEntityMetaData(from.getJavaType()).getIdAttribute());
+    List<Object> rankedIds = new ArrayList<>(candidates.keySet());
+    List<Predicate> chunkPredicates = new ArrayList<>();
+    CriteriaBuilder.Case<Number> rank = cb.selectCase();
+    for (int i = 0; i < rankedIds.size(); i += maxInListSize) {
+      List<Object> chunk = rankedIds.subList(i, Math.min(i + maxInListSize, rankedIds.size()));
+      Predicate inChunk = id.in(chunk);
+      chunkPredicates.add(inChunk);
+      CriteriaBuilder.SimpleCase<Object, Number> chunkRank = cb.selectCase(id);
+      for (int j = 0; j < chunk.size(); j++) {
+        chunkRank.when(chunk.get(j), rankedIds.size() - i - j);
+      }
+      rank.when(inChunk, chunkRank.otherwise(0));
+    }
+    applySearchOrder(criteriaQuery, cb, from, cb.or(chunkPredicates.toArray(new Predicate[0])),
+        rank.otherwise(0));
+  }
+
+  /**
+   * Returns the ids from the given ones what the current user has the given permission to. The ids are checked in chunks
+   * of {@link #maxInListSize}.
+   */
+  @SuppressWarnings("unchecked")
+  private Collection<Object> getPermittedIds(Class<?> javaType, Collection<Object> ids, String permission) {
+    List<Object> idList = new ArrayList<>(ids);
+    Collection<Object> permitted = new HashSet<>();
+    SingularAttribute<Object, ?> idAttribute = aclMetaData.getAclEntityMetaData(javaType).getIdAttribute();
+    for (int i = 0; i < idList.size(); i += maxInListSize) {
+      CriteriaBuilder cb = em.getCriteriaBuilder();
+      CriteriaQuery<Object> query = cb.createQuery();
+      Root<Object> root = query.from((Class<Object>) javaType);
+      query.select(root.get(idAttribute));
+      query.where(root.get(idAttribute).in(idList.subList(i, Math.min(i + maxInListSize, idList.size()))),
+          toPredicate(root, query, cb, permission));
+      permitted.addAll(em.createQuery(query).getResultList());
+    }
+    return permitted;
+  }
+
+  /**
+   * Restricts the query with the full-text engine of the database and orders the result by its relevance.
+   */
+  private void applyFullTextSearch(CriteriaQuery<?> criteriaQuery, CriteriaBuilder cb, From<?, ?> from,
+      List<String> properties, Search search) {
+    String query = fullTextSearch.createQuery(getSearchPatterns(search));
+    if (query.isEmpty()) {
+      return;
+    }
+    applySearchOrder(criteriaQuery, cb, from, fullTextSearch.createPredicate(cb, from, properties, query),
+        fullTextSearch.createScore(cb, from, properties, query));
+  }
+
+  private List<String> getSearchPatterns(Search search) {
+    List<String> patterns = search.getPatterns();
+    return patterns.size() > maxWords ? patterns.subList(0, maxWords) : patterns;
+  }
+
+  /**
+   * Adds the search predicate to the query and orders the result by the relevance.
+   */
+  private void applySearchOrder(CriteriaQuery<?> criteriaQuery, CriteriaBuilder cb, From<?, ?> from,
+      Predicate predicate, Expression<Number> order) {
     Predicate original = criteriaQuery.getRestriction();
 
     criteriaQuery.where(original == null ? predicate : cb.and(original, predicate));
 
     if (criteriaQuery.isDistinct()) {
       criteriaQuery.distinct(false);
-      criteriaQuery.groupBy((Expression<?>) criteriaQuery.getSelection());
+      // The selection of the count queries is not set yet
+      criteriaQuery.groupBy(criteriaQuery.getSelection() == null ? from : (Expression<?>) criteriaQuery.getSelection());
       order = cb.max(order);
     }
 
@@ -149,16 +369,30 @@ public class AclUserPermissionSpecification implements AclSpecification {
     if (selection != null && selection instanceof From) {
       from = (From<Object, Object>) selection;
     }
+    return toPredicate(from, query, cb, permission);
+  }
+
+  @Override
+  public Predicate toSubqueryPredicate(Root<?> root, Subquery<?> subquery, CriteriaBuilder cb, String permission) {
+    return toPredicate(root, subquery, cb, permission);
+  }
+
+  private Predicate toPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb, String permission) {
+
+    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
+    BitSet authorityMask = getAuthorityMask();
 
     // Rules from @AclRolePermission annotations
-    if (hasRolePermission(from, permission)) {
+    if (hasRolePermission(metaData, authorityMask, permission)) {
       LOG.trace("Access granted via @AclRolePermission: {}", AclUserDetailsService.getUsername());
+      aclMetrics.recordPredicate(from.getJavaType(), permission, AclDecisionPath.ROLE_GRANTED, 0, 0);
       return cb.conjunction();
     }
 
     // Rules from @AclRoleCondition annotations
-    if (!hasRoleCondition(from, permission)) {
+    if (!hasRoleCondition(metaData, authorityMask, permission)) {
       LOG.trace("Access denied via @AclRoleCondition: {}", AclUserDetailsService.getUsername());
+      aclMetrics.recordPredicate(from.getJavaType(), permission, AclDecisionPath.ROLE_DENIED, 0, 0);
       return cb.disjunction();
     }
 
@@ -166,28 +400,51 @@ public class AclUserPermissionSpecification implements AclSpecification {
     AclUserDetails aclUserDetails = AclUserDetailsService.getAclUserDetails();
     if (aclUserDetails == null) {
       LOG.trace("Access denied for non-Acl user");
+      aclMetrics.recordPredicate(from.getJavaType(), permission, AclDecisionPath.ROLE_DENIED, 0, 0);
       return cb.disjunction();
     }
 
+    if (permissionIndex != null && permissionIndex.isIndexed(from.getJavaType(), permission)) {
+      LOG.trace("Using permission-index for {}", from.getJavaType());
+      aclMetrics.recordPredicate(from.getJavaType(), permission, AclDecisionPath.INDEX, 0, 1);
+      return permissionIndex.createIndexPredicate(from, query, cb, aclUserDetails.getUserId(), permission);
+    }
+
     LOG.trace("Creating predicates for {}", from.getJavaType());
 
-    query.distinct(true);
-    return toSubPredicate(from, cb, aclUserDetails.getUserId(), permission, maxDepth);
+    if (predicateStrategy == AclPredicateStrategy.JOIN && query instanceof CriteriaQuery) {
+      ((CriteriaQuery<?>) query).distinct(true);
+    }
+    PermissionPlan plan = aclMetaData.getPermissionPlan(from.getJavaType(), permission, maxDepth);
+    aclMetrics.recordPredicate(from.getJavaType(), permission, AclDecisionPath.PREDICATE, plan.getJoinCount(),
+        plan.getBranchCount());
+    return toSubPredicate(from, query, cb, cb.literal(aclUserDetails.getUserId()), plan);
+  }
+
+  @Override
+  public Predicate toUserPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Expression<?> userId, String permission) {
+    return toSubPredicate(from, query, cb, userId, permission, maxDepth);
   }
 
-  private Predicate toSubPredicate(From<?, ?> from, CriteriaBuilder cb, Object userId, String permission, int depth) {
+  private Predicate toSubPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Expression<?> userId, String permission, int depth) {
     LOG.trace("Checking {} for '{}' permission", from.getJavaType(), permission);
+    return toSubPredicate(from, query, cb, userId, aclMetaData.getPermissionPlan(from.getJavaType(), permission, depth));
+  }
 
+  private Predicate toSubPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Expression<?> userId, PermissionPlan plan) {
     List<Predicate> predicates = new ArrayList<>();
 
-    predicates.addAll(createSelfPredicates(from, cb, userId, permission));
-    predicates.addAll(createOwnerPredicates(from, cb, userId, permission, false));
-    predicates.addAll(createOwnerGroupPredicates(from, cb, userId, permission));
-    predicates.addAll(createPermissionLinkPredicates(from, cb, userId, permission));
-    // Adding predicates recursively for parent entities
-    if (depth > 0) {
-      predicates.addAll(createParentPredicates(from, cb, userId, permission, depth));
+    if (plan.isSelf()) {
+      predicates.add(cb.equal(from.get(plan.getIdAttribute()), userId));
     }
+    predicates.addAll(createOwnerPredicates(from, query, cb, userId, plan.getOwners()));
+    predicates.addAll(createOwnerGroupPredicates(from, query, cb, userId, plan.getOwnerGroups()));
+    predicates.addAll(createPermissionLinkPredicates(from, query, cb, userId, plan.getPermissionLinks()));
+    // Adding predicates recursively for parent entities
+    predicates.addAll(createParentPredicates(from, query, cb, userId, plan.getParents()));
 
     if (predicates.isEmpty()) {
       LOG.trace("No permissions found");
@@ -196,27 +453,69 @@ public class AclUserPermissionSpecification implements AclSpecification {
   }
 
   /**
-   * Checks if the current user has any role which grants automatic permission for this domain type.
+   * Creates a permission-check what needs joining other entities to the given from. Using {@link AclPredicateStrategy#JOIN}
+   * the check is built directly on the given from. Using {@link AclPredicateStrategy#EXISTS} the check is built inside an
+   * EXISTS sub-query what is correlated to the given from by its id.
    *
-   * @param from
-   * @param permission
-   * @return
+   * @param check
+   *          creates the actual predicate on the from and the (sub)query it gets
+   */
+  private Predicate createJoinedPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      BiFunction<From<?, ?>, CommonAbstractCriteria, Predicate> check) {
+    if (predicateStrategy == AclPredicateStrategy.JOIN) {
+      return check.apply(from, query);
+    }
+    SingularAttribute<? super Object, ?> idAttribute = aclMetaData.getAclEntityMetaData(from.getJavaType())
+        .getIdAttribute();
+    Subquery<Integer> subquery = query.subquery(Integer.class);
+    Root<?> subRoot = subquery.from(from.getJavaType());
+    subquery.select(cb.literal(1));
+    subquery.where(cb.equal(subRoot.get(idAttribute), from.get(idAttribute)), check.apply(subRoot, subquery));
+    return cb.exists(subquery);
+  }
+
+  /**
+   * The type of the joins in the permission-checks. Inside EXISTS sub-queries we can use inner joins.
    */
-  private boolean hasRolePermission(From<?, ?> from, String permission) {
-    return hasRolePermission(aclMetaData.getAclEntityMetaData(from.getJavaType()), permission);
+  private JoinType getJoinType() {
+    return predicateStrategy == AclPredicateStrategy.JOIN ? JoinType.LEFT : JoinType.INNER;
+  }
+
+  /**
+   * Creates the authority-mask of the current authentication. The mask is cached on the {@link AclUserDetails}
+   * principal as long as the authorities of the authentication are the same.
+   */
+  private BitSet getAuthorityMask() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return EMPTY_MASK;
+    }
+    AuthorityRegistry registry = aclMetaData.getAuthorityRegistry();
+    Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+    Object principal = authentication.getPrincipal();
+    if (!(principal instanceof AclUserDetails)) {
+      return registry.getMask(authorities);
+    }
+    AclUserDetails aclUserDetails = (AclUserDetails) principal;
+    AuthorityMask authorityMask = aclUserDetails.getAuthorityMask();
+    if (authorityMask == null || !authorityMask.isValidFor(registry, authorities)) {
+      authorityMask = new AuthorityMask(registry, authorities, registry.getMask(authorities));
+      aclUserDetails.setAuthorityMask(authorityMask);
+    }
+    return authorityMask.getMask();
   }
 
   /**
    * Checks if the current user has any role which grants automatic permission for this domain type.
-   * 
-   * @param javaType
+   *
+   * @param metaData
+   * @param authorityMask
    * @param permission
    * @return
    */
-  private boolean hasRolePermission(AclEntityMetaData metaData, String permission) {
+  private boolean hasRolePermission(AclEntityMetaData metaData, BitSet authorityMask, String permission) {
     for (RolePermissionData rolePermissionData : metaData.getRolePermissionList()) {
-      if (AclUserDetailsService.hasAnyAuthorities(rolePermissionData.getAuthorities())
-          && rolePermissionData.hasPermission(permission)) {
+      if (rolePermissionData.matches(authorityMask) && rolePermissionData.hasPermission(permission)) {
         return true;
       }
     }
@@ -226,25 +525,14 @@ public class AclUserPermissionSpecification implements AclSpecification {
   /**
    * Checks role preconditions for the current user.
    *
-   * @param from
+   * @param metaData
+   * @param authorityMask
    * @param permission
    * @return
    */
-  private boolean hasRoleCondition(From<?, ?> from, String permission) {
-    return hasRoleCondition(aclMetaData.getAclEntityMetaData(from.getJavaType()), permission);
-  }
-
-  /**
-   * Checks role preconditions for the current user.
-   * 
-   * @param javaType
-   * @param permission
-   * @return
-   */
-  private boolean hasRoleCondition(AclEntityMetaData metaData, String permission) {
+  private boolean hasRoleCondition(AclEntityMetaData metaData, BitSet authorityMask, String permission) {
     for (RolePermissionData roleConditionData : metaData.getRoleConditionList()) {
-      if (AclUserDetailsService.hasAnyAuthorities(roleConditionData.getAuthorities())
-          && roleConditionData.hasPermission(permission)) {
+      if (roleConditionData.matches(authorityMask) && roleConditionData.hasPermission(permission)) {
         return true;
       }
     }
@@ -258,156 +546,119 @@ public class AclUserPermissionSpecification implements AclSpecification {
       // Not handled entity type
       return true;
     }
+    BitSet authorityMask = getAuthorityMask();
     for (CreatePermissionData createPermissionData : metaData.getCreatePermissionList()) {
-      if (AclUserDetailsService.hasAnyAuthorities(createPermissionData.getAuthorities())) {
+      if (createPermissionData.matches(authorityMask)) {
         return true;
       }
     }
-    return hasRolePermission(metaData, CREATE_PERMISSION);
-  }
-
-  /**
-   * Creates a predicate for current user to its own entity
-   *
-   */
-  private List<Predicate> createSelfPredicates(From<?, ?> from, CriteriaBuilder cb, Object userId, String permission) {
-    List<Predicate> predicates = new ArrayList<>();
-    if (AclUser.class.isAssignableFrom(from.getJavaType())) {
-      if (aclMetaData.getSelfPermissions().hasPermission(permission)) {
-        LOG.trace("Adding 'self' predicate for {}", from.getJavaType());
-        SingularAttribute<? super Object, ?> idAttribute = aclMetaData.getAclEntityMetaData(from.getJavaType())
-            .getIdAttribute();
-        predicates.add(cb.equal(from.get(idAttribute), userId));
-      }
-    }
-    return predicates;
+    return hasRolePermission(metaData, authorityMask, CREATE_PERMISSION);
   }
 
   /**
    * Creates predicates for direct owners defined by {@link AclOwner} annotation
-   *
-   * @param permission
    */
-  private List<Predicate> createOwnerPredicates(From<?, ?> from, CriteriaBuilder cb, Object userId, String permission,
-      boolean ownerGroup) {
+  private List<Predicate> createOwnerPredicates(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Expression<?> userId, List<OwnerStep> owners) {
     List<Predicate> predicates = new ArrayList<>();
-    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
-    for (OwnerData ownerData : metaData.getOwnerDataList()) {
-      if (ownerGroup || ownerData.hasPermission(permission)) {
-        LOG.trace("Adding 'owner' predicate for {}.{}", from.getJavaType(), ownerData.getPropertyName());
-        SingularAttribute<? super Object, ?> idAttribute = aclMetaData.getAclEntityMetaData(ownerData.getPropertyType())
-            .getIdAttribute();
-        if (ownerData.isCollection()) {
-          predicates.add(cb.equal(from.join(ownerData.getPropertyName(), JoinType.LEFT).get(idAttribute), userId));
-        } else {
-          predicates.add(cb.equal(from.get(ownerData.getPropertyName()).get(idAttribute), userId));
-        }
+    for (OwnerStep owner : owners) {
+      if (owner.isCollection()) {
+        predicates.add(createJoinedPredicate(from, query, cb,
+            (f, q) -> cb.equal(f.join(owner.getPropertyName(), getJoinType()).get(owner.getUserIdAttribute()), userId)));
+      } else {
+        predicates.add(cb.equal(from.get(owner.getPropertyName()).get(owner.getUserIdAttribute()), userId));
       }
     }
     return predicates;
   }
 
-  // TODO refactor OwnerGroup Predicates to use prefixes. Or use ParentPredicates instead
   /**
    * Creates predicates for indirect owners defined by {@link AclOwner} annotation on NON-AclUser fields
-   *
-   * @param permission
    */
-  private List<Predicate> createOwnerGroupPredicates(From<?, ?> from, CriteriaBuilder cb, Object userId,
-      String permission) {
+  private List<Predicate> createOwnerGroupPredicates(From<?, ?> from, CommonAbstractCriteria query,
+      CriteriaBuilder cb, Expression<?> userId, List<OwnerGroupStep> ownerGroups) {
     List<Predicate> predicates = new ArrayList<>();
-    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
-    for (OwnerData ownerGroupData : metaData.getOwnerGroupDataList()) {
-      if (ownerGroupData.hasPermission(permission)) {
-        LOG.trace("Adding 'owner-group' predicate for {}.{}", from.getJavaType(), ownerGroupData.getPropertyName());
-        predicates.addAll(createOwnerPredicates(from.join(ownerGroupData.getPropertyName(), JoinType.LEFT), cb, userId,
-            permission, true));
-      }
+    for (OwnerGroupStep ownerGroup : ownerGroups) {
+      predicates.add(createJoinedPredicate(from, query, cb, (f, q) -> {
+        List<Predicate> ownerPredicates = createOwnerPredicates(
+            f.join(ownerGroup.getPropertyName(), getJoinType()), q, cb, userId, ownerGroup.getOwners());
+        return cb.or(ownerPredicates.toArray(new Predicate[ownerPredicates.size()]));
+      }));
     }
     return predicates;
   }
 
   /**
    * Creates predicates for parent objects defined by {@link AclParent} annotation
-   *
-   * @param permission
-   *
    */
-  private List<Predicate> createParentPredicates(From<?, ?> from, CriteriaBuilder cb, Object userId, String permission,
-      int depth) {
+  private List<Predicate> createParentPredicates(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Expression<?> userId, List<ParentStep> parents) {
     List<Predicate> predicates = new ArrayList<>();
-    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
-    for (ParentData parentData : metaData.getParentDataList()) {
-      if (parentData.hasPermission(permission)) {
-        LOG.trace("Adding 'parent' sub-predicates for {}.{}", from.getJavaType(), parentData.getPropertyName());
-        String permissionPrefix = parentData.getPermissionPrefix();
-        String parentPermission = permissionPrefix.isEmpty() ? permission
-            : permissionPrefix + PERMISSION_PREFIX_DELIMITER + permission;
-        // create predicates recursively on parent objects using prefixed permission
-        predicates.add(toSubPredicate(from.join(parentData.getPropertyName(), JoinType.LEFT), cb, userId,
-            parentPermission, depth - 1));
+    for (ParentStep parent : parents) {
+      if (parent.isClosure() && closureTable != null) {
+        // check all the ancestors in a single sub-query on the closure table
+        predicates.add(closureTable.createClosurePredicate(from, query, cb, parent.getPlan().getJavaType(),
+            (f, q) -> toSubPredicate(f, q, cb, userId, parent.getPlan())));
+        continue;
       }
+      // create predicates recursively on parent objects using the plan of the prefixed permission
+      predicates.add(createJoinedPredicate(from, query, cb, (f, q) -> toSubPredicate(
+          f.join(parent.getPropertyName(), getJoinType()), q, cb, userId, parent.getPlan())));
     }
     return predicates;
   }
 
   /**
    * Creates predicates for permissionLinks
-   *
    */
-  private List<Predicate> createPermissionLinkPredicates(From<?, ?> from, CriteriaBuilder cb, Object userId,
-      String permission) {
+  private List<Predicate> createPermissionLinkPredicates(From<?, ?> from, CommonAbstractCriteria query,
+      CriteriaBuilder cb, Expression<?> userId, List<PermissionLinkStep> permissionLinks) {
     List<Predicate> predicates = new ArrayList<>();
-
-    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(from.getJavaType());
-    for (PermissionLinkData permissionLinkData : metaData.getPermissionLinkList()) {
-      LOG.trace("Adding 'permission-link' predicate for {}.{}", from.getJavaType(),
-          permissionLinkData.getPropertyName());
-      Join<Object, Object> permissionLink = from.join(permissionLinkData.getPropertyName(), JoinType.LEFT);
-      permissionLink
-          .on(createOnPredicate(cb, permissionLink.<String> get(permissionLinkData.getPermissionField()), permission));
-      predicates.addAll(createOwnerPredicates(permissionLink, cb, userId, permission, false));
-      predicates.addAll(createOwnerGroupPredicates(permissionLink, cb, userId, permission));
+    for (PermissionLinkStep permissionLinkStep : permissionLinks) {
+      predicates.add(createJoinedPredicate(from, query, cb, (f, q) -> {
+        Join<Object, Object> permissionLink = f.join(permissionLinkStep.getPropertyName(), getJoinType());
+        if (permissionLinkStep.isBitmask()) {
+          permissionLink.on(createBitmaskOnPredicate(cb,
+              permissionLink.<Long> get(permissionLinkStep.getPermissionField()), permissionLinkStep.getPermissionMask()));
+        } else {
+          permissionLink.on(createOnPredicate(cb, permissionLink.<String> get(permissionLinkStep.getPermissionField()),
+              permissionLinkStep.getPermissionChecks()));
+        }
+        List<Predicate> linkPredicates = new ArrayList<>();
+        linkPredicates.addAll(createOwnerPredicates(permissionLink, q, cb, userId, permissionLinkStep.getOwners()));
+        linkPredicates
+            .addAll(createOwnerGroupPredicates(permissionLink, q, cb, userId, permissionLinkStep.getOwnerGroups()));
+        return cb.or(linkPredicates.toArray(new Predicate[linkPredicates.size()]));
+      }));
     }
-
     return predicates;
   }
 
-  private Predicate createOnPredicate(CriteriaBuilder cb, Expression<String> field, String permission) {
-    int index = permission.lastIndexOf(PERMISSION_PREFIX_DELIMITER) + 1;
-
-    List<Predicate> onPredicates = createOnPredicate(cb, field, permission.substring(index),
-        permission.substring(0, index));
-    return cb.or(onPredicates.toArray(new Predicate[onPredicates.size()]));
+  private Predicate createBitmaskOnPredicate(CriteriaBuilder cb, Expression<Long> field, long mask) {
+    if (mask == 0) {
+      return cb.disjunction();
+    }
+    return cb.notEqual(cb.function(BitAndFunction.NAME, Long.class, field, cb.literal(mask)), 0L);
   }
 
-  private List<Predicate> createOnPredicate(CriteriaBuilder cb, Expression<String> field, String permission,
-      String prefixes) {
+  private Predicate createOnPredicate(CriteriaBuilder cb, Expression<String> field, List<PermissionCheck> checks) {
     List<Predicate> onPredicates = new ArrayList<>();
-    if (prefixes.isEmpty()) {
-      // Create top level permission-checks
-      if (permission.equals(READ_PERMISSION)) {
-        onPredicates.add(cb.notLike(field, prefixes + "%" + PERMISSION_PREFIX_DELIMITER + "%"));
-      } else {
-        onPredicates.add(cb.equal(field, ALL_PERMISSION));
-        onPredicates.add(cb.equal(field, permission));
-      }
-    } else {
-      // Create child-level permission-checks
-      if (permission.equals(READ_PERMISSION)) {
-        onPredicates.add(cb.like(field, prefixes + "%"));
-      } else {
-        onPredicates.add(cb.equal(field, prefixes + ALL_PERMISSION));
-        onPredicates.add(cb.equal(field, prefixes + permission));
+    for (PermissionCheck check : checks) {
+      switch (check.getType()) {
+      case LIKE:
+        onPredicates.add(cb.like(field, check.getValue()));
+        break;
+      case NOT_LIKE:
+        onPredicates.add(cb.notLike(field, check.getValue()));
+        break;
+      case IN:
+        onPredicates.add(field.in(check.getValues()));
+        break;
+      default:
+        onPredicates.add(cb.equal(field, check.getValue()));
       }
-
-      // create permission-checks recursively for upper child-levels
-      int index = prefixes.lastIndexOf(PERMISSION_PREFIX_DELIMITER, prefixes.length() - 2) + 1;
-      onPredicates.addAll(createOnPredicate(cb, field, permission, prefixes.substring(0, index)));
-
     }
-
-    return onPredicates;
+    return cb.or(onPredicates.toArray(new Predicate[onPredicates.size()]));
   }
 
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl;
+
+import java.util.List;
+
+import org.hibernate.QueryException;
+import org.hibernate.dialect.DB2Dialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
+
+/**
+ * <p>
+ * The {@code acl_bitand} query function: the bitwise AND of its two integer arguments.
+ * </p>
+ * JPQL has no bitwise operators, so it's rendered as the {@code bitand} function or the {@code &} operator depending on
+ * the database. It's used for checking the masks of the {@link com.berrycloud.acl.domain.BitmaskPermissionLink}s.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class BitAndFunction implements SQLFunction {
+
+  public static final String NAME = "acl_bitand";
+
+  @Override
+  public boolean hasArguments() {
+    return true;
+  }
+
+  @Override
+  public boolean hasParenthesesIfNoArguments() {
+    return true;
+  }
+
+  @Override
+  public Type getReturnType(Type firstArgumentType, Mapping mapping) {
+    return LongType.INSTANCE;
+  }
+
+  @Override
+  public String render(Type firstArgumentType, @SuppressWarnings("rawtypes") List arguments,
+      SessionFactoryImplementor factory) {
+    if (arguments.size() != 2) {
+      throw new QueryException(NAME + " function needs exactly two arguments");
+    }
+    Dialect dialect = factory.getJdbcServices().getDialect();
+    if (dialect instanceof H2Dialect || dialect instanceof HSQLDialect || dialect instanceof Oracle8iDialect
+        || dialect instanceof DB2Dialect) {
+      return "bitand(" + arguments.get(0) + ", " + arguments.get(1) + ")";
+    }
+    return "(" + arguments.get(0) + " & " + arguments.get(1) + ")";
+  }
+}
@@ -182,4 +182,17 @@ public @interface AclParent {
      * additional prefix.
      */
     String prefix() default "";
+
+    /**
+     * Resolve the permissions of all the ancestors via a closure table instead of joining the parents level by level.
+     * It can be used on a single-valued self-referencing parent property (e.g. the parent of a folder) with an empty
+     * {@link #prefix}, if {@code spring.data.jpa.acl.parent-closure.enabled} is set. The ancestor/descendant pairs of
+     * the hierarchy are maintained in the {@code acl_parent_closure} table, so the permissions granted directly (via
+     * self, owner, owner-group or permission-link rules) to any ancestor are inherited regardless of
+     * {@code spring.data.jpa.acl.max-depth}.
+     * <p>
+     * The other {@link AclParent} properties of the ancestors are not followed. If the closure table is not available
+     * the property is handled as a normal parent.
+     */
+    boolean closure() default false;
 }
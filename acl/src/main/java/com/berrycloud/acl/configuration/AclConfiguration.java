@@ -18,9 +18,11 @@ package com.berrycloud.acl.configuration;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -33,7 +35,13 @@ import com.berrycloud.acl.AclSpecification;
 import com.berrycloud.acl.AclUserPermissionSpecification;
 import com.berrycloud.acl.configuration.rest.AclRepositoryRestConfiguration;
 import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.index.AclClosureTable;
+import com.berrycloud.acl.index.AclPermissionIndex;
+import com.berrycloud.acl.search.FullTextSearch;
+import com.berrycloud.acl.search.SearchShadowColumns;
+import com.berrycloud.acl.security.AclUserDetailsCache;
 import com.berrycloud.acl.security.SimpleAclUserDetailsService;
+import com.berrycloud.acl.security.access.AclPermissionDecisionCache;
 import com.berrycloud.acl.security.access.AclPermissionEvaluator;
 
 /**
@@ -44,18 +52,72 @@ import com.berrycloud.acl.security.access.AclPermissionEvaluator;
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
-@Import(AclRepositoryRestConfiguration.class)
+@Import({ AclRepositoryRestConfiguration.class, AclMetricsImportSelector.class,
+    AclSearchBackendImportSelector.class })
 public class AclConfiguration {
 
+  public static final String PERMISSION_INDEX_ENABLED_PROPERTY = "spring.data.jpa.acl.permission-index.enabled";
+
+  public static final String USER_CACHE_ENABLED_PROPERTY = "spring.data.jpa.acl.user-cache.enabled";
+
+  public static final String DECISION_CACHE_ENABLED_PROPERTY = "spring.data.jpa.acl.decision-cache.enabled";
+
+  public static final String LUCENE_SEARCH_ENABLED_PROPERTY = "spring.data.jpa.acl.search.lucene.enabled";
+
+  public static final String SEARCH_SHADOW_COLUMNS_ENABLED_PROPERTY =
+      "spring.data.jpa.acl.search.shadow-columns.enabled";
+
+  public static final String PARENT_CLOSURE_ENABLED_PROPERTY = "spring.data.jpa.acl.parent-closure.enabled";
+
+  public static final String FULL_TEXT_SEARCH_ENABLED_PROPERTY = "spring.data.jpa.acl.search.full-text.enabled";
+
+  public static final String BIND_PARAMETERS_PROPERTY = "spring.data.jpa.acl.bind-parameters";
+
+  private static final String HIBERNATE_LITERAL_HANDLING_MODE = "hibernate.criteria.literal_handling_mode";
+
+  private static final String HIBERNATE_IN_CLAUSE_PARAMETER_PADDING = "hibernate.query.in_clause_parameter_padding";
+
+  public static final String JDBC_BATCH_SIZE_PROPERTY = "spring.data.jpa.acl.jdbc-batch-size";
+
+  private static final String HIBERNATE_JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
+
+  private static final String HIBERNATE_ORDER_INSERTS = "hibernate.order_inserts";
+
+  private static final String HIBERNATE_ORDER_UPDATES = "hibernate.order_updates";
+
   @Bean
-  public BeanPostProcessor localContainerEntityManagerFactoryBeanPostProcessor() {
+  public static BeanPostProcessor localContainerEntityManagerFactoryBeanPostProcessor(Environment environment) {
+    final boolean permissionIndex = environment.getProperty(PERMISSION_INDEX_ENABLED_PROPERTY, Boolean.class, false);
+    final boolean parentClosure = environment.getProperty(PARENT_CLOSURE_ENABLED_PROPERTY, Boolean.class, false);
+    final boolean bindParameters = environment.getProperty(BIND_PARAMETERS_PROPERTY, Boolean.class, false);
+    final int jdbcBatchSize = environment.getProperty(JDBC_BATCH_SIZE_PROPERTY, Integer.class, 0);
+    final boolean fullTextSearch = environment.getProperty(FULL_TEXT_SEARCH_ENABLED_PROPERTY, Boolean.class, false);
     return new BeanPostProcessor() {
       @Override
 
       public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
         if (bean instanceof LocalContainerEntityManagerFactoryBean) {
-          ((LocalContainerEntityManagerFactoryBean) bean)
-              .setPersistenceUnitPostProcessors(new AclPersistenceUnitPostProcessor());
+          LocalContainerEntityManagerFactoryBean factoryBean = (LocalContainerEntityManagerFactoryBean) bean;
+          // It also registers the query functions of the bitmask permission-links and the database-native full-text
+          // search if they are used
+          factoryBean.setPersistenceUnitPostProcessors(new AclPersistenceUnitPostProcessor(permissionIndex,
+              parentClosure, fullTextSearch, factoryBean.getJpaPropertyMap()));
+          if (bindParameters) {
+            // Render the user-ids and permissions of the ACL predicates as bound parameters, so the generated JPQL
+            // depends only on the shape of the query and Hibernate's query plan cache can reuse the parsed queries.
+            // These are global settings of the persistence unit, so they are applied only on request and explicit
+            // settings of the application are not overridden.
+            factoryBean.getJpaPropertyMap().putIfAbsent(HIBERNATE_LITERAL_HANDLING_MODE, "bind");
+            factoryBean.getJpaPropertyMap().putIfAbsent(HIBERNATE_IN_CLAUSE_PARAMETER_PADDING, "true");
+          }
+          if (jdbcBatchSize > 0) {
+            // Send the inserts and updates of saveAll (and of any flush) in JDBC batches. The inserts of entities with
+            // IDENTITY ids cannot be batched. These are global settings of the persistence unit, so they are applied
+            // only on request and explicit settings of the application are not overridden.
+            factoryBean.getJpaPropertyMap().putIfAbsent(HIBERNATE_JDBC_BATCH_SIZE, String.valueOf(jdbcBatchSize));
+            factoryBean.getJpaPropertyMap().putIfAbsent(HIBERNATE_ORDER_INSERTS, "true");
+            factoryBean.getJpaPropertyMap().putIfAbsent(HIBERNATE_ORDER_UPDATES, "true");
+          }
         }
         return bean;
       }
@@ -68,6 +130,18 @@ public class AclConfiguration {
     return new SimpleAclUserDetailsService();
   }
 
+  @Bean
+  @ConditionalOnProperty(USER_CACHE_ENABLED_PROPERTY)
+  public AclUserDetailsCache aclUserDetailsCache() {
+    return new AclUserDetailsCache();
+  }
+
+  @Bean
+  @ConditionalOnProperty(DECISION_CACHE_ENABLED_PROPERTY)
+  public AclPermissionDecisionCache aclPermissionDecisionCache() {
+    return new AclPermissionDecisionCache();
+  }
+
   @Bean
   @ConditionalOnMissingBean(PermissionEvaluator.class)
   public AclPermissionEvaluator AclPermissionEvaluator() {
@@ -89,4 +163,28 @@ public class AclConfiguration {
     return new AclUserPermissionSpecification();
   }
 
+  @Bean
+  @ConditionalOnProperty(PERMISSION_INDEX_ENABLED_PROPERTY)
+  public AclPermissionIndex aclPermissionIndex() {
+    return new AclPermissionIndex();
+  }
+
+  @Bean
+  @ConditionalOnProperty(PARENT_CLOSURE_ENABLED_PROPERTY)
+  public AclClosureTable aclClosureTable() {
+    return new AclClosureTable();
+  }
+
+  @Bean
+  @ConditionalOnProperty(FULL_TEXT_SEARCH_ENABLED_PROPERTY)
+  public FullTextSearch fullTextSearch() {
+    return new FullTextSearch();
+  }
+
+  @Bean
+  @ConditionalOnProperty(SEARCH_SHADOW_COLUMNS_ENABLED_PROPERTY)
+  public SearchShadowColumns searchShadowColumns() {
+    return new SearchShadowColumns();
+  }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.configuration;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+
+import com.berrycloud.acl.BitAndFunction;
+import com.berrycloud.acl.search.FullTextSearchFunction;
+
+/**
+ * Registers the query functions of the ACL: the {@link BitAndFunction} and the {@link FullTextSearchFunction}s. It's
+ * set as {@code hibernate.metadata_builder_contributor} by the {@link com.berrycloud.acl.AclPersistenceUnitPostProcessor}
+ * if the bitmask permission-links or the database-native full-text search are used. A contributor of the application is
+ * chained: it's called first by this contributor.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class AclMetadataBuilderContributor implements MetadataBuilderContributor {
+
+  private final MetadataBuilderContributor delegate;
+
+  public AclMetadataBuilderContributor() {
+    this(null);
+  }
+
+  public AclMetadataBuilderContributor(MetadataBuilderContributor delegate) {
+    this.delegate = delegate;
+  }
+
+  public MetadataBuilderContributor getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void contribute(MetadataBuilder metadataBuilder) {
+    if (delegate != null) {
+      delegate.contribute(metadataBuilder);
+    }
+    metadataBuilder.applySqlFunction(BitAndFunction.NAME, new BitAndFunction());
+    metadataBuilder.applySqlFunction(FullTextSearchFunction.MATCH_FUNCTION, new FullTextSearchFunction(false));
+    metadataBuilder.applySqlFunction(FullTextSearchFunction.SCORE_FUNCTION, new FullTextSearchFunction(true));
+  }
+}
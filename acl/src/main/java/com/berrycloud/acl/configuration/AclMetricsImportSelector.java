@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.configuration;
+
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Imports the Micrometer based metrics configuration of the {@code acl-micrometer} module if both Micrometer and the
+ * module are on the classpath. Otherwise the ACL doesn't record any metrics.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclMetricsImportSelector implements ImportSelector {
+
+  public static final String MICROMETER_REGISTRY_CLASS = "io.micrometer.core.instrument.MeterRegistry";
+
+  public static final String MICROMETER_CONFIGURATION_CLASS = "com.berrycloud.acl.metrics.micrometer.MicrometerAclMetricsConfiguration";
+
+  @Override
+  public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+    ClassLoader classLoader = getClass().getClassLoader();
+    if (ClassUtils.isPresent(MICROMETER_REGISTRY_CLASS, classLoader)
+        && ClassUtils.isPresent(MICROMETER_CONFIGURATION_CLASS, classLoader)) {
+      return new String[] { MICROMETER_CONFIGURATION_CLASS };
+    }
+    return new String[0];
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.configuration;
+
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Imports the Lucene based search backend configuration of the {@code acl-lucene} module if both Lucene and the module
+ * are on the classpath. Otherwise the {@code @AclSearchable} properties are searched by the DB.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclSearchBackendImportSelector implements ImportSelector {
+
+  public static final String LUCENE_INDEX_WRITER_CLASS = "org.apache.lucene.index.IndexWriter";
+
+  public static final String LUCENE_CONFIGURATION_CLASS = "com.berrycloud.acl.search.lucene.LuceneSearchBackendConfiguration";
+
+  @Override
+  public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+    ClassLoader classLoader = getClass().getClassLoader();
+    if (ClassUtils.isPresent(LUCENE_INDEX_WRITER_CLASS, classLoader)
+        && ClassUtils.isPresent(LUCENE_CONFIGURATION_CLASS, classLoader)) {
+      return new String[] { LUCENE_CONFIGURATION_CLASS };
+    }
+    return new String[0];
+  }
+
+}
@@ -16,7 +16,9 @@
 package com.berrycloud.acl.data;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.metamodel.SingularAttribute;
 
@@ -30,6 +32,7 @@ public class AclEntityMetaData {
 
     private SingularAttribute<? super Object, ?> idAttribute;
     private List<String> searchableAttributes = new ArrayList<>();
+    private Map<String, String> searchShadowAttributes = new HashMap<>();
     private List<OwnerData> ownerDataList = new ArrayList<>();
     private List<OwnerData> ownerGroupDataList = new ArrayList<>();
     private List<ParentData> parentDataList = new ArrayList<>();
@@ -41,6 +44,13 @@ public class AclEntityMetaData {
     public List<String> getSearchableAttributes() {
         return searchableAttributes;
     }
+
+    /**
+     * Returns the shadow properties of the searchable properties (if any) mapped by the searchable property names.
+     */
+    public Map<String, String> getSearchShadowAttributes() {
+        return searchShadowAttributes;
+    }
     
     public List<OwnerData> getOwnerDataList() {
         return ownerDataList;
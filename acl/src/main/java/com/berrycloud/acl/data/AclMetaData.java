@@ -15,8 +15,12 @@
  */
 package com.berrycloud.acl.data;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A storage class containing all ACL metadata for all the managed entities and for the logic itself. The data is
@@ -29,9 +33,64 @@ public class AclMetaData {
 
   private Map<Class<?>, AclEntityMetaData> metaDataMap;
 
+  /**
+   * Lazily created permission plans keyed by (entity class, permission, depth)
+   */
+  private Map<List<Object>, PermissionPlan> permissionPlans = new ConcurrentHashMap<>();
+
+  private AuthorityRegistry authorityRegistry = new AuthorityRegistry();
+
+  private PermissionVocabulary permissionVocabulary;
+
+  private PermissionBits permissionBits;
+
   public AclMetaData(Map<Class<?>, AclEntityMetaData> metaDataMap, PermissionData selfPermissions) {
     this.metaDataMap = Collections.unmodifiableMap(metaDataMap);
     this.selfPermissions = selfPermissions;
+    registerAuthorities();
+  }
+
+  /**
+   * Precomputes the authority-masks of all the role based rules
+   */
+  private void registerAuthorities() {
+    for (AclEntityMetaData metaData : metaDataMap.values()) {
+      for (RolePermissionData rolePermissionData : metaData.getRolePermissionList()) {
+        rolePermissionData.setAuthorityMask(authorityRegistry.register(rolePermissionData.getAuthorities()));
+      }
+      for (RolePermissionData roleConditionData : metaData.getRoleConditionList()) {
+        roleConditionData.setAuthorityMask(authorityRegistry.register(roleConditionData.getAuthorities()));
+      }
+      for (CreatePermissionData createPermissionData : metaData.getCreatePermissionList()) {
+        createPermissionData.setAuthorityMask(authorityRegistry.register(createPermissionData.getAuthorities()));
+      }
+    }
+  }
+
+  public AuthorityRegistry getAuthorityRegistry() {
+    return authorityRegistry;
+  }
+
+  /**
+   * Returns the known permissions of the permission-links or null if the permission-links are checked with patterns.
+   */
+  public PermissionVocabulary getPermissionVocabulary() {
+    return permissionVocabulary;
+  }
+
+  public void setPermissionVocabulary(PermissionVocabulary permissionVocabulary) {
+    this.permissionVocabulary = permissionVocabulary;
+  }
+
+  /**
+   * Returns the registry of the bits of the bitmask permission-links.
+   */
+  public PermissionBits getPermissionBits() {
+    return permissionBits;
+  }
+
+  public void setPermissionBits(PermissionBits permissionBits) {
+    this.permissionBits = permissionBits;
   }
 
   public PermissionData getSelfPermissions() {
@@ -41,4 +100,26 @@ public class AclMetaData {
   public AclEntityMetaData getAclEntityMetaData(Class<?> entityClass) {
     return metaDataMap.get(entityClass);
   }
+
+  /**
+   * Returns the cached permission plan of the given entity type for the given permission and depth. The plan is created
+   * on the first call.
+   */
+  public PermissionPlan getPermissionPlan(Class<?> entityClass, String permission, int depth) {
+    List<Object> key = Arrays.asList(entityClass, permission, depth);
+    PermissionPlan plan = permissionPlans.get(key);
+    if (plan == null) {
+      // Not computeIfAbsent: creating a plan creates the plans of the parents recursively
+      plan = PermissionPlan.create(this, entityClass, permission, depth);
+      PermissionPlan existing = permissionPlans.putIfAbsent(key, plan);
+      if (existing != null) {
+        plan = existing;
+      }
+    }
+    return plan;
+  }
+
+  public Set<Class<?>> getEntityTypes() {
+    return metaDataMap.keySet();
+  }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.data;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Immutable, cached authority-mask of an authentication. It's valid only for the same {@link AuthorityRegistry} and for
+ * the same (identical) authority collection it was created from.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AuthorityMask {
+
+    private final AuthorityRegistry registry;
+    private final Collection<?> authorities;
+    private final BitSet mask;
+
+    public AuthorityMask(AuthorityRegistry registry, Collection<?> authorities, BitSet mask) {
+        this.registry = registry;
+        this.authorities = authorities;
+        this.mask = mask;
+    }
+
+    public boolean isValidFor(AuthorityRegistry registry, Collection<?> authorities) {
+        return this.registry == registry && this.authorities == authorities;
+    }
+
+    /**
+     * The mask itself. It must not be modified.
+     */
+    public BitSet getMask() {
+        return mask;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.data;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Registry of all the authorities which are used in any role based ACL rule. Every authority gets a bit-index, so the
+ * authorities of the rules and the authorities of the current user can be represented as {@link BitSet}s and a role
+ * check is a simple intersection. The registry is filled during the creation of the {@link AclMetaData} and it's
+ * read-only afterwards.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AuthorityRegistry {
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * Registers the given authorities and returns their mask.
+     */
+    BitSet register(String[] authorities) {
+        BitSet mask = new BitSet();
+        for (String authority : authorities) {
+            Integer index = indexes.get(authority);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(authority, index);
+            }
+            mask.set(index);
+        }
+        return mask;
+    }
+
+    /**
+     * Creates the mask of the given granted authorities. Authorities which are not used in any rule are ignored.
+     */
+    public BitSet getMask(Collection<? extends GrantedAuthority> authorities) {
+        BitSet mask = new BitSet(indexes.size());
+        for (GrantedAuthority grantedAuthority : authorities) {
+            Integer index = indexes.get(grantedAuthority.getAuthority());
+            if (index != null) {
+                mask.set(index);
+            }
+        }
+        return mask;
+    }
+
+}
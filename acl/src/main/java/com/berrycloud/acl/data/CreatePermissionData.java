@@ -15,6 +15,8 @@
  */
 package com.berrycloud.acl.data;
 
+import java.util.BitSet;
+
 import com.berrycloud.acl.annotation.AclCreatePermission;
 
 /**
@@ -25,6 +27,7 @@ import com.berrycloud.acl.annotation.AclCreatePermission;
 public class CreatePermissionData {
 
     private String[] authorities;
+    private BitSet authorityMask;
 
     public CreatePermissionData(String[] authorities) {
         this.authorities = authorities;
@@ -34,4 +37,15 @@ public class CreatePermissionData {
         return authorities;
     }
 
+    void setAuthorityMask(BitSet authorityMask) {
+        this.authorityMask = authorityMask;
+    }
+
+    /**
+     * Checks if the rule applies to a user with the given authority-mask. An empty authority list means: ANY authority.
+     */
+    public boolean matches(BitSet userMask) {
+        return authorities.length == 0 || authorityMask.intersects(userMask);
+    }
+
 }
@@ -25,14 +25,34 @@ import com.berrycloud.acl.annotation.AclParent;
 public class ParentData extends PropertyPermissionData {
 
     private String permissionPrefix;
+    private Class<?> propertyType;
+    private boolean closure;
 
-    public ParentData(String propertyName, String permissionPrefix, String[] permissions) {
+    public ParentData(String propertyName, Class<?> propertyType, String permissionPrefix, String[] permissions) {
+        this(propertyName, propertyType, permissionPrefix, permissions, false);
+    }
+
+    public ParentData(String propertyName, Class<?> propertyType, String permissionPrefix, String[] permissions,
+            boolean closure) {
         super(propertyName, permissions);
+        this.propertyType = propertyType;
         this.permissionPrefix = permissionPrefix;
+        this.closure = closure;
     }
 
     public String getPermissionPrefix() {
         return permissionPrefix;
     }
 
+    public Class<?> getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * Returns true if the ancestors are resolved via the closure table (see {@link AclParent#closure()})
+     */
+    public boolean isClosure() {
+        return closure;
+    }
+
 }
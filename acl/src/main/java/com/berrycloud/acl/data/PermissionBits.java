@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * The registry of the bits of the {@link com.berrycloud.acl.domain.BitmaskPermissionLink} permission masks.
+ * </p>
+ * Every (possibly prefixed) permission is mapped to a bit by its position in the configured permission list, so the
+ * order of the list must be kept stable: new permissions can be appended only.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class PermissionBits {
+
+    public static final int MAX_PERMISSIONS = 63;
+
+    private final Map<String, Long> bits = new LinkedHashMap<>();
+
+    public PermissionBits(Collection<String> permissions) {
+        if (permissions.size() > MAX_PERMISSIONS) {
+            throw new IllegalArgumentException(
+                    "Too many bitmask permissions: " + permissions.size() + " (max " + MAX_PERMISSIONS + ")");
+        }
+        for (String permission : permissions) {
+            if (permission.isEmpty() || bits.put(permission, 1L << bits.size()) != null) {
+                throw new IllegalArgumentException("Invalid or duplicated bitmask permission: '" + permission + "'");
+            }
+        }
+    }
+
+    /**
+     * Returns the registered permissions in the order of their bits.
+     */
+    public Collection<String> getPermissions() {
+        return Collections.unmodifiableSet(bits.keySet());
+    }
+
+    /**
+     * Returns the mask of the given permissions.
+     *
+     * @throws IllegalArgumentException
+     *             if any of the permissions is not registered
+     */
+    public long getMask(String... permissions) {
+        long mask = 0;
+        for (String permission : permissions) {
+            Long bit = bits.get(permission);
+            if (bit == null) {
+                throw new IllegalArgumentException("Unknown bitmask permission: '" + permission + "'");
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the permissions of the given mask.
+     */
+    public List<String> getPermissions(long mask) {
+        List<String> permissions = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : bits.entrySet()) {
+            if ((mask & entry.getValue()) != 0) {
+                permissions.add(entry.getKey());
+            }
+        }
+        return permissions;
+    }
+}
@@ -20,6 +20,7 @@ import static com.berrycloud.acl.AclConstants.PERMISSION_PREFIX_DELIMITER;
 import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -61,4 +62,8 @@ public class PermissionData {
         return allPrefixes.contains(prefix) || permissions.contains(permission);
     }
 
+    public Set<String> getPermissions() {
+        return Collections.unmodifiableSet(permissions);
+    }
+
 }
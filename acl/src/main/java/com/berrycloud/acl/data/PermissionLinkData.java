@@ -23,19 +23,38 @@ package com.berrycloud.acl.data;
 public class PermissionLinkData {
 
     private String propertyName;
+    private Class<?> propertyType;
     private String permissionField;
+    private boolean bitmask;
 
-    public PermissionLinkData(String propertyName, String permissionField) {
+    public PermissionLinkData(String propertyName, Class<?> propertyType, String permissionField) {
+        this(propertyName, propertyType, permissionField, false);
+    }
+
+    public PermissionLinkData(String propertyName, Class<?> propertyType, String permissionField, boolean bitmask) {
         this.propertyName = propertyName;
+        this.propertyType = propertyType;
         this.permissionField = permissionField;
+        this.bitmask = bitmask;
     }
 
     public String getPropertyName() {
         return propertyName;
     }
 
+    public Class<?> getPropertyType() {
+        return propertyType;
+    }
+
     public String getPermissionField() {
         return permissionField;
     }
 
+    /**
+     * Returns true if the permission field is a bitmask (see {@link com.berrycloud.acl.domain.BitmaskPermissionLink})
+     */
+    public boolean isBitmask() {
+        return bitmask;
+    }
+
 }
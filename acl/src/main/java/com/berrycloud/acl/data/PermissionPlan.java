@@ -0,0 +1,492 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.data;
+
+import static com.berrycloud.acl.AclConstants.ALL_PERMISSION;
+import static com.berrycloud.acl.AclConstants.PERMISSION_PREFIX_DELIMITER;
+import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.berrycloud.acl.domain.AclUser;
+
+/**
+ * Immutable, precompiled form of the permission-checks of an entity type for a given permission and depth. It contains
+ * all the resolved properties, id attributes, prefixed parent-permissions and permission-link patterns, so the
+ * predicates can be created from it without processing the metadata again. The plans are created and cached by the
+ * {@link AclMetaData}.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class PermissionPlan {
+
+    private static Logger LOG = LoggerFactory.getLogger(PermissionPlan.class);
+
+    private final Class<?> javaType;
+    private final SingularAttribute<? super Object, ?> idAttribute;
+    private final boolean self;
+    private final List<OwnerStep> owners;
+    private final List<OwnerGroupStep> ownerGroups;
+    private final List<PermissionLinkStep> permissionLinks;
+    private final List<ParentStep> parents;
+    private final int joinCount;
+    private final int branchCount;
+
+    private PermissionPlan(Class<?> javaType, SingularAttribute<? super Object, ?> idAttribute, boolean self,
+            List<OwnerStep> owners, List<OwnerGroupStep> ownerGroups, List<PermissionLinkStep> permissionLinks,
+            List<ParentStep> parents) {
+        this.javaType = javaType;
+        this.idAttribute = idAttribute;
+        this.self = self;
+        this.owners = Collections.unmodifiableList(owners);
+        this.ownerGroups = Collections.unmodifiableList(ownerGroups);
+        this.permissionLinks = Collections.unmodifiableList(permissionLinks);
+        this.parents = Collections.unmodifiableList(parents);
+        this.joinCount = countJoins();
+        this.branchCount = countBranches();
+    }
+
+    private int countJoins() {
+        int joins = countOwnerJoins(owners) + countOwnerGroupJoins(ownerGroups);
+        for (PermissionLinkStep permissionLink : permissionLinks) {
+            joins += 1 + countOwnerJoins(permissionLink.getOwners())
+                    + countOwnerGroupJoins(permissionLink.getOwnerGroups());
+        }
+        for (ParentStep parent : parents) {
+            joins += 1 + parent.getPlan().getJoinCount();
+        }
+        return joins;
+    }
+
+    private static int countOwnerJoins(List<OwnerStep> owners) {
+        int joins = 0;
+        for (OwnerStep owner : owners) {
+            if (owner.isCollection()) {
+                joins++;
+            }
+        }
+        return joins;
+    }
+
+    private static int countOwnerGroupJoins(List<OwnerGroupStep> ownerGroups) {
+        int joins = 0;
+        for (OwnerGroupStep ownerGroup : ownerGroups) {
+            joins += 1 + countOwnerJoins(ownerGroup.getOwners());
+        }
+        return joins;
+    }
+
+    private int countBranches() {
+        int branches = (self ? 1 : 0) + owners.size() + ownerGroups.size() + permissionLinks.size() + parents.size();
+        branches += countOwnerGroupBranches(ownerGroups);
+        for (PermissionLinkStep permissionLink : permissionLinks) {
+            branches += permissionLink.getPermissionChecks().size() + permissionLink.getOwners().size()
+                    + permissionLink.getOwnerGroups().size() + countOwnerGroupBranches(permissionLink.getOwnerGroups());
+        }
+        for (ParentStep parent : parents) {
+            branches += parent.getPlan().getBranchCount();
+        }
+        return branches;
+    }
+
+    private static int countOwnerGroupBranches(List<OwnerGroupStep> ownerGroups) {
+        int branches = 0;
+        for (OwnerGroupStep ownerGroup : ownerGroups) {
+            branches += ownerGroup.getOwners().size();
+        }
+        return branches;
+    }
+
+    static PermissionPlan create(AclMetaData aclMetaData, Class<?> javaType, String permission, int depth) {
+        LOG.trace("Creating permission plan of {} for '{}' permission", javaType, permission);
+        AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(javaType);
+
+        boolean self = AclUser.class.isAssignableFrom(javaType)
+                && aclMetaData.getSelfPermissions().hasPermission(permission);
+
+        List<OwnerStep> owners = createOwnerSteps(aclMetaData, metaData, permission, false);
+        List<OwnerGroupStep> ownerGroups = createOwnerGroupSteps(aclMetaData, metaData, permission);
+
+        List<PermissionLinkStep> permissionLinks = new ArrayList<>();
+        for (PermissionLinkData permissionLinkData : metaData.getPermissionLinkList()) {
+            AclEntityMetaData linkMetaData = aclMetaData.getAclEntityMetaData(permissionLinkData.getPropertyType());
+            List<PermissionCheck> permissionChecks = createPermissionChecks(aclMetaData.getPermissionVocabulary(),
+                    javaType, permission);
+            permissionLinks.add(new PermissionLinkStep(permissionLinkData.getPropertyName(),
+                    permissionLinkData.getPermissionField(), permissionChecks,
+                    permissionLinkData.isBitmask() ? createPermissionMask(aclMetaData.getPermissionBits(),
+                            permissionChecks) : null,
+                    createOwnerSteps(aclMetaData, linkMetaData, permission, false),
+                    createOwnerGroupSteps(aclMetaData, linkMetaData, permission)));
+        }
+
+        List<ParentStep> parents = new ArrayList<>();
+        if (depth > 0) {
+            for (ParentData parentData : metaData.getParentDataList()) {
+                if (parentData.isClosure() && parentData.hasPermission(permission)) {
+                    // All the ancestors are checked in one step, but only with their own (non-parent) rules
+                    parents.add(new ParentStep(parentData.getPropertyName(),
+                            aclMetaData.getPermissionPlan(parentData.getPropertyType(), permission, 0), true));
+                } else if (parentData.hasPermission(permission)) {
+                    String permissionPrefix = parentData.getPermissionPrefix();
+                    String parentPermission = permissionPrefix.isEmpty() ? permission
+                            : permissionPrefix + PERMISSION_PREFIX_DELIMITER + permission;
+                    parents.add(new ParentStep(parentData.getPropertyName(),
+                            aclMetaData.getPermissionPlan(parentData.getPropertyType(), parentPermission, depth - 1),
+                            false));
+                }
+            }
+        }
+
+        return new PermissionPlan(javaType, metaData.getIdAttribute(), self, owners, ownerGroups, permissionLinks,
+                parents);
+    }
+
+    private static List<OwnerStep> createOwnerSteps(AclMetaData aclMetaData, AclEntityMetaData metaData,
+            String permission, boolean ownerGroup) {
+        List<OwnerStep> owners = new ArrayList<>();
+        if (metaData == null) {
+            return owners;
+        }
+        for (OwnerData ownerData : metaData.getOwnerDataList()) {
+            if (ownerGroup || ownerData.hasPermission(permission)) {
+                owners.add(new OwnerStep(ownerData.getPropertyName(), ownerData.isCollection(),
+                        aclMetaData.getAclEntityMetaData(ownerData.getPropertyType()).getIdAttribute()));
+            }
+        }
+        return owners;
+    }
+
+    private static List<OwnerGroupStep> createOwnerGroupSteps(AclMetaData aclMetaData, AclEntityMetaData metaData,
+            String permission) {
+        List<OwnerGroupStep> ownerGroups = new ArrayList<>();
+        if (metaData == null) {
+            return ownerGroups;
+        }
+        for (OwnerData ownerGroupData : metaData.getOwnerGroupDataList()) {
+            if (ownerGroupData.hasPermission(permission)) {
+                ownerGroups.add(new OwnerGroupStep(ownerGroupData.getPropertyName(), createOwnerSteps(aclMetaData,
+                        aclMetaData.getAclEntityMetaData(ownerGroupData.getPropertyType()), permission, true)));
+            }
+        }
+        return ownerGroups;
+    }
+
+    /**
+     * Creates the checks of the permission field of a permission-link for the given (possibly prefixed) permission. If
+     * the permission vocabulary is known, the checks are merged into a single check with the exact list of the matching
+     * permissions.
+     */
+    private static List<PermissionCheck> createPermissionChecks(PermissionVocabulary vocabulary, Class<?> javaType,
+            String permission) {
+        int index = permission.lastIndexOf(PERMISSION_PREFIX_DELIMITER) + 1;
+        List<PermissionCheck> checks = new ArrayList<>();
+        addPermissionChecks(checks, permission.substring(index), permission.substring(0, index));
+        if (vocabulary == null) {
+            return Collections.unmodifiableList(checks);
+        }
+        Set<String> values = new TreeSet<>();
+        for (PermissionCheck check : checks) {
+            if (check.getType() == PermissionCheck.Type.EQUAL) {
+                values.add(check.getValue());
+            }
+        }
+        for (String knownPermission : vocabulary.getPermissions(javaType)) {
+            for (PermissionCheck check : checks) {
+                if (check.getType() != PermissionCheck.Type.EQUAL && check.matches(knownPermission)) {
+                    values.add(knownPermission);
+                }
+            }
+        }
+        return Collections.singletonList(new PermissionCheck(new ArrayList<>(values)));
+    }
+
+    /**
+     * Creates the mask of the registered bitmask permissions matching any of the given checks.
+     */
+    private static long createPermissionMask(PermissionBits permissionBits, List<PermissionCheck> checks) {
+        long mask = 0;
+        for (String permission : permissionBits.getPermissions()) {
+            for (PermissionCheck check : checks) {
+                if (check.matches(permission)) {
+                    mask |= permissionBits.getMask(permission);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static void addPermissionChecks(List<PermissionCheck> checks, String permission, String prefixes) {
+        if (prefixes.isEmpty()) {
+            // Create top level permission-checks
+            if (permission.equals(READ_PERMISSION)) {
+                checks.add(new PermissionCheck(PermissionCheck.Type.NOT_LIKE, "%" + PERMISSION_PREFIX_DELIMITER + "%"));
+            } else {
+                checks.add(new PermissionCheck(PermissionCheck.Type.EQUAL, ALL_PERMISSION));
+                checks.add(new PermissionCheck(PermissionCheck.Type.EQUAL, permission));
+            }
+        } else {
+            // Create child-level permission-checks
+            if (permission.equals(READ_PERMISSION)) {
+                checks.add(new PermissionCheck(PermissionCheck.Type.LIKE, prefixes + "%"));
+            } else {
+                checks.add(new PermissionCheck(PermissionCheck.Type.EQUAL, prefixes + ALL_PERMISSION));
+                checks.add(new PermissionCheck(PermissionCheck.Type.EQUAL, prefixes + permission));
+            }
+
+            // create permission-checks recursively for upper child-levels
+            int index = prefixes.lastIndexOf(PERMISSION_PREFIX_DELIMITER, prefixes.length() - 2) + 1;
+            addPermissionChecks(checks, permission, prefixes.substring(0, index));
+        }
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public SingularAttribute<? super Object, ?> getIdAttribute() {
+        return idAttribute;
+    }
+
+    public boolean isSelf() {
+        return self;
+    }
+
+    public List<OwnerStep> getOwners() {
+        return owners;
+    }
+
+    public List<OwnerGroupStep> getOwnerGroups() {
+        return ownerGroups;
+    }
+
+    public List<PermissionLinkStep> getPermissionLinks() {
+        return permissionLinks;
+    }
+
+    public List<ParentStep> getParents() {
+        return parents;
+    }
+
+    /**
+     * Returns the number of joins of the predicates created from this plan (including the joins of the parent plans).
+     */
+    public int getJoinCount() {
+        return joinCount;
+    }
+
+    /**
+     * Returns the number of OR branches of the predicates created from this plan (including the branches of the
+     * permission-checks of the permission-links and the branches of the parent plans).
+     */
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    /**
+     * Direct owner-check: an {@link AclUser} property or collection.
+     */
+    public static class OwnerStep {
+        private final String propertyName;
+        private final boolean collection;
+        private final SingularAttribute<? super Object, ?> userIdAttribute;
+
+        OwnerStep(String propertyName, boolean collection, SingularAttribute<? super Object, ?> userIdAttribute) {
+            this.propertyName = propertyName;
+            this.collection = collection;
+            this.userIdAttribute = userIdAttribute;
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public boolean isCollection() {
+            return collection;
+        }
+
+        public SingularAttribute<? super Object, ?> getUserIdAttribute() {
+            return userIdAttribute;
+        }
+    }
+
+    /**
+     * Owner-group check: a joined entity whose owners are checked.
+     */
+    public static class OwnerGroupStep {
+        private final String propertyName;
+        private final List<OwnerStep> owners;
+
+        OwnerGroupStep(String propertyName, List<OwnerStep> owners) {
+            this.propertyName = propertyName;
+            this.owners = Collections.unmodifiableList(owners);
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public List<OwnerStep> getOwners() {
+            return owners;
+        }
+    }
+
+    /**
+     * Permission-link check: a joined permission-link entity filtered by its permission field, whose owners are checked.
+     * The permission field of the bitmask permission-links is checked with the precomputed permission mask.
+     */
+    public static class PermissionLinkStep {
+        private final String propertyName;
+        private final String permissionField;
+        private final List<PermissionCheck> permissionChecks;
+        private final Long permissionMask;
+        private final List<OwnerStep> owners;
+        private final List<OwnerGroupStep> ownerGroups;
+
+        PermissionLinkStep(String propertyName, String permissionField, List<PermissionCheck> permissionChecks,
+                Long permissionMask, List<OwnerStep> owners, List<OwnerGroupStep> ownerGroups) {
+            this.propertyName = propertyName;
+            this.permissionField = permissionField;
+            this.permissionChecks = permissionChecks;
+            this.permissionMask = permissionMask;
+            this.owners = Collections.unmodifiableList(owners);
+            this.ownerGroups = Collections.unmodifiableList(ownerGroups);
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public String getPermissionField() {
+            return permissionField;
+        }
+
+        public List<PermissionCheck> getPermissionChecks() {
+            return permissionChecks;
+        }
+
+        public boolean isBitmask() {
+            return permissionMask != null;
+        }
+
+        /**
+         * Returns the mask of the permissions granting the checked permission (for bitmask permission-links)
+         */
+        public Long getPermissionMask() {
+            return permissionMask;
+        }
+
+        public List<OwnerStep> getOwners() {
+            return owners;
+        }
+
+        public List<OwnerGroupStep> getOwnerGroups() {
+            return ownerGroups;
+        }
+    }
+
+    /**
+     * Parent check: a joined entity which is checked recursively with the plan of the prefixed permission. The closure
+     * parent check is a sub-query on the closure table where all the ancestors are checked with the same plan.
+     */
+    public static class ParentStep {
+        private final String propertyName;
+        private final PermissionPlan plan;
+        private final boolean closure;
+
+        ParentStep(String propertyName, PermissionPlan plan, boolean closure) {
+            this.propertyName = propertyName;
+            this.plan = plan;
+            this.closure = closure;
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public PermissionPlan getPlan() {
+            return plan;
+        }
+
+        public boolean isClosure() {
+            return closure;
+        }
+    }
+
+    /**
+     * A single check of the permission field of a permission-link.
+     */
+    public static class PermissionCheck {
+
+        public enum Type {
+            EQUAL, LIKE, NOT_LIKE, IN
+        }
+
+        private final Type type;
+        private final String value;
+        private final List<String> values;
+
+        PermissionCheck(Type type, String value) {
+            this.type = type;
+            this.value = value;
+            this.values = Collections.singletonList(value);
+        }
+
+        PermissionCheck(List<String> values) {
+            this.type = Type.IN;
+            this.value = null;
+            this.values = Collections.unmodifiableList(values);
+        }
+
+        /**
+         * Checks whether the given permission satisfies this check. The patterns contain only trailing or enclosing
+         * '%' wildcards.
+         */
+        boolean matches(String permission) {
+            switch (type) {
+            case LIKE:
+                return permission.startsWith(value.substring(0, value.length() - 1));
+            case NOT_LIKE:
+                return !permission.contains(value.substring(1, value.length() - 1));
+            case IN:
+                return values.contains(permission);
+            default:
+                return value.equals(permission);
+            }
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+    }
+}
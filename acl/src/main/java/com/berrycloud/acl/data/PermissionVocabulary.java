@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.data;
+
+import static com.berrycloud.acl.AclConstants.ALL_PERMISSION;
+import static com.berrycloud.acl.AclConstants.CREATE_PERMISSION;
+import static com.berrycloud.acl.AclConstants.DELETE_PERMISSION;
+import static com.berrycloud.acl.AclConstants.PERMISSION_PREFIX_DELIMITER;
+import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
+import static com.berrycloud.acl.AclConstants.UPDATE_PERMISSION;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * The permissions what can be stored in the permission-links of the entity types.
+ * </p>
+ * The base permissions are collected from the ACL annotations (and the configured extra permissions). The permissions
+ * of an entity type are the base permissions with all the prefix chains what the type could be checked with as a
+ * (grand)parent (up to the maximum depth). The wildcard permission-checks of the permission-links are expanded into
+ * exact lists of these permissions (see {@link PermissionPlan}).
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class PermissionVocabulary {
+
+    private final Set<String> basePermissions;
+    private final Map<Class<?>, Set<String>> prefixChains;
+    private final Map<Class<?>, Set<String>> permissions = new ConcurrentHashMap<>();
+
+    private PermissionVocabulary(Set<String> basePermissions, Map<Class<?>, Set<String>> prefixChains) {
+        this.basePermissions = basePermissions;
+        this.prefixChains = prefixChains;
+    }
+
+    public static PermissionVocabulary create(Map<Class<?>, AclEntityMetaData> metaDataMap,
+            PermissionData selfPermissions, Collection<String> extraPermissions, int maxDepth) {
+        Set<String> basePermissions = new HashSet<>(
+                Arrays.asList(ALL_PERMISSION, READ_PERMISSION, UPDATE_PERMISSION, DELETE_PERMISSION, CREATE_PERMISSION));
+        basePermissions.addAll(selfPermissions.getPermissions());
+        basePermissions.addAll(extraPermissions);
+        for (AclEntityMetaData metaData : metaDataMap.values()) {
+            addPermissions(basePermissions, metaData.getOwnerDataList());
+            addPermissions(basePermissions, metaData.getOwnerGroupDataList());
+            addPermissions(basePermissions, metaData.getParentDataList());
+            addPermissions(basePermissions, metaData.getRolePermissionList());
+            addPermissions(basePermissions, metaData.getRoleConditionList());
+        }
+        return new PermissionVocabulary(basePermissions, createPrefixChains(metaDataMap, maxDepth));
+    }
+
+    private static void addPermissions(Set<String> permissions, List<? extends PermissionData> permissionDataList) {
+        for (PermissionData permissionData : permissionDataList) {
+            permissions.addAll(permissionData.getPermissions());
+        }
+    }
+
+    /**
+     * Collects the prefix chains of the parent-permissions level by level. (The parent of a type checked with the chain
+     * 'c' is checked with the chain 'prefix-c'.)
+     */
+    private static Map<Class<?>, Set<String>> createPrefixChains(Map<Class<?>, AclEntityMetaData> metaDataMap,
+            int maxDepth) {
+        Map<Class<?>, Set<String>> prefixChains = new HashMap<>();
+        Map<Class<?>, Set<String>> level = new HashMap<>();
+        for (Class<?> javaType : metaDataMap.keySet()) {
+            level.put(javaType, Collections.singleton(""));
+        }
+        for (int depth = 0; depth < maxDepth && !level.isEmpty(); depth++) {
+            Map<Class<?>, Set<String>> nextLevel = new HashMap<>();
+            for (Map.Entry<Class<?>, Set<String>> entry : level.entrySet()) {
+                AclEntityMetaData metaData = metaDataMap.get(entry.getKey());
+                if (metaData == null) {
+                    continue;
+                }
+                for (ParentData parentData : metaData.getParentDataList()) {
+                    String prefix = parentData.getPermissionPrefix();
+                    for (String chain : entry.getValue()) {
+                        String parentChain = prefix.isEmpty() ? chain : prefix + PERMISSION_PREFIX_DELIMITER + chain;
+                        if (prefixChains.computeIfAbsent(parentData.getPropertyType(), t -> new HashSet<>())
+                                .add(parentChain)) {
+                            nextLevel.computeIfAbsent(parentData.getPropertyType(), t -> new HashSet<>())
+                                    .add(parentChain);
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return prefixChains;
+    }
+
+    /**
+     * Returns all the known permissions what can be stored in the permission-links of the given type.
+     */
+    public Set<String> getPermissions(Class<?> javaType) {
+        return permissions.computeIfAbsent(javaType, t -> {
+            Set<String> result = new HashSet<>(basePermissions);
+            for (String chain : prefixChains.getOrDefault(t, Collections.emptySet())) {
+                for (String permission : basePermissions) {
+                    result.add(chain + permission);
+                }
+            }
+            return Collections.unmodifiableSet(result);
+        });
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.berrycloud.acl.data;
 
+import java.util.BitSet;
+
 import com.berrycloud.acl.annotation.AclRolePermission;
 
 /**
@@ -25,6 +27,7 @@ import com.berrycloud.acl.annotation.AclRolePermission;
 public class RolePermissionData extends PermissionData {
 
     private String[] authorities;
+    private BitSet authorityMask;
 
     public RolePermissionData(String[] authorities, String[] permissions) {
         super(permissions);
@@ -35,4 +38,15 @@ public class RolePermissionData extends PermissionData {
         return authorities;
     }
 
+    void setAuthorityMask(BitSet authorityMask) {
+        this.authorityMask = authorityMask;
+    }
+
+    /**
+     * Checks if the rule applies to a user with the given authority-mask. An empty authority list means: ANY authority.
+     */
+    public boolean matches(BitSet userMask) {
+        return authorities.length == 0 || authorityMask.intersects(userMask);
+    }
+
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.core.style.ToStringCreator;
+
+import com.berrycloud.acl.index.AclPermissionIndex;
+
+/**
+ * A row of the materialized permission index. Every row means that the user has the given permission to the given
+ * entity. The rows are maintained by the {@link AclPermissionIndex} and they are managed only if the
+ * {@code spring.data.jpa.acl.permission-index.enabled} property is set.
+ *
+ * @author István Rátkai (Selindek)
+ */
+@Entity
+@Table(name = AclEffectivePermission.TABLE_NAME, indexes = {
+        @Index(name = "acl_effective_permission_user", columnList = "user_id,entity_type,permission,entity_id"),
+        @Index(name = "acl_effective_permission_entity", columnList = "entity_type,entity_id") })
+public class AclEffectivePermission {
+
+    public static final String TABLE_NAME = "acl_effective_permission";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "entity_type", nullable = false, updatable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false, updatable = false)
+    private Long entityId;
+
+    @Column(name = "permission", nullable = false, updatable = false)
+    private String permission;
+
+    public AclEffectivePermission() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringCreator(this).append("userId", userId).append("entityType", entityType)
+                .append("entityId", entityId).append("permission", permission).toString();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.core.style.ToStringCreator;
+
+import com.berrycloud.acl.annotation.AclParent;
+import com.berrycloud.acl.index.AclClosureTable;
+
+/**
+ * A row of the closure table of the {@link AclParent#closure()} hierarchies. Every row means that the given entity is
+ * a descendant of the given ancestor in the given depth. The rows are maintained by the {@link AclClosureTable} and
+ * they are managed only if the {@code spring.data.jpa.acl.parent-closure.enabled} property is set.
+ *
+ * @author István Rátkai (Selindek)
+ */
+@Entity
+@Table(name = AclParentClosure.TABLE_NAME, indexes = {
+        @Index(name = "acl_parent_closure_descendant", columnList = "entity_type,descendant_id,ancestor_id"),
+        @Index(name = "acl_parent_closure_ancestor", columnList = "entity_type,ancestor_id") })
+public class AclParentClosure {
+
+    public static final String TABLE_NAME = "acl_parent_closure";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, updatable = false)
+    private String entityType;
+
+    @Column(name = "descendant_id", nullable = false, updatable = false)
+    private Long descendantId;
+
+    @Column(name = "ancestor_id", nullable = false, updatable = false)
+    private Long ancestorId;
+
+    @Column(name = "depth", nullable = false, updatable = false)
+    private Integer depth;
+
+    public AclParentClosure() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getDescendantId() {
+        return descendantId;
+    }
+
+    public Long getAncestorId() {
+        return ancestorId;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringCreator(this).append("entityType", entityType).append("descendantId", descendantId)
+                .append("ancestorId", ancestorId).append("depth", depth).toString();
+    }
+
+}
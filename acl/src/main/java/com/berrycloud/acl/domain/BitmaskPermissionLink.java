@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.domain;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+
+import com.berrycloud.acl.annotation.AclOwner;
+import com.berrycloud.acl.data.PermissionBits;
+
+/**
+ * A superclass for defining permission-links with bitmask-encoded permissions between a permission-owner and a
+ * permission-target entity.
+ * <p>
+ * It works like the {@link PermissionLink}, but a single link stores all the permissions of the owner to the target
+ * as bits of an integer mask. The bits of the permissions are defined by the {@link PermissionBits} registry (see
+ * {@code AclMetaData.getPermissionBits()}). The same rules apply: any permission grants {@code "read"} permission too,
+ * and {@code "all"} permission grants all of the possible permissions.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ * @param <O>
+ *            Permission-Owner: should be a class what implements the {@link AclUser} interface or any domain class what
+ *            have a {@link AclUser} field or collection-like field containing {@link AclUser} entities.
+ * @param <T>
+ *            Permission-Target: could be any domain class.
+ */
+@MappedSuperclass
+public abstract class BitmaskPermissionLink<O, T> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @AclOwner
+    @ManyToOne()
+    @JoinColumn(nullable = false, updatable = false)
+    private O owner;
+
+    @ManyToOne()
+    @JoinColumn(nullable = false, updatable = false)
+    private T target;
+
+    @Column(nullable = false)
+    private long permissionMask;
+
+    public BitmaskPermissionLink() {
+    }
+
+    public BitmaskPermissionLink(Long id) {
+        this.id = id;
+    }
+
+    public BitmaskPermissionLink(O owner, T target, long permissionMask) {
+        this.owner = owner;
+        this.target = target;
+        this.permissionMask = permissionMask;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
+    public O getOwner() {
+        return owner;
+    }
+
+    public void setOwner(final O owner) {
+        this.owner = owner;
+    }
+
+    public T getTarget() {
+        return target;
+    }
+
+    public void setTarget(final T target) {
+        this.target = target;
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public void setPermissionMask(final long permissionMask) {
+        this.permissionMask = permissionMask;
+    }
+
+}
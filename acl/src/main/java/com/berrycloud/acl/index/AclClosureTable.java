@@ -0,0 +1,475 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CommonAbstractCriteria;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.util.ProxyUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.annotation.AclParent;
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.ParentData;
+import com.berrycloud.acl.domain.AclParentClosure;
+
+/**
+ * Closure table of the {@link AclParent#closure()} hierarchies. For every entity of these hierarchies it stores the ids
+ * of all of its ancestors in the {@link AclParentClosure} table, so the permissions inherited from any ancestor can be
+ * checked by a single sub-query regardless of the depth of the hierarchy.
+ * <p>
+ * The table is maintained incrementally: the {@link AclEntityListener} reports all the persisted, updated and removed
+ * entities. If the parent of an entity was changed, its subtree is moved by set-based statements (the rows of the
+ * subtree and the old ancestors are deleted, and the rows of the subtree and the new ancestors are inserted by
+ * {@code INSERT ... SELECT}s) before the next query of the closure table in the same transaction, before commit, or -
+ * if the changes were flushed by the commit itself - right after the commit in a new transaction.
+ * <p>
+ * Limitations: JPA doesn't send any event for bulk updates. Call {@link #refresh(Object)} or {@link #rebuild()} after
+ * such changes.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclClosureTable implements AclEntityListener.Handler {
+
+  private static Logger LOG = LoggerFactory.getLogger(AclClosureTable.class);
+
+  private static final String INSERT_SQL = "insert into " + AclParentClosure.TABLE_NAME
+      + " (entity_type, descendant_id, ancestor_id, depth) ";
+
+  /**
+   * Inserts the row of the new parent (?2) for the moved entity (?3)
+   */
+  private static final String INSERT_PARENT_SQL = INSERT_SQL + "values (?1, ?3, ?2, 1)";
+
+  /**
+   * Inserts the rows of the ancestors of the new parent (?2) for the moved entity (?3)
+   */
+  private static final String INSERT_ENTITY_SQL = INSERT_SQL + "select entity_type, ?3, ancestor_id, depth + 1 from "
+      + AclParentClosure.TABLE_NAME + " where entity_type = ?1 and descendant_id = ?2";
+
+  /**
+   * Inserts the rows of the new parent (?2) and its ancestors for the descendants of the moved entity (?3)
+   */
+  private static final String INSERT_DESCENDANTS_SQL = INSERT_SQL
+      + "select d.entity_type, d.descendant_id, ?2, d.depth + 1 from " + AclParentClosure.TABLE_NAME
+      + " d where d.entity_type = ?1 and d.ancestor_id = ?3 union all"
+      + " select d.entity_type, d.descendant_id, a.ancestor_id, d.depth + a.depth + 1 from "
+      + AclParentClosure.TABLE_NAME + " d, " + AclParentClosure.TABLE_NAME
+      + " a where d.entity_type = ?1 and d.ancestor_id = ?3 and a.entity_type = ?1 and a.descendant_id = ?2";
+
+  /**
+   * Inserts the rows of the next level (depth ?2 + 1) of the closure
+   */
+  private static final String INSERT_LEVEL_SQL = INSERT_SQL
+      + "select d.entity_type, d.descendant_id, p.ancestor_id, d.depth + 1 from " + AclParentClosure.TABLE_NAME
+      + " d, " + AclParentClosure.TABLE_NAME + " p where d.entity_type = ?1 and d.depth = ?2 and p.entity_type = ?1"
+      + " and p.descendant_id = d.ancestor_id and p.depth = 1";
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${spring.data.jpa.acl.parent-closure.rebuild-on-startup:false}")
+  private boolean rebuildOnStartup;
+
+  @Value("${spring.data.jpa.acl.max-in-list-size:1000}")
+  private int maxInListSize = 1000;
+
+  /**
+   * The closure parent properties of the entity types
+   */
+  private Map<Class<?>, ParentData> closureParents;
+
+  /**
+   * The table names of the closure table. The pending changes are applied before the queries which read these tables.
+   */
+  private Set<String> querySpaces;
+
+  @PostConstruct
+  public void init() {
+    closureParents = new HashMap<>();
+    for (Class<?> javaType : aclMetaData.getEntityTypes()) {
+      for (ParentData parentData : aclMetaData.getAclEntityMetaData(javaType).getParentDataList()) {
+        if (parentData.isClosure()) {
+          closureParents.put(javaType, parentData);
+        }
+      }
+    }
+    LOG.debug("Parent closure table is enabled for {}", closureParents.keySet());
+    querySpaces = new HashSet<>();
+    for (Object querySpace : em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMetamodel()
+        .entityPersister(AclParentClosure.class).getQuerySpaces()) {
+      querySpaces.add(querySpace.toString());
+    }
+    AclEntityListener.addHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    AclEntityListener.removeHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      new TransactionTemplate(transactionManager).execute(status -> {
+        rebuild();
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} for every persisted, updated or removed entity.
+   */
+  @Override
+  public void entityChanged(Object entity) {
+    if (closureParents.containsKey(ProxyUtils.getUserClass(entity))) {
+      markChanged(entity);
+    }
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} before every query of a transaction. If the query reads the closure table,
+   * the pending changes are applied first.
+   */
+  @Override
+  public void beforeQuery(Set<?> querySpaces) {
+    for (Object querySpace : querySpaces) {
+      if (this.querySpaces.contains(querySpace)) {
+        synchronize();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Creates a predicate what selects the entities having any ancestor which satisfies the given check. The pending
+   * changes of the current transaction are applied to the closure table when the query is executed.
+   */
+  public Predicate createClosurePredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Class<?> ancestorType, BiFunction<From<?, ?>, CommonAbstractCriteria, Predicate> ancestorCheck) {
+    Subquery<Integer> subquery = query.subquery(Integer.class);
+    Root<AclParentClosure> closure = subquery.from(AclParentClosure.class);
+    Root<?> ancestor = subquery.from(ancestorType);
+    subquery.select(cb.literal(1));
+    subquery.where(cb.equal(closure.get("entityType"), ancestorType.getName()),
+        cb.equal(closure.get("descendantId"), from.get(getIdAttribute(from.getJavaType()))),
+        cb.equal(closure.get("ancestorId"), ancestor.get(getIdAttribute(ancestorType))),
+        ancestorCheck.apply(ancestor, subquery));
+    return cb.exists(subquery);
+  }
+
+  /**
+   * Applies the pending changes of the current transaction to the closure table. The persistence context is flushed
+   * first if it's in AUTO flush mode (as any other query would do).
+   */
+  public void synchronize() {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      return;
+    }
+    if (em.getFlushMode() == FlushModeType.AUTO && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      em.flush();
+    }
+    PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pendingChanges != null) {
+      pendingChanges.process();
+    }
+  }
+
+  /**
+   * Recomputes the ancestors of the given entity and all of its descendants. It must be called in a transaction.
+   */
+  public void refresh(Object entity) {
+    Class<?> javaType = ProxyUtils.getUserClass(entity);
+    if (closureParents.containsKey(javaType)) {
+      move(closureParents.get(javaType), getId(entity));
+    }
+  }
+
+  /**
+   * Drops and recomputes the whole closure table level by level. It must be called in a transaction.
+   */
+  public void rebuild() {
+    LOG.info("Rebuilding parent closure table");
+    em.createQuery("delete from " + AclParentClosure.class.getSimpleName()).executeUpdate();
+    Set<Class<?>> done = new HashSet<>();
+    for (ParentData parentData : closureParents.values()) {
+      Class<?> ancestorType = parentData.getPropertyType();
+      if (!done.add(ancestorType)) {
+        continue;
+      }
+      // The first level is the parent property itself (the ids are cast as the closure columns are bigints)
+      em.createQuery("insert into " + AclParentClosure.class.getSimpleName()
+          + " (entityType, descendantId, ancestorId, depth) select '" + ancestorType.getName() + "', cast(e."
+          + getIdAttribute(ancestorType).getName() + " as long), cast(e." + parentData.getPropertyName() + "."
+          + getIdAttribute(ancestorType).getName() + " as long), 1 from " + getEntityName(ancestorType) + " e where e."
+          + parentData.getPropertyName() + " is not null").executeUpdate();
+      // Every next level is the previous level joined with the first one
+      for (int depth = 1; insertNativeRows(INSERT_LEVEL_SQL, ancestorType.getName(), depth) > 0; depth++) {
+        if (removeCycles(ancestorType)) {
+          break;
+        }
+      }
+    }
+  }
+
+  private void markChanged(Object entity) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      LOG.warn("Change of {} outside of a transaction cannot be added to the closure table", entity);
+      return;
+    }
+    PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pendingChanges == null) {
+      pendingChanges = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, pendingChanges);
+      TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+    }
+    Long id = getId(entity);
+    if (id != null) {
+      pendingChanges.add(Arrays.asList(ProxyUtils.getUserClass(entity), id));
+    }
+  }
+
+  /**
+   * Moves the subtrees of the changed entities if their parents were changed (or they were removed).
+   */
+  private void process(Set<List<Object>> changed) {
+    for (List<Object> key : changed) {
+      ParentData parentData = closureParents.get(key.get(0));
+      Long id = (Long) key.get(1);
+      List<?> storedParents = em
+          .createQuery("select c.ancestorId from " + AclParentClosure.class.getSimpleName()
+              + " c where c.entityType = :entityType and c.descendantId = :id and c.depth = 1")
+          .setParameter("entityType", parentData.getPropertyType().getName()).setParameter("id", id)
+          .getResultList();
+      Long parentId = findParentId(parentData, id);
+      if (parentId != null && Objects.equals(parentId, storedParents.isEmpty() ? null : storedParents.get(0))) {
+        // The parent wasn't changed
+        continue;
+      }
+      move(parentData, id, parentId);
+    }
+  }
+
+  /**
+   * Moves the subtree of the given entity under its current parent.
+   */
+  private void move(ParentData parentData, Long id) {
+    move(parentData, id, findParentId(parentData, id));
+  }
+
+  /**
+   * Moves the subtree of the given entity under the given parent: the rows of the subtree and the old ancestors are
+   * deleted, then the rows of the subtree and the new ancestors are inserted. The number of the statements doesn't
+   * depend on the size of the subtree, and none of the entities are loaded.
+   */
+  private void move(ParentData parentData, Long id, Long parentId) {
+    Class<?> ancestorType = parentData.getPropertyType();
+    String entityType = ancestorType.getName();
+    LOG.trace("Moving parent closure of {}#{} under #{}", entityType, id, parentId);
+    List<?> oldAncestors = em
+        .createQuery("select c.ancestorId from " + AclParentClosure.class.getSimpleName()
+            + " c where c.entityType = :entityType and c.descendantId = :id")
+        .setParameter("entityType", entityType).setParameter("id", id).getResultList();
+    List<Object> subtree = new ArrayList<>();
+    subtree.add(id);
+    subtree.addAll(em
+        .createQuery("select c.descendantId from " + AclParentClosure.class.getSimpleName()
+            + " c where c.entityType = :entityType and c.ancestorId = :id")
+        .setParameter("entityType", entityType).setParameter("id", id).getResultList());
+
+    if (!oldAncestors.isEmpty()) {
+      // The subtree is passed in chunks instead of a sub-query, as some DBs (e.g. MySQL) cannot select from the table
+      // they delete from
+      for (int i = 0; i < subtree.size(); i += maxInListSize) {
+        em.createQuery("delete from " + AclParentClosure.class.getSimpleName()
+            + " c where c.entityType = :entityType and c.ancestorId in :ancestors and c.descendantId in :subtree")
+            .setParameter("entityType", entityType).setParameter("ancestors", oldAncestors)
+            .setParameter("subtree", subtree.subList(i, Math.min(i + maxInListSize, subtree.size())))
+            .executeUpdate();
+      }
+    }
+
+    if (parentId == null) {
+      return;
+    }
+    if (subtree.contains(parentId)) {
+      LOG.warn("Cyclic @AclParent hierarchy at {}#{}", entityType, id);
+      return;
+    }
+    insertNativeRows(INSERT_PARENT_SQL, entityType, parentId, id);
+    insertNativeRows(INSERT_ENTITY_SQL, entityType, parentId, id);
+    if (subtree.size() > 1) {
+      insertNativeRows(INSERT_DESCENDANTS_SQL, entityType, parentId, id);
+    }
+  }
+
+  /**
+   * Removes the rows of the cyclic hierarchies (where an entity is its own ancestor).
+   *
+   * @return {@code true} if any cycle was found
+   */
+  private boolean removeCycles(Class<?> ancestorType) {
+    int cycles = em.createQuery("delete from " + AclParentClosure.class.getSimpleName()
+        + " c where c.entityType = :entityType and c.descendantId = c.ancestorId")
+        .setParameter("entityType", ancestorType.getName()).executeUpdate();
+    if (cycles > 0) {
+      LOG.warn("Cyclic @AclParent hierarchy in {}", ancestorType.getName());
+    }
+    return cycles > 0;
+  }
+
+  private int insertNativeRows(String sql, Object... parameters) {
+    Query query = em.createNativeQuery(sql);
+    for (int i = 0; i < parameters.length; i++) {
+      query.setParameter(i + 1, parameters[i]);
+    }
+    return query.executeUpdate();
+  }
+
+  /**
+   * Returns the id of the current parent of the given entity from the DB (or null if it has no parent or it was
+   * removed).
+   */
+  private Long findParentId(ParentData parentData, Long id) {
+    Class<?> ancestorType = parentData.getPropertyType();
+    String idName = getIdAttribute(ancestorType).getName();
+    List<?> parentIds = em
+        .createQuery("select e." + parentData.getPropertyName() + "." + idName + " from "
+            + getEntityName(ancestorType) + " e where e." + idName + " = :id")
+        .setParameter("id", toId(ancestorType, id)).getResultList();
+    return parentIds.isEmpty() || parentIds.get(0) == null ? null : ((Number) parentIds.get(0)).longValue();
+  }
+
+  private String getEntityName(Class<?> javaType) {
+    return em.getMetamodel().entity(javaType).getName();
+  }
+
+  private Long getId(Object entity) {
+    Object id = em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    return id == null ? null : ((Number) id).longValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object toId(Class<?> javaType, Long id) {
+    return NumberUtils.convertNumberToTargetClass(id,
+        (Class<Number>) ClassUtils.resolvePrimitiveIfNecessary(getIdAttribute(javaType).getJavaType()));
+  }
+
+  private SingularAttribute<? super Object, ?> getIdAttribute(Class<?> javaType) {
+    return aclMetaData.getAclEntityMetaData(javaType).getIdAttribute();
+  }
+
+  /**
+   * The changed entities of a transaction. They are processed before the next closure query, before commit or after
+   * commit if the changes were flushed during the commit.
+   */
+  private class PendingChanges extends TransactionSynchronizationAdapter {
+
+    private Set<List<Object>> changed = new LinkedHashSet<>();
+
+    private boolean processing;
+
+    void add(List<Object> key) {
+      changed.add(key);
+    }
+
+    void process() {
+      if (processing) {
+        // The queries of the processing are also reported to the closure table
+        return;
+      }
+      processing = true;
+      try {
+        while (!changed.isEmpty()) {
+          // Processing could flush new changes, so we loop until everything is processed
+          Set<List<Object>> entities = changed;
+          changed = new LinkedHashSet<>();
+          AclClosureTable.this.process(entities);
+        }
+      } finally {
+        processing = false;
+      }
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      if (!readOnly) {
+        synchronize();
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AclClosureTable.this);
+      if (!changed.isEmpty()) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.execute(status -> {
+          process();
+          return null;
+        });
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AclClosureTable.this);
+    }
+  }
+}
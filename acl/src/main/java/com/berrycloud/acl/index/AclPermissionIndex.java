@@ -0,0 +1,610 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CommonAbstractCriteria;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.util.ProxyUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.AclLogic;
+import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.data.AclEntityMetaData;
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.OwnerData;
+import com.berrycloud.acl.data.ParentData;
+import com.berrycloud.acl.data.PermissionLinkData;
+import com.berrycloud.acl.domain.AclEffectivePermission;
+import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.domain.BitmaskPermissionLink;
+import com.berrycloud.acl.domain.PermissionLink;
+
+/**
+ * Materialized index of the effective permissions of the users. For every indexed permission and entity it stores the
+ * ids of the users who have that permission to the entity (via self, owner, owner-group, parent or permission-link
+ * rules) in the {@link AclEffectivePermission} table, so the permission check of a query is a single semi-join
+ * instead of the whole predicate tree.
+ * <p>
+ * The index is maintained incrementally: the {@link AclEntityListener} reports all the persisted, updated and
+ * removed entities and the changed collections. The changed entities (including the added and removed elements of the
+ * changed collections) and the entities whose permissions depend on them are recomputed before the next query of the
+ * same transaction what reads the index, before commit, or - if the changes were flushed by the commit itself - right
+ * after the commit in a new transaction. All the permissions of the changed users are recomputed, so they can gain and
+ * lose permissions via their own associations.
+ * <p>
+ * The role based rules ({@code @AclRolePermission}, {@code @AclRoleCondition}) are not materialized, they are still
+ * evaluated at query time. Only entities and users with integral ids are indexed, other entities are checked with the
+ * normal predicates.
+ * <p>
+ * The bulk deletes of the repositories remove the rows of the deleted entities and recompute the types whose
+ * permissions can depend on them.
+ * <p>
+ * Limitations: Hibernate doesn't send any event for changes of the non-owning side of an association and for bulk
+ * updates. Call {@link #refresh(Object)} or {@link #rebuild()} after such changes.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclPermissionIndex implements AclEntityListener.Handler {
+
+  private static Logger LOG = LoggerFactory.getLogger(AclPermissionIndex.class);
+
+  private static final Set<Class<?>> INTEGRAL_TYPES = new HashSet<>(
+      Arrays.asList(Long.class, Integer.class, Short.class, Byte.class, long.class, int.class, short.class, byte.class));
+
+  private static final String INSERT_SQL = "insert into " + AclEffectivePermission.TABLE_NAME
+      + " (user_id, entity_type, entity_id, permission) values (?1, ?2, ?3, ?4)";
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private AclSpecification aclSpecification;
+
+  @Autowired
+  private AclLogic aclLogic;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * The materialized permissions. Other permissions are checked with the normal predicates.
+   */
+  @Value("${spring.data.jpa.acl.permission-index.permissions:read,update,delete}")
+  private String[] indexedPermissions;
+
+  @Value("${spring.data.jpa.acl.permission-index.rebuild-on-startup:false}")
+  private boolean rebuildOnStartup;
+
+  @Value("${spring.data.jpa.acl.max-depth:2}")
+  private int maxDepth = 2;
+
+  private Set<String> permissions;
+
+  private Map<String, Class<?>> indexedTypes;
+
+  /**
+   * The table names of the index. The pending changes are applied before the queries which read these tables.
+   */
+  private Set<String> querySpaces;
+
+  @PostConstruct
+  public void init() {
+    permissions = new HashSet<>(Arrays.asList(indexedPermissions));
+    indexedTypes = new HashMap<>();
+    if (isIntegral(aclLogic.getAclUserType())) {
+      for (Class<?> javaType : aclMetaData.getEntityTypes()) {
+        if (isIntegral(javaType) && !AclEffectivePermission.class.equals(javaType)) {
+          indexedTypes.put(javaType.getName(), javaType);
+        }
+      }
+    } else {
+      LOG.warn("{} has non-integral id. Permission-index is disabled.", aclLogic.getAclUserType());
+    }
+    LOG.debug("Permission-index is enabled for {} permissions of {}", permissions, indexedTypes.keySet());
+    querySpaces = new HashSet<>();
+    for (Object querySpace : em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMetamodel()
+        .entityPersister(AclEffectivePermission.class).getQuerySpaces()) {
+      querySpaces.add(querySpace.toString());
+    }
+    AclEntityListener.addHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    AclEntityListener.removeHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      new TransactionTemplate(transactionManager).execute(status -> {
+        rebuild();
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} for every persisted, updated or removed entity.
+   */
+  @Override
+  public void entityChanged(Object entity) {
+    if (!(entity instanceof AclEffectivePermission)) {
+      markChanged(entity);
+    }
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} for every changed collection. The owner and all the added and removed
+   * elements are recomputed.
+   */
+  @Override
+  public void collectionChanged(Object owner, Collection<?> changedElements) {
+    entityChanged(owner);
+    for (Object element : changedElements) {
+      if (element != null && indexedTypes.containsKey(ProxyUtils.getUserClass(element).getName())) {
+        entityChanged(element);
+      }
+    }
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} after a bulk delete. The rows of the deleted entities and users are removed
+   * and the types whose permissions can depend on the deleted entities are recomputed. (The ids of the deleted entities
+   * are not known, so the dependents cannot be found one by one.)
+   */
+  @Override
+  public void entitiesDeleted(Class<?> entityType) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()
+        || AclEffectivePermission.class.equals(entityType)) {
+      return;
+    }
+    for (Class<?> javaType : indexedTypes.values()) {
+      if (entityType.isAssignableFrom(javaType)) {
+        LOG.trace("Removing deleted {} entities from the permission-index", javaType);
+        em.createQuery("delete from " + AclEffectivePermission.class.getSimpleName()
+            + " p where p.entityType = :entityType and p.entityId not in (select e."
+            + getIdAttribute(javaType).getName() + " from " + em.getMetamodel().entity(javaType).getName() + " e)")
+            .setParameter("entityType", javaType.getName()).executeUpdate();
+      }
+    }
+    Class<?> userType = aclLogic.getAclUserType();
+    if (isRelated(userType, entityType)) {
+      LOG.trace("Removing deleted users from the permission-index");
+      em.createQuery("delete from " + AclEffectivePermission.class.getSimpleName()
+          + " p where p.userId not in (select u." + getIdAttribute(userType).getName() + " from "
+          + em.getMetamodel().entity(userType).getName() + " u)").executeUpdate();
+    }
+    for (Class<?> javaType : indexedTypes.values()) {
+      if (dependsOn(javaType, entityType)) {
+        LOG.trace("Recomputing permission-index of {} because of the bulk delete of {}", javaType, entityType);
+        em.createQuery(
+            "delete from " + AclEffectivePermission.class.getSimpleName() + " p where p.entityType = :entityType")
+            .setParameter("entityType", javaType.getName()).executeUpdate();
+        index(javaType);
+      }
+    }
+  }
+
+  /**
+   * Checks if the permissions of the given type are defined by associations to the given entity type.
+   */
+  private boolean dependsOn(Class<?> javaType, Class<?> entityType) {
+    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(javaType);
+    for (OwnerData ownerData : metaData.getOwnerDataList()) {
+      if (isRelated(ownerData.getPropertyType(), entityType)) {
+        return true;
+      }
+    }
+    for (OwnerData ownerGroupData : metaData.getOwnerGroupDataList()) {
+      if (isRelated(ownerGroupData.getPropertyType(), entityType)) {
+        return true;
+      }
+    }
+    for (ParentData parentData : metaData.getParentDataList()) {
+      if (isRelated(parentData.getPropertyType(), entityType)) {
+        return true;
+      }
+    }
+    for (PermissionLinkData permissionLinkData : metaData.getPermissionLinkList()) {
+      if (isRelated(permissionLinkData.getPropertyType(), entityType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isRelated(Class<?> type, Class<?> otherType) {
+    return type.isAssignableFrom(otherType) || otherType.isAssignableFrom(type);
+  }
+
+  /**
+   * Called by the {@link AclEntityListener} before every query of a transaction. If the query reads the index, the
+   * pending changes are applied first.
+   */
+  @Override
+  public void beforeQuery(Set<?> querySpaces) {
+    for (Object querySpace : querySpaces) {
+      if (this.querySpaces.contains(querySpace)) {
+        synchronize();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Checks if the given permission of the given entity type can be checked via the index.
+   */
+  public boolean isIndexed(Class<?> javaType, String permission) {
+    return permissions.contains(permission) && indexedTypes.containsKey(javaType.getName());
+  }
+
+  /**
+   * Creates a semi-join predicate what selects the entities the given user has the given permission to. The pending
+   * changes of the current transaction are applied to the index when the query is executed.
+   */
+  public Predicate createIndexPredicate(From<?, ?> from, CommonAbstractCriteria query, CriteriaBuilder cb,
+      Object userId, String permission) {
+    Subquery<Long> subquery = query.subquery(Long.class);
+    Root<AclEffectivePermission> root = subquery.from(AclEffectivePermission.class);
+    subquery.select(root.get("entityId"));
+    subquery.where(cb.equal(root.get("userId"), ((Number) userId).longValue()),
+        cb.equal(root.get("entityType"), from.getJavaType().getName()), cb.equal(root.get("permission"), permission));
+    return from.get(getIdAttribute(from.getJavaType())).in(subquery);
+  }
+
+  /**
+   * Applies the pending changes of the current transaction to the index. The persistence context is flushed first if
+   * it's in AUTO flush mode (as any other query would do).
+   */
+  public void synchronize() {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      return;
+    }
+    if (em.getFlushMode() == FlushModeType.AUTO && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      em.flush();
+    }
+    PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pendingChanges != null) {
+      pendingChanges.process();
+    }
+  }
+
+  /**
+   * Recomputes the index of the given entity and all the entities whose permissions depend on it. It must be called in
+   * a transaction.
+   */
+  public void refresh(Object entity) {
+    process(Collections.singleton(createKey(entity)));
+  }
+
+  /**
+   * Drops and recomputes the whole index. It must be called in a transaction.
+   */
+  public void rebuild() {
+    LOG.info("Rebuilding permission-index");
+    em.createQuery("delete from " + AclEffectivePermission.class.getSimpleName()).executeUpdate();
+    for (Class<?> javaType : indexedTypes.values()) {
+      index(javaType);
+    }
+  }
+
+  /**
+   * Computes the index of all the entities of the given type. (The type must not have any rows in the index.)
+   */
+  private void index(Class<?> javaType) {
+    if (!hasPermissionRules(javaType)) {
+      return;
+    }
+    for (String permission : permissions) {
+      CriteriaBuilder cb = em.getCriteriaBuilder();
+      CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+      Root<?> user = query.from(aclLogic.getAclUserType());
+      Root<?> entity = query.from(javaType);
+      Path<?> userId = user.get(getIdAttribute(aclLogic.getAclUserType()));
+      query.multiselect(userId, entity.get(getIdAttribute(javaType))).distinct(true);
+      query.where(aclSpecification.toUserPredicate(entity, query, cb, userId, permission));
+      for (Object[] row : em.createQuery(query).getResultList()) {
+        insert(row[0], javaType, row[1], permission);
+      }
+    }
+  }
+
+  private void markChanged(Object entity) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      LOG.warn("Change of {} outside of a transaction cannot be indexed", entity);
+      return;
+    }
+    PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pendingChanges == null) {
+      pendingChanges = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, pendingChanges);
+      TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+    }
+    pendingChanges.add(createKey(entity));
+    // the permissions of the target depend on the link, but after a removal the link cannot be found via queries
+    if (entity instanceof PermissionLink && ((PermissionLink<?, ?>) entity).getTarget() != null) {
+      pendingChanges.add(createKey(((PermissionLink<?, ?>) entity).getTarget()));
+    }
+    if (entity instanceof BitmaskPermissionLink && ((BitmaskPermissionLink<?, ?>) entity).getTarget() != null) {
+      pendingChanges.add(createKey(((BitmaskPermissionLink<?, ?>) entity).getTarget()));
+    }
+  }
+
+  private EntityKey createKey(Object entity) {
+    return new EntityKey(ProxyUtils.getUserClass(entity),
+        em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity));
+  }
+
+  /**
+   * Recomputes the changed entities and - level by level - all the entities whose permissions depend on them.
+   */
+  private void process(Set<EntityKey> changed) {
+    Set<EntityKey> done = new HashSet<>();
+    Set<EntityKey> current = changed;
+    for (int depth = 0; !current.isEmpty(); depth++) {
+      Set<EntityKey> dependents = new LinkedHashSet<>();
+      for (EntityKey key : current) {
+        if (key.id == null || !indexedTypes.containsKey(key.type.getName()) || !done.add(key)) {
+          continue;
+        }
+        if (depth == 0 && AclUser.class.isAssignableFrom(key.type)) {
+          // A user could gain or lose permissions via its own associations. Recompute everything it has access to.
+          recomputeUser(key.id);
+        }
+        recompute(key);
+        if (depth <= maxDepth) {
+          dependents.addAll(findDependents(key));
+        }
+      }
+      current = dependents;
+    }
+  }
+
+  private void recompute(EntityKey key) {
+    LOG.trace("Recomputing permission-index of {}", key);
+    em.createQuery("delete from " + AclEffectivePermission.class.getSimpleName()
+        + " p where p.entityType = :entityType and p.entityId = :entityId")
+        .setParameter("entityType", key.type.getName()).setParameter("entityId", ((Number) key.id).longValue())
+        .executeUpdate();
+    if (!hasPermissionRules(key.type)) {
+      return;
+    }
+    for (String permission : permissions) {
+      CriteriaBuilder cb = em.getCriteriaBuilder();
+      CriteriaQuery<Object> query = cb.createQuery();
+      Root<?> user = query.from(aclLogic.getAclUserType());
+      Root<?> entity = query.from(key.type);
+      Path<?> userId = user.get(getIdAttribute(aclLogic.getAclUserType()));
+      query.select(userId).distinct(true);
+      query.where(cb.equal(entity.get(getIdAttribute(key.type)), key.id),
+          aclSpecification.toUserPredicate(entity, query, cb, userId, permission));
+      for (Object id : em.createQuery(query).getResultList()) {
+        insert(id, key.type, key.id, permission);
+      }
+    }
+  }
+
+  private void insert(Object userId, Class<?> javaType, Object entityId, String permission) {
+    em.createNativeQuery(INSERT_SQL).setParameter(1, ((Number) userId).longValue())
+        .setParameter(2, javaType.getName()).setParameter(3, ((Number) entityId).longValue())
+        .setParameter(4, permission).executeUpdate();
+  }
+
+  /**
+   * Recomputes all the indexed permissions of the given user.
+   */
+  private void recomputeUser(Object userId) {
+    LOG.trace("Recomputing permission-index of user {}", userId);
+    em.createQuery("delete from " + AclEffectivePermission.class.getSimpleName() + " p where p.userId = :userId")
+        .setParameter("userId", ((Number) userId).longValue()).executeUpdate();
+    for (Class<?> javaType : indexedTypes.values()) {
+      if (!hasPermissionRules(javaType)) {
+        continue;
+      }
+      for (String permission : permissions) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object> query = cb.createQuery();
+        Root<?> entity = query.from(javaType);
+        query.select(entity.get(getIdAttribute(javaType))).distinct(true);
+        query.where(aclSpecification.toUserPredicate(entity, query, cb, cb.literal(userId), permission));
+        for (Object id : em.createQuery(query).getResultList()) {
+          insert(userId, javaType, id, permission);
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the entities whose owner-collection, owner-group or parent association refers to the given entity.
+   */
+  private Set<EntityKey> findDependents(EntityKey key) {
+    Set<EntityKey> keys = new LinkedHashSet<>();
+    for (Class<?> javaType : indexedTypes.values()) {
+      AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(javaType);
+      for (OwnerData ownerData : metaData.getOwnerDataList()) {
+        if (ownerData.isCollection() && ownerData.getPropertyType().isAssignableFrom(key.type)) {
+          keys.addAll(findReferrers(javaType, ownerData.getPropertyName(), key));
+        }
+      }
+      for (OwnerData ownerGroupData : metaData.getOwnerGroupDataList()) {
+        if (ownerGroupData.getPropertyType().isAssignableFrom(key.type)) {
+          keys.addAll(findReferrers(javaType, ownerGroupData.getPropertyName(), key));
+        }
+      }
+      for (ParentData parentData : metaData.getParentDataList()) {
+        if (parentData.getPropertyType().isAssignableFrom(key.type)) {
+          keys.addAll(findReferrers(javaType, parentData.getPropertyName(), key));
+        }
+      }
+    }
+    return keys;
+  }
+
+  private Set<EntityKey> findReferrers(Class<?> javaType, String propertyName, EntityKey key) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Object> query = cb.createQuery();
+    Root<?> root = query.from(javaType);
+    query.select(root.get(getIdAttribute(javaType))).distinct(true);
+    query.where(cb.equal(root.join(propertyName).get(getIdAttribute(key.type).getName()), key.id));
+    Set<EntityKey> keys = new LinkedHashSet<>();
+    for (Object id : em.createQuery(query).getResultList()) {
+      keys.add(new EntityKey(javaType, id));
+    }
+    return keys;
+  }
+
+  private boolean hasPermissionRules(Class<?> javaType) {
+    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(javaType);
+    return AclUser.class.isAssignableFrom(javaType) || !metaData.getOwnerDataList().isEmpty()
+        || !metaData.getOwnerGroupDataList().isEmpty() || !metaData.getParentDataList().isEmpty()
+        || !metaData.getPermissionLinkList().isEmpty();
+  }
+
+  private SingularAttribute<? super Object, ?> getIdAttribute(Class<?> javaType) {
+    return aclMetaData.getAclEntityMetaData(javaType).getIdAttribute();
+  }
+
+  private boolean isIntegral(Class<?> javaType) {
+    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(javaType);
+    return metaData != null && INTEGRAL_TYPES.contains(metaData.getIdAttribute().getJavaType());
+  }
+
+  /**
+   * The changed entities of a transaction. They are processed before the next indexed query, before commit or after
+   * commit if the changes were flushed during the commit.
+   */
+  private class PendingChanges extends TransactionSynchronizationAdapter {
+
+    private Set<EntityKey> changed = new LinkedHashSet<>();
+
+    private boolean processing;
+
+    void add(EntityKey key) {
+      changed.add(key);
+    }
+
+    void process() {
+      if (processing) {
+        // The queries of the processing are also reported to the index
+        return;
+      }
+      processing = true;
+      try {
+        while (!changed.isEmpty()) {
+          // Processing could flush new changes, so we loop until everything is indexed
+          Set<EntityKey> keys = changed;
+          changed = new LinkedHashSet<>();
+          AclPermissionIndex.this.process(keys);
+        }
+      } finally {
+        processing = false;
+      }
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      if (!readOnly) {
+        synchronize();
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AclPermissionIndex.this);
+      if (!changed.isEmpty()) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.execute(status -> {
+          process();
+          return null;
+        });
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(AclPermissionIndex.this);
+    }
+  }
+
+  private static class EntityKey {
+    private final Class<?> type;
+    private final Object id;
+
+    EntityKey(Class<?> type, Object id) {
+      this.type = type;
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof EntityKey)) {
+        return false;
+      }
+      EntityKey other = (EntityKey) obj;
+      return type.equals(other.type) && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public String toString() {
+      return type.getName() + "#" + id;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.metrics;
+
+/**
+ * The way the permission of a query was decided.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public enum AclDecisionPath {
+
+    /**
+     * Access granted by an {@code @AclRolePermission} rule: no predicates are needed.
+     */
+    ROLE_GRANTED,
+
+    /**
+     * Access denied by the missing {@code @AclRoleCondition} roles or by the missing ACL user.
+     */
+    ROLE_DENIED,
+
+    /**
+     * The permission is checked by the ACL predicates.
+     */
+    PREDICATE,
+
+    /**
+     * The permission is checked by the materialized permission-index.
+     */
+    INDEX
+
+}
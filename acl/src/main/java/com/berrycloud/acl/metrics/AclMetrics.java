@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.metrics;
+
+import com.berrycloud.acl.AclSpecification;
+
+/**
+ * Instrumentation hooks of the ACL engine. The default methods don't do anything, so the ACL works without any
+ * metrics library. If Micrometer and the {@code acl-micrometer} module are on the classpath then a Micrometer based
+ * implementation is configured automatically.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public interface AclMetrics {
+
+    /**
+     * Metrics implementation what doesn't record anything.
+     */
+    AclMetrics NOOP = new AclMetrics() {
+    };
+
+    /**
+     * Called after an ACL query (including the ACL predicates) was created.
+     *
+     * @param source
+     *            the creator of the query: {@code "query"} or {@code "count"} (repository methods),
+     *            {@code "part-tree"} or {@code "part-tree-count"} (derived query methods)
+     */
+    default void recordQueryCreation(String source, Class<?> domainType, String permission, long nanos) {
+    }
+
+    /**
+     * Called after the {@link AclSpecification} decided how the permission of a query is checked.
+     *
+     * @param joinCount
+     *            the number of joins in the emitted predicates (zero if no predicates were emitted)
+     * @param branchCount
+     *            the number of OR branches in the emitted predicates (zero if no predicates were emitted)
+     */
+    default void recordPredicate(Class<?> domainType, String permission, AclDecisionPath path, int joinCount,
+            int branchCount) {
+    }
+
+    /**
+     * Called after a single-object permission check of the {@code AclPermissionEvaluator}.
+     */
+    default void recordPermissionCheck(Class<?> domainType, String permission, boolean permitted, long nanos) {
+    }
+
+    /**
+     * Called after an {@code AclUserDetails} was loaded.
+     *
+     * @param cached
+     *            true if the user-details was served from the user-cache
+     */
+    default void recordUserDetailsLoad(boolean cached, long nanos) {
+    }
+}
@@ -17,9 +17,12 @@ package com.berrycloud.acl.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityNotFoundException;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.security.access.PermissionEvaluator;
@@ -46,6 +49,18 @@ public interface AclJpaRepository<T, ID> extends PropertyRepository<T, ID>, JpaR
      */
     Optional<T> findById(ID id, String permission);
 
+    /**
+     * Checks whether the entity with the given id exists and the current user has the given permission to it. The
+     * entity is not loaded: the query selects a constant and returns at most one row.
+     *
+     * @param id
+     *            the id of the entity
+     * @param permission
+     *            the permission we check against
+     * @return true if the entity exists and the current user has the given permission to it
+     */
+    boolean exists(ID id, String permission);
+
     /**
      * Find an entity by id with testing the current user's permission against the given permission during
      * permission-check
@@ -71,6 +86,89 @@ public interface AclJpaRepository<T, ID> extends PropertyRepository<T, ID>, JpaR
 
     List<T> findAllById(Iterable<ID> ids, String permission);
 
+    /**
+     * Keyset (seek) pagination: returns the next at most {@code limit} entities matching the given specification and
+     * permission which follow the given keyset in the order of the given sort. Unlike the offset based paging the cost
+     * of this query doesn't grow with the number of the already read rows. The id of the entity is always appended to
+     * the sort as the last (tiebreaker) key if it's not part of the sort already, so the order is total. The sort
+     * properties should be single-valued attributes. The {@literal null} values of the nullable properties are sorted
+     * last, or first if {@link org.springframework.data.domain.Sort.NullHandling#NULLS_FIRST} is requested.
+     *
+     * @param spec
+     *            additional specification (can be {@literal null})
+     * @param sort
+     *            the sort keys
+     * @param lastSeenValues
+     *            the values of the keys (including the appended id) of the last seen entity or {@literal null} for
+     *            the first chunk. (See {@link #getKeysetValues(Object, Sort)}.)
+     * @param limit
+     *            the maximum number of the returned entities
+     * @param permission
+     *            the permission we check against
+     * @return the next chunk of the entities
+     */
+    List<T> findAllAfter(Specification<T> spec, Sort sort, List<?> lastSeenValues, int limit, String permission);
+
+    /**
+     * Returns the values of the keyset of the given entity what can be used as the {@code lastSeenValues} argument of
+     * {@link #findAllAfter(Specification, Sort, List, int, String)}.
+     *
+     * @param entity
+     *            the last seen entity
+     * @param sort
+     *            the sort keys
+     * @return the values of the sort keys and the id of the entity
+     */
+    List<Object> getKeysetValues(T entity, Sort sort);
+
+    /**
+     * Streams all the entities matching the given specification and permission. The query is executed with a
+     * forward-only cursor and the JDBC fetch size ({@code spring.data.jpa.acl.stream.fetch-size}), and the streamed
+     * entities are detached after every fetch-size entities, so the memory usage doesn't depend on the size of the
+     * result. (The persistence context is flushed before, and the other managed entities are not detached.)
+     * <p>
+     * This method must be called within a transaction which is kept open while the stream is consumed, and the stream
+     * must be closed after usage (e.g. with a try-with-resources block).
+     *
+     * @param spec
+     *            additional specification (can be {@literal null})
+     * @param permission
+     *            the permission we check against
+     * @return the stream of the entities
+     */
+    Stream<T> streamAll(Specification<T> spec, String permission);
+
+    /**
+     * Passes all the entities matching the given specification and permission to the consumer in chunks of the given
+     * size. The entities of the previous chunk are detached after every chunk.
+     * (See {@link #streamAll(Specification, String)}.)
+     *
+     * @param spec
+     *            additional specification (can be {@literal null})
+     * @param permission
+     *            the permission we check against
+     * @param chunkSize
+     *            the maximum size of the chunks
+     * @param consumer
+     *            the consumer of the chunks
+     */
+    void forEachChunk(Specification<T> spec, String permission, int chunkSize, Consumer<? super List<T>> consumer);
+
+    /**
+     * Deletes all the entities matching the given specification which the current user has DELETE permission to,
+     * using set-based {@code DELETE ... WHERE id IN (SELECT id ... WHERE <acl predicate>)} statements. The entities are
+     * not loaded, so no cascades or entity listeners are executed. The table is processed in id ranges of
+     * {@code spring.data.jpa.acl.delete-chunk-size} rows.
+     * <p>
+     * The specification is applied to the root of the sub-query. The query argument it gets is a stand-in query, so
+     * it must not change or rely on the selection.
+     *
+     * @param spec
+     *            additional specification (can be {@literal null})
+     * @return the number of the deleted entities
+     */
+    long deleteAllInBatch(Specification<T> spec);
+
     /**
      * Delete the entity without permission check. This method should be used with extreme caution. The permission
      * should be checked manually before using this method. (I.e. methods protected by {@link PreAuthorize} annotation.)
@@ -33,6 +33,7 @@ import org.springframework.data.repository.query.QueryMethodEvaluationContextPro
 import org.springframework.data.repository.query.QueryLookupStrategy.Key;
 
 import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.security.access.AclPermissionDecisionCache;
 
 /**
  * JPA ACL repository factory.
@@ -43,6 +44,12 @@ import com.berrycloud.acl.AclSpecification;
 public class AclJpaRepositoryFactory extends JpaRepositoryFactory {
 
     private AclSpecification aclSpecification;
+    private AclPermissionDecisionCache permissionDecisionCache;
+    private int streamFetchSize = SimpleAclJpaRepository.DEFAULT_STREAM_FETCH_SIZE;
+    private int deleteChunkSize = SimpleAclJpaRepository.DEFAULT_DELETE_CHUNK_SIZE;
+    private int maxInListSize = SimpleAclJpaRepository.DEFAULT_MAX_IN_LIST_SIZE;
+    private boolean twoPhasePagination;
+    private boolean detachStreamedEntities;
     private EntityManager entityManager;
     private final QueryExtractor extractor;
     private EscapeCharacter escapeCharacter = EscapeCharacter.of('\\');
@@ -65,6 +72,48 @@ public class AclJpaRepositoryFactory extends JpaRepositoryFactory {
       this.escapeCharacter = escapeCharacter;
     }
     
+    /**
+     * Sets the (optional) permission decision cache of the created repositories.
+     */
+    public void setPermissionDecisionCache(AclPermissionDecisionCache permissionDecisionCache) {
+        this.permissionDecisionCache = permissionDecisionCache;
+    }
+
+    /**
+     * Sets the JDBC fetch size (and the detaching interval) of the streaming queries.
+     */
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * Sets the size of the id ranges of the set-based deletes.
+     */
+    public void setDeleteChunkSize(int deleteChunkSize) {
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    /**
+     * Sets the maximum number of ids in a single IN-list.
+     */
+    public void setMaxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+    }
+
+    /**
+     * Sets whether the pages are read in two phases (the ids of the page first, then the entities).
+     */
+    public void setTwoPhasePagination(boolean twoPhasePagination) {
+        this.twoPhasePagination = twoPhasePagination;
+    }
+
+    /**
+     * Sets whether the derived query methods returning a {@code Stream} detach the streamed entities periodically.
+     */
+    public void setDetachStreamedEntities(boolean detachStreamedEntities) {
+        this.detachStreamedEntities = detachStreamedEntities;
+    }
+
     @Override
     protected Class<?> getRepositoryBaseClass(RepositoryMetadata metadata) {
         return SimpleAclJpaRepository.class;
@@ -81,6 +130,11 @@ public class AclJpaRepositoryFactory extends JpaRepositoryFactory {
       JpaRepositoryImplementation<?, ?> repository = super.getTargetRepository(information, entityManager);
         ((SimpleAclJpaRepository<?, ?>) repository)
                 .setAclSpecification(isAclRepository(information) ? aclSpecification : null);
+        ((SimpleAclJpaRepository<?, ?>) repository).setPermissionDecisionCache(permissionDecisionCache);
+        ((SimpleAclJpaRepository<?, ?>) repository).setStreamFetchSize(streamFetchSize);
+        ((SimpleAclJpaRepository<?, ?>) repository).setDeleteChunkSize(deleteChunkSize);
+        ((SimpleAclJpaRepository<?, ?>) repository).setMaxInListSize(maxInListSize);
+        ((SimpleAclJpaRepository<?, ?>) repository).setTwoPhasePagination(twoPhasePagination);
         return repository;
     }
 
@@ -88,7 +142,8 @@ public class AclJpaRepositoryFactory extends JpaRepositoryFactory {
     protected Optional<QueryLookupStrategy> getQueryLookupStrategy(Key key,
         QueryMethodEvaluationContextProvider evaluationContextProvider) {
         return Optional.of(AclJpaQueryLookupStrategy.create(entityManager, key, extractor, evaluationContextProvider,
-              escapeCharacter, aclSpecification));
+              escapeCharacter, aclSpecification, streamFetchSize, maxInListSize, twoPhasePagination,
+              detachStreamedEntities));
     }
 
 }
@@ -18,11 +18,15 @@ package com.berrycloud.acl.repository;
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.jpa.repository.support.SimpleAclJpaRepository;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 
 import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.security.access.AclPermissionDecisionCache;
 
 /**
  * Adapter for aclRepository factories.
@@ -35,13 +39,38 @@ public class AclJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
     @Resource
     AclSpecification aclSpecification;
 
+    @Autowired(required = false)
+    AclPermissionDecisionCache permissionDecisionCache;
+
+    @Value("${spring.data.jpa.acl.stream.fetch-size:" + SimpleAclJpaRepository.DEFAULT_STREAM_FETCH_SIZE + "}")
+    int streamFetchSize;
+
+    @Value("${spring.data.jpa.acl.delete-chunk-size:" + SimpleAclJpaRepository.DEFAULT_DELETE_CHUNK_SIZE + "}")
+    int deleteChunkSize;
+
+    @Value("${spring.data.jpa.acl.max-in-list-size:" + SimpleAclJpaRepository.DEFAULT_MAX_IN_LIST_SIZE + "}")
+    int maxInListSize;
+
+    @Value("${spring.data.jpa.acl.two-phase-pagination:false}")
+    boolean twoPhasePagination;
+
+    @Value("${spring.data.jpa.acl.stream.detach-derived-queries:true}")
+    boolean detachStreamedEntities;
+
     public AclJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
         super(repositoryInterface);
     }
 
     @Override
     protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
-        return new AclJpaRepositoryFactory(entityManager, aclSpecification);
+        AclJpaRepositoryFactory factory = new AclJpaRepositoryFactory(entityManager, aclSpecification);
+        factory.setPermissionDecisionCache(permissionDecisionCache);
+        factory.setStreamFetchSize(streamFetchSize);
+        factory.setDeleteChunkSize(deleteChunkSize);
+        factory.setMaxInListSize(maxInListSize);
+        factory.setTwoPhasePagination(twoPhasePagination);
+        factory.setDetachStreamedEntities(detachStreamedEntities);
+        return factory;
     }
 
 }
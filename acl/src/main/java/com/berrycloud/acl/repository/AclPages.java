@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+
+/**
+ * Helper methods for the two-phase (id-first) pagination of the ACL queries. The first phase selects only the ids of
+ * the requested page, so the database sorts (and groups) only narrow id rows instead of whole entity rows. The second
+ * phase fetches the entities by their ids and restores the order of the first phase.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public final class AclPages {
+
+    private AclPages() {
+    }
+
+    /**
+     * Orders the given id query by the given orders. If the query is distinct (because of the ACL joins) then it's
+     * grouped by the id instead, and the orders are applied to the aggregated sort keys. (A distinct query could be
+     * ordered only by selected expressions.) The sort keys are single-valued for every id, so the aggregation doesn't
+     * change the order.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static void orderIds(CriteriaQuery<?> query, CriteriaBuilder cb, Path<?> id, List<Order> orders) {
+        if (!query.isDistinct()) {
+            query.orderBy(orders);
+            return;
+        }
+        query.distinct(false);
+        query.groupBy(id);
+        List<Order> aggregatedOrders = new ArrayList<>();
+        for (Order order : orders) {
+            Expression<Comparable> key = cb.greatest((Expression<Comparable>) order.getExpression());
+            aggregatedOrders.add(order.isAscending() ? cb.asc(key) : cb.desc(key));
+        }
+        query.orderBy(aggregatedOrders);
+    }
+
+    /**
+     * Fetches the entities of the given ids in chunks and returns them in the order of the ids.
+     *
+     * @param ids
+     *            the ids of the entities in the expected order
+     * @param chunkSize
+     *            the maximum number of ids in a single fetch
+     * @param loader
+     *            fetches the entities of a chunk of ids (in any order)
+     * @param idGetter
+     *            returns the id of an entity
+     * @return the entities in the order of the ids
+     */
+    public static <T> List<T> fetchByIds(List<?> ids, int chunkSize, Function<List<?>, List<T>> loader,
+            Function<T, Object> idGetter) {
+        Map<Object, T> entities = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            for (T entity : loader.apply(ids.subList(i, Math.min(i + chunkSize, ids.size())))) {
+                entities.put(idGetter.apply(entity), entity);
+            }
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+}
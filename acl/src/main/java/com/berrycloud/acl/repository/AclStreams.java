@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.hibernate.proxy.HibernateProxyHelper;
+import org.springframework.data.jpa.provider.PersistenceProvider;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
+
+/**
+ * Helper methods for streaming the results of the ACL queries. The queries are executed with the JDBC fetch size and
+ * a forward-only cursor (by the {@link PersistenceProvider}), and the streamed entities are detached periodically while
+ * the stream is consumed, so the memory usage doesn't depend on the size of the result. The persistence context is
+ * flushed before the entities are detached, so the changes of the streamed entities are not lost, and the other
+ * entities of the persistence context are kept managed.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public final class AclStreams {
+
+    /**
+     * The JDBC fetch size query hint of Hibernate.
+     */
+    public static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+
+    private AclStreams() {
+    }
+
+    /**
+     * Executes the given query as a stream. The stream must be closed after usage and it must be consumed within the
+     * transaction that executed the query.
+     *
+     * @param query
+     *            the query to execute
+     * @param em
+     *            the entity manager of the query
+     * @param fetchSize
+     *            the JDBC fetch size and also the number of the entities after the streamed entities are detached
+     * @return the stream of the results
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Stream<T> stream(Query query, EntityManager em, int fetchSize) {
+        query.setHint(FETCH_SIZE_HINT, fetchSize);
+        CloseableIterator<Object> iterator = PersistenceProvider.fromEntityManager(em)
+                .executeQueryWithResultStream(query);
+        return StreamUtils.createStreamFromIterator(new DetachingIterator<>((CloseableIterator<T>) iterator, em,
+                fetchSize));
+    }
+
+    /**
+     * Wraps the given (already executed) stream so the streamed entities are detached after every
+     * {@code detachInterval} elements.
+     */
+    public static <T> Stream<T> detaching(Stream<T> stream, EntityManager em, int detachInterval) {
+        Iterator<T> iterator = stream.iterator();
+        return StreamUtils.createStreamFromIterator(new DetachingIterator<>(new CloseableIterator<T>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                stream.close();
+            }
+        }, em, detachInterval));
+    }
+
+    /**
+     * Flushes the persistence context and detaches the entities of the previous chunk before fetching the first
+     * element of the next chunk. (The cursor is advanced by {@code hasNext}.) The elements are consumed sequentially,
+     * so the previous chunk is already processed by then.
+     */
+    private static class DetachingIterator<T> implements CloseableIterator<T> {
+
+        private final CloseableIterator<T> delegate;
+        private final EntityManager em;
+        private final int detachInterval;
+        private final List<Object> chunk = new ArrayList<>();
+        private Class<?> lastType;
+        private boolean lastTypeIsEntity;
+
+        DetachingIterator(CloseableIterator<T> delegate, EntityManager em, int detachInterval) {
+            this.delegate = delegate;
+            this.em = em;
+            this.detachInterval = detachInterval;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (detachInterval > 0 && chunk.size() >= detachInterval) {
+                detachChunk();
+            }
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            T element = delegate.next();
+            if (detachInterval > 0 && element != null && isEntity(element)) {
+                chunk.add(element);
+            }
+            return element;
+        }
+
+        private boolean isEntity(Object element) {
+            // The elements are usually of the same type, so the result of the last check is reused
+            Class<?> type = HibernateProxyHelper.getClassWithoutInitializingProxy(element);
+            if (type != lastType) {
+                lastType = type;
+                try {
+                    em.getMetamodel().entity(type);
+                    lastTypeIsEntity = true;
+                } catch (IllegalArgumentException e) {
+                    lastTypeIsEntity = false;
+                }
+            }
+            return lastTypeIsEntity;
+        }
+
+        private void detachChunk() {
+            em.flush();
+            for (Object entity : chunk) {
+                if (em.contains(entity)) {
+                    em.detach(entity);
+                }
+            }
+            chunk.clear();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -15,7 +15,10 @@
  */
 package com.berrycloud.acl.repository;
 
+import java.util.List;
+
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.PersistentProperty;
 import org.springframework.security.access.prepost.PreAuthorize;
 
@@ -27,6 +30,13 @@ public interface PropertyRepository<T, ID> {
 
     Object findPropertyComplement(ID id, PersistentProperty<? extends PersistentProperty<?>> property, Pageable pageable);
 
+    /**
+     * Keyset (seek) version of {@link #findProperty(Object, PersistentProperty, Pageable)} for collection-like
+     * properties. (See {@link AclJpaRepository#findAllAfter}.)
+     */
+    List<?> findPropertyAfter(ID id, PersistentProperty<? extends PersistentProperty<?>> property, Sort sort,
+            List<?> lastSeenValues, int limit);
+
     /**
      * Helper method for calling clear on the EntityManager.
      *
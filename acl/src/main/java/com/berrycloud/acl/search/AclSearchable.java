@@ -38,4 +38,10 @@ import java.lang.annotation.Target;
 @Documented
 public @interface AclSearchable {
 
+  /**
+   * Name of a string property of the same entity which stores the normalized (lowercased and accent-folded) value of
+   * this property. If {@code spring.data.jpa.acl.search.shadow-columns.enabled} is set, the shadow property is
+   * maintained automatically and the search reads it instead of lowercasing this property in every row.
+   */
+  String shadow() default "";
 }
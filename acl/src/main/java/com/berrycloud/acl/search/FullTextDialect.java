@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+
+/**
+ * <p>
+ * The native full-text engine of a database.
+ * </p>
+ * It renders the SQL of the {@link FullTextSearchFunction}s and creates the DDL of the full-text indexes of the
+ * {@link AclSearchable} columns. The match and the score expressions must have exactly the same form as the indexed
+ * expression, otherwise the database cannot use the index.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public interface FullTextDialect {
+
+  /**
+   * Creates the query string of the engine from the lowercase search words. All the words must match as prefixes.
+   */
+  String createQuery(List<String> patterns);
+
+  /**
+   * Renders the boolean match expression of the given columns and the given (rendered) query.
+   */
+  String renderMatch(List<String> columns, String query);
+
+  /**
+   * Renders the relevance of the given columns for the given (rendered) query.
+   */
+  String renderScore(List<String> columns, String query);
+
+  /**
+   * Creates the DDL statements of the full-text index of the given columns.
+   */
+  List<String> createIndexStatements(String table, List<String> columns);
+
+  /**
+   * Returns the full-text engine of the given Hibernate dialect or {@literal null} if it's not supported.
+   */
+  static FullTextDialect of(Dialect dialect) {
+    if (dialect instanceof PostgreSQL81Dialect) {
+      return new PostgreSQLFullTextDialect();
+    }
+    if (dialect instanceof MySQLDialect) {
+      return new MySQLFullTextDialect();
+    }
+    return null;
+  }
+
+  /**
+   * Drops all the characters of the words which could have special meaning in the query string of the engines.
+   */
+  static List<String> sanitize(List<String> patterns) {
+    return patterns.stream().map(p -> p.replaceAll("[^\\p{L}\\p{N}]", "")).filter(p -> !p.isEmpty())
+        .collect(Collectors.toList());
+  }
+}
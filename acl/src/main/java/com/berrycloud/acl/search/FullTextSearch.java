@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Predicate;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.data.AclMetaData;
+
+/**
+ * <p>
+ * Database-native full-text search of the {@link AclSearchable} properties.
+ * </p>
+ * The match and the relevance expressions are rendered by the {@link FullTextDialect} of the database. The full-text
+ * indexes of the searchable columns are created on startup, unless
+ * {@code spring.data.jpa.acl.search.full-text.create-indexes} is set to false. If the database has no supported
+ * full-text engine, then the inbuilt search expression is used.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class FullTextSearch {
+
+  private static Logger LOG = LoggerFactory.getLogger(FullTextSearch.class);
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${spring.data.jpa.acl.search.full-text.create-indexes:true}")
+  private boolean createIndexes = true;
+
+  private FullTextDialect dialect;
+
+  @PostConstruct
+  public void init() {
+    SessionFactoryImplementor sessionFactory = getSessionFactory();
+    dialect = FullTextDialect.of(sessionFactory.getJdbcServices().getDialect());
+    if (dialect == null) {
+      LOG.info("Full-text search is not supported by {}. The inbuilt search is used.",
+          sessionFactory.getJdbcServices().getDialect());
+    } else if (sessionFactory.getSqlFunctionRegistry().findSQLFunction(FullTextSearchFunction.MATCH_FUNCTION) == null) {
+      LOG.warn("Full-text search functions are not registered (the AclPersistenceUnitPostProcessor is not applied?)."
+          + " The inbuilt search is used.");
+      dialect = null;
+    }
+  }
+
+  /**
+   * Returns true if the database has a supported full-text engine.
+   */
+  public boolean isSupported() {
+    return dialect != null;
+  }
+
+  /**
+   * Creates the query string of the full-text engine. It returns an empty string if none of the patterns can be used.
+   */
+  public String createQuery(List<String> patterns) {
+    return dialect.createQuery(patterns);
+  }
+
+  /**
+   * Creates the predicate matching the entities where all the words of the query can be found in the given
+   * properties.
+   */
+  public Predicate createPredicate(CriteriaBuilder cb, From<?, ?> from, List<String> properties, String query) {
+    return cb.isTrue(cb.function(FullTextSearchFunction.MATCH_FUNCTION, Boolean.class,
+        createArguments(cb, from, properties, query)));
+  }
+
+  /**
+   * Creates the relevance of the given properties for the query.
+   */
+  public Expression<Number> createScore(CriteriaBuilder cb, From<?, ?> from, List<String> properties, String query) {
+    return cb.function(FullTextSearchFunction.SCORE_FUNCTION, Number.class,
+        createArguments(cb, from, properties, query));
+  }
+
+  private static Expression<?>[] createArguments(CriteriaBuilder cb, From<?, ?> from, List<String> properties,
+      String query) {
+    List<Expression<?>> arguments = new ArrayList<>();
+    for (String property : properties) {
+      arguments.add(from.get(property));
+    }
+    arguments.add(cb.literal(query));
+    return arguments.toArray(new Expression<?>[arguments.size()]);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void createIndexesOnStartup() {
+    if (dialect == null) {
+      return;
+    }
+    for (String statement : createIndexStatements()) {
+      if (!createIndexes) {
+        LOG.info("Full-text index should be created: {}", statement);
+        continue;
+      }
+      try {
+        new TransactionTemplate(transactionManager).execute(status -> em.createNativeQuery(statement).executeUpdate());
+        LOG.debug("Full-text index is created: {}", statement);
+      } catch (RuntimeException e) {
+        // The index probably exists already
+        LOG.info("Cannot create full-text index: {} ({})", statement, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Creates the DDL of the full-text indexes of the searchable columns. (One index per table.)
+   */
+  private List<String> createIndexStatements() {
+    SessionFactoryImplementor sessionFactory = getSessionFactory();
+    Map<String, List<String>> tables = new LinkedHashMap<>();
+    for (Class<?> javaType : aclMetaData.getEntityTypes()) {
+      List<String> properties = aclMetaData.getAclEntityMetaData(javaType).getSearchableAttributes();
+      if (properties.isEmpty()) {
+        continue;
+      }
+      EntityPersister persister = sessionFactory.getMetamodel().entityPersister(javaType);
+      if (!(persister instanceof AbstractEntityPersister)) {
+        continue;
+      }
+      AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+      String table = entityPersister.getPropertyTableName(properties.get(0));
+      List<String> columns = new ArrayList<>();
+      for (String property : properties) {
+        if (!table.equals(entityPersister.getPropertyTableName(property))) {
+          LOG.warn("Searchable properties of {} are in different tables. Full-text index is not created.", javaType);
+          columns = null;
+          break;
+        }
+        columns.add(entityPersister.getPropertyColumnNames(property)[0]);
+      }
+      if (columns != null) {
+        tables.putIfAbsent(table, columns);
+      }
+    }
+    List<String> statements = new ArrayList<>();
+    tables.forEach((table, columns) -> statements.addAll(dialect.createIndexStatements(table, columns)));
+    return statements;
+  }
+
+  private SessionFactoryImplementor getSessionFactory() {
+    return em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+  }
+}
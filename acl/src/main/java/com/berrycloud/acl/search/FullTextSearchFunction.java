@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.List;
+
+import org.hibernate.QueryException;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.FloatType;
+import org.hibernate.type.Type;
+
+/**
+ * <p>
+ * The {@code acl_fulltext_match} and {@code acl_fulltext_score} query functions.
+ * </p>
+ * Their arguments are the searchable columns followed by the query string. They are rendered by the
+ * {@link FullTextDialect} of the current database. The arguments are rendered in the original order, so the bound
+ * parameters keep their positions.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class FullTextSearchFunction implements SQLFunction {
+
+  public static final String MATCH_FUNCTION = "acl_fulltext_match";
+
+  public static final String SCORE_FUNCTION = "acl_fulltext_score";
+
+  private final boolean score;
+
+  public FullTextSearchFunction(boolean score) {
+    this.score = score;
+  }
+
+  @Override
+  public boolean hasArguments() {
+    return true;
+  }
+
+  @Override
+  public boolean hasParenthesesIfNoArguments() {
+    return true;
+  }
+
+  @Override
+  public Type getReturnType(Type firstArgumentType, Mapping mapping) {
+    return score ? FloatType.INSTANCE : BooleanType.INSTANCE;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public String render(Type firstArgumentType, @SuppressWarnings("rawtypes") List arguments,
+      SessionFactoryImplementor factory) {
+    FullTextDialect dialect = FullTextDialect.of(factory.getJdbcServices().getDialect());
+    if (dialect == null) {
+      throw new QueryException("Full-text search is not supported by " + factory.getJdbcServices().getDialect());
+    }
+    if (arguments.size() < 2) {
+      throw new QueryException("Full-text search functions need at least one column and a query argument");
+    }
+    List<String> columns = arguments.subList(0, arguments.size() - 1);
+    String query = (String) arguments.get(arguments.size() - 1);
+    return score ? dialect.renderScore(columns, query) : dialect.renderMatch(columns, query);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL full-text search: {@code MATCH ... AGAINST} in boolean mode on a {@code FULLTEXT} index of the searchable
+ * columns.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class MySQLFullTextDialect implements FullTextDialect {
+
+  @Override
+  public String createQuery(List<String> patterns) {
+    return FullTextDialect.sanitize(patterns).stream().map(p -> "+" + p + "*").collect(Collectors.joining(" "));
+  }
+
+  @Override
+  public String renderMatch(List<String> columns, String query) {
+    // Hibernate compares the match with true. The trailing 'and 1' keeps MATCH at the top level of the condition (so
+    // the index can be used) instead of comparing its relevance with 1.
+    return renderScore(columns, query) + " and 1";
+  }
+
+  @Override
+  public String renderScore(List<String> columns, String query) {
+    return "match(" + String.join(", ", columns) + ") against(" + query + " in boolean mode)";
+  }
+
+  @Override
+  public List<String> createIndexStatements(String table, List<String> columns) {
+    return Collections.singletonList(
+        "create fulltext index acl_ft_" + table + " on " + table + " (" + String.join(", ", columns) + ")");
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * PostgreSQL text search: {@code to_tsvector(...) @@ to_tsquery(...)} matches and {@code ts_rank} scores on a GIN
+ * expression index. The {@code simple} configuration is used, so the words are not stemmed (just like in the inbuilt
+ * search).
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class PostgreSQLFullTextDialect implements FullTextDialect {
+
+  private static final String CONFIGURATION = "'simple'";
+
+  @Override
+  public String createQuery(List<String> patterns) {
+    return FullTextDialect.sanitize(patterns).stream().map(p -> p + ":*").collect(Collectors.joining(" & "));
+  }
+
+  @Override
+  public String renderMatch(List<String> columns, String query) {
+    return "(" + renderVector(columns) + " @@ to_tsquery(" + CONFIGURATION + ", " + query + "))";
+  }
+
+  @Override
+  public String renderScore(List<String> columns, String query) {
+    return "ts_rank(" + renderVector(columns) + ", to_tsquery(" + CONFIGURATION + ", " + query + "))";
+  }
+
+  @Override
+  public List<String> createIndexStatements(String table, List<String> columns) {
+    return Collections.singletonList("create index if not exists acl_ft_" + table + " on " + table + " using gin ("
+        + renderVector(columns) + ")");
+  }
+
+  private static String renderVector(List<String> columns) {
+    return "to_tsvector(" + CONFIGURATION + ", "
+        + columns.stream().map(c -> "coalesce(" + c + ", '')").collect(Collectors.joining(" || ' ' || ")) + ")";
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * SPI of the external full-text search backends of the {@link AclSearchable} properties.
+ * </p>
+ * By default the search patterns are matched by the DB itself (with {@code LOCATE} expressions on every searchable
+ * column), what always needs a full scan of the table. If a {@link SearchBackend} bean is defined and it supports the
+ * searched entity type, then the backend is asked for the best matching ids the current user has permission to, and
+ * the ACL query is restricted to these ids (and ordered by their scores). So the permission-checks are still done by the
+ * DB, but the table is never scanned.
+ * <p>
+ * The backend must keep its index up to date by itself (see {@link com.berrycloud.acl.AclEntityListener}).
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public interface SearchBackend {
+
+  /**
+   * Checks whether the given entity type is handled by this backend.
+   */
+  boolean supports(Class<?> domainClass);
+
+  /**
+   * Returns the ids of the entities of the given type where all the patterns appear in any of the searchable
+   * properties. The returned map must be ordered by descending score and must contain at most {@code maxResults}
+   * entries.
+   *
+   * @param domainClass
+   *          the searched entity type
+   * @param patterns
+   *          the lowercase words of the search
+   * @param maxResults
+   *          the maximum number of the returned ids
+   * @return the ids of the matching entities with their scores (higher is better)
+   */
+  Map<Object, Float> search(Class<?> domainClass, List<String> patterns, int maxResults);
+
+  /**
+   * Returns the ids of the best matching entities which pass the given filter. The filter is called with the candidate
+   * ids in descending score order and returns the permitted ones, so the result is not truncated by the candidates of
+   * other users.
+   * <p>
+   * By default the hits are fetched with doubling limits (via {@link #search(Class, List, int)}) and only the new hits
+   * of every round are passed to the filter, until {@code maxResults} hits passed it or the hits are exhausted.
+   * Backends what can continue a search (or filter natively) can override it.
+   *
+   * @param domainClass
+   *          the searched entity type
+   * @param patterns
+   *          the lowercase words of the search
+   * @param maxResults
+   *          the maximum number of the returned ids
+   * @param filter
+   *          returns the permitted ids of the given candidate ids
+   * @return the ids of the matching and permitted entities with their scores (higher is better)
+   */
+  default Map<Object, Float> search(Class<?> domainClass, List<String> patterns, int maxResults,
+      Function<Collection<Object>, Collection<Object>> filter) {
+    Map<Object, Float> result = new LinkedHashMap<>();
+    int checked = 0;
+    for (int limit = maxResults;; limit = limit > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : limit * 2) {
+      Map<Object, Float> hits = search(domainClass, patterns, limit);
+      List<Object> candidates = new ArrayList<>(hits.keySet());
+      candidates = candidates.subList(Math.min(checked, candidates.size()), candidates.size());
+      Collection<Object> permitted = candidates.isEmpty() ? candidates : filter.apply(candidates);
+      for (Object id : candidates) {
+        if (result.size() < maxResults && permitted.contains(id)) {
+          result.put(id, hits.get(id));
+        }
+      }
+      checked = hits.size();
+      if (result.size() >= maxResults || hits.size() < limit || limit == Integer.MAX_VALUE) {
+        return result;
+      }
+    }
+  }
+
+}
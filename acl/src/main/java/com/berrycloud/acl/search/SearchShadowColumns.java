@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.util.ProxyUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.data.AclEntityMetaData;
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.repository.AclStreams;
+
+/**
+ * <p>
+ * Maintains the shadow properties of the {@link AclSearchable} properties.
+ * </p>
+ * Before an entity is persisted or updated the normalized (accent-folded and lowercased) values of its searchable
+ * properties are copied into their shadow properties, so the search can compare the stored values directly. The shadow
+ * properties of the already existing rows can be populated by {@link #rebuild()}.
+ *
+ * @author István Rátkai (Selindek)
+ *
+ */
+public class SearchShadowColumns implements AclEntityListener.Handler {
+
+  private static Logger LOG = LoggerFactory.getLogger(SearchShadowColumns.class);
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${spring.data.jpa.acl.search.shadow-columns.rebuild-on-startup:false}")
+  private boolean rebuildOnStartup;
+
+  @Value("${spring.data.jpa.acl.stream.fetch-size:500}")
+  private int fetchSize = 500;
+
+  @PostConstruct
+  public void init() {
+    AclEntityListener.addHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    AclEntityListener.removeHandler(em.getEntityManagerFactory(), this);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      new TransactionTemplate(transactionManager).execute(status -> {
+        rebuild();
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Recomputes the shadow properties of all the existing entities. The entities are streamed, and the changed ones are
+   * updated when the persistence context is flushed. It must be called in a transaction.
+   */
+  public void rebuild() {
+    for (Class<?> javaType : aclMetaData.getEntityTypes()) {
+      if (aclMetaData.getAclEntityMetaData(javaType).getSearchShadowAttributes().isEmpty()) {
+        continue;
+      }
+      LOG.info("Rebuilding search shadow properties of {}", javaType.getName());
+      String entityName = em.getMetamodel().entity(javaType).getName();
+      try (Stream<Object> entities = AclStreams.stream(em.createQuery("select e from " + entityName + " e"), em,
+          fetchSize)) {
+        entities.forEach(this::entityChanging);
+      }
+    }
+    em.flush();
+  }
+
+  /**
+   * Returns the normalized form of the given value: the accents are removed and the result is lowercased.
+   */
+  public static String normalize(String value) {
+    if (value == null) {
+      return null;
+    }
+    return COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public void entityChanging(Object entity) {
+    AclEntityMetaData metaData = aclMetaData.getAclEntityMetaData(ProxyUtils.getUserClass(entity));
+    if (metaData == null || metaData.getSearchShadowAttributes().isEmpty()) {
+      return;
+    }
+    BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+    for (Map.Entry<String, String> shadow : metaData.getSearchShadowAttributes().entrySet()) {
+      Object value = beanWrapper.getPropertyValue(shadow.getKey());
+      beanWrapper.setPropertyValue(shadow.getValue(), value == null ? null : normalize(value.toString()));
+    }
+  }
+
+  @Override
+  public void entityChanged(Object entity) {
+  }
+}
@@ -27,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.berrycloud.acl.AclLogic;
 import com.berrycloud.acl.domain.AclRole;
 import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.metrics.AclMetrics;
 
 /**
  * Abstract superclass for {@link AclUserDetailsService} implementations. It uses the default
@@ -40,13 +41,55 @@ public abstract class AbstractAclUserDetailsService<A extends GrantedAuthority>
     @Autowired
     private AclLogic aclLogic;
 
+    @Autowired(required = false)
+    private AclUserDetailsCache userDetailsCache;
+
+    @Autowired(required = false)
+    private AclMetrics aclMetrics = AclMetrics.NOOP;
+
     @Override
     @Transactional(readOnly = true)
     public AclUserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        if (userDetailsCache != null) {
+            AclUserDetails cached = userDetailsCache.get(username);
+            if (cached != null) {
+                AclUserDetails userDetails = copyUserDetails(cached);
+                aclMetrics.recordUserDetailsLoad(true, System.nanoTime() - start);
+                return userDetails;
+            }
+        }
 
+        long cacheGeneration = userDetailsCache != null ? userDetailsCache.getGeneration() : 0;
         AclUser aclUser = aclLogic.loadUserByUsername(username);
 
-        return createUserDetails(aclUser, createAuthorities(aclLogic.getAllRoles(aclUser)));
+        AclUserDetails userDetails = createUserDetails(aclUser, createAuthorities(aclLogic.getAllRoles(aclUser)));
+        if (userDetailsCache != null) {
+            // The user-details what cannot be copied are not cached, as the cached instance must not be shared
+            AclUserDetails copy = copyUserDetails(userDetails);
+            if (copy != null && copy != userDetails) {
+                userDetailsCache.put(username, userDetails, cacheGeneration);
+                userDetails = copy;
+            }
+        }
+        aclMetrics.recordUserDetailsLoad(false, System.nanoTime() - start);
+        return userDetails;
+    }
+
+    /**
+     * Creates a copy of a cached AclUserDetails object. The authentication process could erase the credentials of the
+     * returned object, so the cached instance itself is never returned. By default only {@link SimpleAclUserDetails}
+     * objects can be copied, for any other type it returns {@literal null}, and these user-details are not cached at
+     * all. Subclasses which override {@link #createUserDetails} should override this method too if they use the
+     * user-cache.
+     */
+    protected AclUserDetails copyUserDetails(AclUserDetails userDetails) {
+        if (userDetails.getClass() != SimpleAclUserDetails.class) {
+            return null;
+        }
+        return new SimpleAclUserDetails(userDetails.getUserId(), userDetails.getUsername(), userDetails.getPassword(),
+                userDetails.isEnabled(), userDetails.isAccountNonExpired(), userDetails.isCredentialsNonExpired(),
+                userDetails.isAccountNonLocked(), userDetails.getAuthorities());
     }
 
     /**
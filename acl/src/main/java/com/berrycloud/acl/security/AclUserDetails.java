@@ -17,8 +17,24 @@ package com.berrycloud.acl.security;
 
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.berrycloud.acl.data.AuthorityMask;
+
 public interface AclUserDetails extends UserDetails {
 
     Object getUserId();
 
+    /**
+     * Returns the authority-mask cached by the ACL logic or null if there is no cached mask. Implementations without a
+     * cache slot compute the mask for every permission-check.
+     */
+    default AuthorityMask getAuthorityMask() {
+        return null;
+    }
+
+    /**
+     * Caches the authority-mask computed by the ACL logic.
+     */
+    default void setAuthorityMask(AuthorityMask authorityMask) {
+    }
+
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.AclLogic;
+import com.berrycloud.acl.domain.AclRole;
+import com.berrycloud.acl.domain.AclUser;
+
+/**
+ * Bounded cache of the {@link AclUserDetails} objects created by the {@link AbstractAclUserDetailsService}. The entries
+ * expire after a configurable time-to-live and the least recently used entries are evicted above the maximum size.
+ * <p>
+ * The entries are invalidated via the {@link AclEntityListener}: a change of an {@link AclUser} (including the change
+ * of its role or role-provider collections) evicts the entry of that user, a change of an {@link AclRole} or of a
+ * role-provider entity (or a bulk delete of users, roles or role-providers) clears the whole cache.
+ * <p>
+ * An invalidation could happen while a user-details object is being loaded from the database, so the loader gets the
+ * current {@link #getGeneration() generation} before the load and the {@link #put(String, AclUserDetails, long) put}
+ * is skipped if the user was evicted (or the cache was cleared) since then.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclUserDetailsCache implements AclEntityListener.Handler {
+
+    private static Logger LOG = LoggerFactory.getLogger(AclUserDetailsCache.class);
+
+    @Autowired
+    private AclLogic aclLogic;
+
+    @Value("${spring.data.jpa.acl.user-cache.max-size:1000}")
+    private int maxSize = 1000;
+
+    @Value("${spring.data.jpa.acl.user-cache.time-to-live-seconds:300}")
+    private long timeToLiveSeconds = 300;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    // Generation counter of the invalidations, the generation of the last eviction of the users and of the last clear
+    private long generation;
+    private final Map<Object, Long> userGenerations = new HashMap<>();
+    private long clearGeneration;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void init() {
+        AclEntityListener.addHandler(entityManagerFactory, this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        AclEntityListener.removeHandler(entityManagerFactory, this);
+    }
+
+    /**
+     * Returns the cached user-details or null if it's not cached or expired.
+     */
+    public synchronized AclUserDetails get(String username) {
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(username);
+            evictionCount.incrementAndGet();
+            entry = null;
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.userDetails;
+    }
+
+    /**
+     * Returns the current generation of the cache. It should be called before loading the user-details to be cached.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the user-details unless the user was evicted or the cache was cleared after the given generation, as the
+     * user-details could be loaded from the state before the invalidating change then.
+     */
+    public synchronized void put(String username, AclUserDetails userDetails, long loadGeneration) {
+        if (clearGeneration > loadGeneration
+                || userGenerations.getOrDefault(userDetails.getUserId(), 0L) > loadGeneration) {
+            LOG.trace("Skipping the caching of the concurrently invalidated user-details of {}", username);
+            return;
+        }
+        entries.put(username, new Entry(userDetails, System.currentTimeMillis() + timeToLiveSeconds * 1000));
+    }
+
+    /**
+     * Evicts the entry of the user with the given id.
+     */
+    public synchronized void evictUser(Object userId) {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+            if (Objects.equals(iterator.next().userDetails.getUserId(), userId)) {
+                iterator.remove();
+            }
+        }
+        // Too many tracked users are dropped by handling them as a clear
+        if (userGenerations.size() >= maxSize) {
+            userGenerations.clear();
+            clearGeneration = generation;
+        }
+        userGenerations.put(userId, ++generation);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        userGenerations.clear();
+        clearGeneration = ++generation;
+    }
+
+    @Override
+    public void entityChanged(Object entity) {
+        if (entity instanceof AclUser) {
+            Object userId = aclLogic.getUserId((AclUser) entity);
+            LOG.trace("Evicting cached user-details of {}", userId);
+            invalidate(() -> evictUser(userId));
+        } else if (entity instanceof AclRole || isRoleProvider(entity)) {
+            LOG.trace("Clearing cached user-details because of {}", entity);
+            invalidate(this::clear);
+        }
+    }
+
+    @Override
+    public void collectionChanged(Object owner, Collection<?> changedElements) {
+        // e.g. a role was revoked from a user or a user was removed from the owning collection of a role-provider
+        entityChanged(owner);
+        for (Object element : changedElements) {
+            if (element instanceof AclUser) {
+                entityChanged(element);
+            }
+        }
+    }
+
+    /**
+     * A bulk delete of users, roles or role-providers clears the whole cache. (The ids of the deleted entities are not
+     * known.)
+     */
+    @Override
+    public void entitiesDeleted(Class<?> entityType) {
+        if (AclUser.class.isAssignableFrom(entityType) || AclRole.class.isAssignableFrom(entityType)
+                || isRoleProviderType(entityType)) {
+            LOG.trace("Clearing cached user-details because of the bulk delete of {}", entityType);
+            invalidate(this::clear);
+        }
+    }
+
+    private boolean isRoleProviderType(Class<?> entityType) {
+        for (Class<?> roleProviderType : aclLogic.getRoleProviderTypes()) {
+            if (roleProviderType.isAssignableFrom(entityType) || entityType.isAssignableFrom(roleProviderType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRoleProvider(Object entity) {
+        for (Class<?> roleProviderType : aclLogic.getRoleProviderTypes()) {
+            if (roleProviderType.isInstance(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates now and after commit too, so concurrent loads cannot cache the uncommitted state.
+     */
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final AclUserDetails userDetails;
+        private final long expiresAt;
+
+        Entry(AclUserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Collection;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 
+import com.berrycloud.acl.data.AuthorityMask;
+
 /**
  * Default implementation for the {@link AclUserDetails} interface.
  *
@@ -32,6 +34,8 @@ public class SimpleAclUserDetails extends User implements AclUserDetails {
 
     private Object userId;
 
+    private transient volatile AuthorityMask authorityMask;
+
     public SimpleAclUserDetails(Object userId, String username, String password,
             Collection<? extends GrantedAuthority> authorities) {
         this(userId, username, password, true, true, true, true, authorities);
@@ -49,4 +53,14 @@ public class SimpleAclUserDetails extends User implements AclUserDetails {
         return userId;
     }
 
+    @Override
+    public AuthorityMask getAuthorityMask() {
+        return authorityMask;
+    }
+
+    @Override
+    public void setAuthorityMask(AuthorityMask authorityMask) {
+        this.authorityMask = authorityMask;
+    }
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.berrycloud.acl.security.access;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.berrycloud.acl.AclEntityListener;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+/**
+ * Request-scoped (or, outside of web requests, transaction-scoped) cache of the permission decisions. The decisions are
+ * keyed by the current user, the entity type, the entity id and the permission, so the repeated checks of the same
+ * object within a request cost only one query.
+ * <p>
+ * All the cached decisions of the current scope are dropped when any entity or collection is persisted, updated or
+ * removed, or entities are deleted in bulk (via the {@link AclEntityListener}), so a change of the ACL rules within the request is never hidden by a
+ * cached decision. A cached decision is not used either while the current persistence context has unflushed changes
+ * (these would be flushed by the ACL query the cached decision replaces). Outside of any request or transaction nothing
+ * is cached.
+ *
+ * @author István Rátkai (Selindek)
+ */
+public class AclPermissionDecisionCache implements AclEntityListener.Handler {
+
+    private static Logger LOG = LoggerFactory.getLogger(AclPermissionDecisionCache.class);
+
+    private static final String DECISIONS_ATTRIBUTE = AclPermissionDecisionCache.class.getName() + ".DECISIONS";
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void init() {
+        AclEntityListener.addHandler(entityManagerFactory, this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        AclEntityListener.removeHandler(entityManagerFactory, this);
+    }
+
+    /**
+     * Returns the cached decision or null if the decision is not cached in the current scope.
+     */
+    public Boolean get(Class<?> domainClass, Object id, String permission) {
+        Map<Key, Boolean> decisions = getDecisions(false);
+        if (decisions == null || decisions.isEmpty()) {
+            return null;
+        }
+        if (hasUnflushedChanges()) {
+            LOG.trace("Clearing cached permission decisions because of unflushed changes");
+            decisions.clear();
+            return null;
+        }
+        return decisions.get(new Key(getUser(), domainClass, id, permission));
+    }
+
+    private boolean hasUnflushedChanges() {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        return em != null && em.unwrap(Session.class).isDirty();
+    }
+
+    /**
+     * Stores a decision in the current scope. It does nothing if there is no active request or transaction.
+     */
+    public void put(Class<?> domainClass, Object id, String permission, boolean permitted) {
+        Map<Key, Boolean> decisions = getDecisions(true);
+        if (decisions != null) {
+            decisions.put(new Key(getUser(), domainClass, id, permission), permitted);
+        }
+    }
+
+    /**
+     * Drops all the cached decisions of the current scope.
+     */
+    public void clear() {
+        Map<Key, Boolean> decisions = getDecisions(false);
+        if (decisions != null) {
+            decisions.clear();
+        }
+    }
+
+    @Override
+    public void entityChanged(Object entity) {
+        LOG.trace("Clearing cached permission decisions because of {}", entity);
+        clear();
+    }
+
+    @Override
+    public void entitiesDeleted(Class<?> entityType) {
+        LOG.trace("Clearing cached permission decisions because of the bulk delete of {}", entityType);
+        clear();
+    }
+
+    private Object getUser() {
+        AclUserDetails userDetails = AclUserDetailsService.getAclUserDetails();
+        return userDetails != null ? userDetails.getUserId() : AclUserDetailsService.getUsername();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, Boolean> getDecisions(boolean create) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Map<Key, Boolean> decisions = (Map<Key, Boolean>) requestAttributes.getAttribute(DECISIONS_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (decisions == null && create) {
+                decisions = new ConcurrentHashMap<>();
+                requestAttributes.setAttribute(DECISIONS_ATTRIBUTE, decisions, RequestAttributes.SCOPE_REQUEST);
+            }
+            return decisions;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<Key, Boolean> decisions = (Map<Key, Boolean>) TransactionSynchronizationManager.getResource(this);
+            if (decisions == null && create) {
+                decisions = new ConcurrentHashMap<>();
+                TransactionSynchronizationManager.bindResource(this, decisions);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(AclPermissionDecisionCache.this);
+                    }
+                });
+            }
+            return decisions;
+        }
+        return null;
+    }
+
+    private static class Key {
+        private final Object user;
+        private final Class<?> domainClass;
+        private final Object id;
+        private final String permission;
+
+        Key(Object user, Class<?> domainClass, Object id, String permission) {
+            this.user = user;
+            this.domainClass = domainClass;
+            this.id = id;
+            this.permission = permission;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(user, other.user) && domainClass.equals(other.domainClass) && id.equals(other.id)
+                    && permission.equals(other.permission);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(user, domainClass, id, permission);
+        }
+    }
+}
@@ -16,8 +16,18 @@
 package com.berrycloud.acl.security.access;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -25,16 +35,20 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
 
 import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.metrics.AclMetrics;
 
 /**
  * PermissionEvaluator for ACL managed entities. Permissions are checked via {@link AclSpecification}.
@@ -45,8 +59,13 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
 
     private static Logger LOG = LoggerFactory.getLogger(AclPermissionEvaluator.class);
 
-    // Dynamically filled cache for entityInformation
-    private final Map<Class<?>, JpaEntityInformation<?, ?>> entityInformationMap = new HashMap<>();
+    // Immutable cache for the entityInformation and the domain-classes of the ACL managed types (filled on startup)
+    private Map<Class<?>, JpaEntityInformation<?, ?>> entityInformationMap = Collections.emptyMap();
+    private Map<String, Class<?>> domainClassMap = Collections.emptyMap();
+
+    // Dynamically filled caches for the other types
+    private final Map<Class<?>, JpaEntityInformation<?, ?>> additionalEntityInformationMap = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>> additionalDomainClassMap = new ConcurrentHashMap<>();
 
     @PersistenceContext
     private EntityManager em;
@@ -54,11 +73,41 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
     @Autowired
     private AclSpecification aclSpecification;
 
+    @Autowired
+    private AclMetaData aclMetaData;
+
+    @Autowired(required = false)
+    private AclPermissionDecisionCache permissionDecisionCache;
+
+    @Autowired(required = false)
+    private AclMetrics aclMetrics = AclMetrics.NOOP;
+
+    /**
+     * Maximum number of ids in a single IN-list
+     */
+    @Value("${spring.data.jpa.acl.max-in-list-size:1000}")
+    private int maxInListSize = 1000;
+
+    @PostConstruct
+    public void init() {
+        Map<Class<?>, JpaEntityInformation<?, ?>> entityInformations = new HashMap<>();
+        Map<String, Class<?>> domainClasses = new HashMap<>();
+        for (Class<?> domainClass : aclMetaData.getEntityTypes()) {
+            entityInformations.put(domainClass, JpaEntityInformationSupport.getEntityInformation(domainClass, em));
+            domainClasses.put(domainClass.getName(), domainClass);
+        }
+        entityInformationMap = Collections.unmodifiableMap(entityInformations);
+        domainClassMap = Collections.unmodifiableMap(domainClasses);
+    }
+
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
         if (targetDomainObject == null) {
             return false;
         }
+        if (targetDomainObject instanceof Collection) {
+            return hasPermissionForAll(authentication, (Collection<?>) targetDomainObject, permission);
+        }
         try {
             Class<?> domainClass = targetDomainObject.getClass();
             return hasPermission(authentication, getId(targetDomainObject), domainClass, permission);
@@ -73,7 +122,12 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
     public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
             Object permission) {
         try {
-            return hasPermission(authentication, targetId, Class.forName(targetType), permission);
+            if (targetId instanceof Collection) {
+                Collection<?> targetIds = (Collection<?>) targetId;
+                return hasPermissions(authentication, targetIds, getDomainClass(targetType), permission)
+                        .size() == new HashSet<>(targetIds).size();
+            }
+            return hasPermission(authentication, targetId, getDomainClass(targetType), permission);
         } catch (ClassNotFoundException ex) {
             LOG.warn("Invalid target type for AclPermissionEvaluator: {}", targetType);
             LOG.trace("Details: ", ex);
@@ -82,22 +136,109 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
     }
 
     /**
-     * Check permission by directly creating a JPA count query with ACL support for the given permission
+     * Check permission by directly creating a JPA query with ACL support for the given permission. The query selects a
+     * constant and returns at most one row.
      */
     public <T> boolean hasPermission(Authentication authentication, Object targetId, Class<T> domainClass,
             Object permission) {
         String permissionString = getPermissionString(permission);
+        if (permissionDecisionCache != null) {
+            Boolean permitted = permissionDecisionCache.get(domainClass, targetId, permissionString);
+            if (permitted != null) {
+                return permitted;
+            }
+        }
 
+        long start = System.nanoTime();
         CriteriaBuilder builder = em.getCriteriaBuilder();
-        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
 
         Root<T> root = query.from(domainClass);
-        query.select(builder.count(root));
 
         Predicate idPredicate = builder.equal(root.get(getEntityInformation(domainClass).getIdAttribute()), targetId);
         Predicate aclPredicate = aclSpecification.toPredicate(root, query, builder, permissionString);
-        query.where(builder.and(idPredicate, aclPredicate));
-        return em.createQuery(query).getSingleResult() != 0;
+        // A single constant row is enough: the DB can stop at the first matching ACL branch
+        query.select(builder.literal(1)).where(builder.and(idPredicate, aclPredicate)).distinct(false);
+        boolean permitted = !em.createQuery(query).setMaxResults(1).getResultList().isEmpty();
+        aclMetrics.recordPermissionCheck(domainClass, permissionString, permitted, System.nanoTime() - start);
+        if (permissionDecisionCache != null) {
+            permissionDecisionCache.put(domainClass, targetId, permissionString, permitted);
+        }
+        return permitted;
+    }
+
+    /**
+     * Checks the permission of all the given domain objects. The objects are grouped by their type and each group is
+     * checked via {@link #hasPermissions}.
+     */
+    protected boolean hasPermissionForAll(Authentication authentication, Collection<?> targetDomainObjects,
+            Object permission) {
+        Map<Class<?>, Set<Object>> idMap = new HashMap<>();
+        try {
+            for (Object targetDomainObject : targetDomainObjects) {
+                if (targetDomainObject == null) {
+                    return false;
+                }
+                idMap.computeIfAbsent(targetDomainObject.getClass(), k -> new HashSet<>())
+                        .add(getId(targetDomainObject));
+            }
+        } catch (Exception ex) {
+            LOG.warn("Invalid target for AclPermissionEvaluator: {}", targetDomainObjects);
+            LOG.trace("Details: ", ex);
+            return false;
+        }
+        for (Map.Entry<Class<?>, Set<Object>> entry : idMap.entrySet()) {
+            if (hasPermissions(authentication, entry.getValue(), entry.getKey(), permission).size() != entry.getValue()
+                    .size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check permission of multiple entities at once. It returns the ids of the entities what the current user has the
+     * given permission to. The ids are checked in chunks of {@code spring.data.jpa.acl.max-in-list-size} via an
+     * ACL-filtered id-projection query.
+     */
+    public <T> Set<Object> hasPermissions(Authentication authentication, Collection<?> targetIds, Class<T> domainClass,
+            Object permission) {
+        String permissionString = getPermissionString(permission);
+        SingularAttribute<? super T, ?> idAttribute = getEntityInformation(domainClass).getIdAttribute();
+        List<Object> ids = new ArrayList<>();
+        Set<Object> permittedIds = new HashSet<>();
+        for (Object id : new LinkedHashSet<>(targetIds)) {
+            Boolean permitted = permissionDecisionCache == null ? null
+                    : permissionDecisionCache.get(domainClass, id, permissionString);
+            if (permitted == null) {
+                ids.add(id);
+            } else if (permitted) {
+                permittedIds.add(id);
+            }
+        }
+
+        for (int i = 0; i < ids.size(); i += maxInListSize) {
+            List<Object> chunk = ids.subList(i, Math.min(i + maxInListSize, ids.size()));
+
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<Object> query = builder.createQuery();
+
+            Root<T> root = query.from(domainClass);
+            query.select(root.get(idAttribute));
+
+            Predicate idPredicate = root.get(idAttribute).in(chunk);
+            Predicate aclPredicate = aclSpecification.toPredicate(root, query, builder, permissionString);
+            query.where(builder.and(idPredicate, aclPredicate));
+            List<Object> chunkPermittedIds = em.createQuery(query).getResultList();
+            permittedIds.addAll(chunkPermittedIds);
+            if (permissionDecisionCache != null) {
+                Set<Object> chunkPermittedIdSet = new HashSet<>(chunkPermittedIds);
+                for (Object id : chunk) {
+                    permissionDecisionCache.put(domainClass, id, permissionString, chunkPermittedIdSet.contains(id));
+                }
+            }
+        }
+        return permittedIds;
     }
 
     protected <T> Object getId(T object) {
@@ -110,14 +251,26 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
     }
 
     protected <T> JpaEntityInformation<T, ?> getEntityInformation(Class<T> domainClass) {
-        @SuppressWarnings("unchecked")
-        JpaEntityInformation<T, ?> entityInformation = (JpaEntityInformation<T, ?>) entityInformationMap
-                .get(domainClass);
+        JpaEntityInformation<?, ?> entityInformation = entityInformationMap.get(domainClass);
         if (entityInformation == null) {
-            entityInformation = JpaEntityInformationSupport.getEntityInformation(domainClass, em);
-            entityInformationMap.put(domainClass, entityInformation);
+            entityInformation = additionalEntityInformationMap.computeIfAbsent(domainClass,
+                    k -> JpaEntityInformationSupport.getEntityInformation(k, em));
+        }
+        @SuppressWarnings("unchecked")
+        JpaEntityInformation<T, ?> result = (JpaEntityInformation<T, ?>) entityInformation;
+        return result;
+    }
+
+    protected Class<?> getDomainClass(String targetType) throws ClassNotFoundException {
+        Class<?> domainClass = domainClassMap.get(targetType);
+        if (domainClass == null) {
+            domainClass = additionalDomainClassMap.get(targetType);
+            if (domainClass == null) {
+                domainClass = Class.forName(targetType);
+                additionalDomainClassMap.putIfAbsent(targetType, domainClass);
+            }
         }
-        return entityInformation;
+        return domainClass;
     }
 
     protected String getPermissionString(Object permission) {
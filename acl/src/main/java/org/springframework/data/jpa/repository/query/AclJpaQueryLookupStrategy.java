@@ -115,13 +115,23 @@ public final class AclJpaQueryLookupStrategy {
         private final PersistenceProvider persistenceProvider;
         private final EscapeCharacter escape;
         private final AclSpecification aclSpecification;
+        private final int streamFetchSize;
+        private final int maxInListSize;
+        private final boolean twoPhasePagination;
+        private final boolean detachStreamedEntities;
 
-        CreateQueryLookupStrategy(EntityManager em, QueryExtractor extractor, EscapeCharacter escape, AclSpecification aclSpecification) {
+        CreateQueryLookupStrategy(EntityManager em, QueryExtractor extractor, EscapeCharacter escape, AclSpecification aclSpecification,
+                                  int streamFetchSize, int maxInListSize, boolean twoPhasePagination,
+                                  boolean detachStreamedEntities) {
 
             super(em, extractor);
             this.persistenceProvider = PersistenceProvider.fromEntityManager(em);
             this.escape = escape;
             this.aclSpecification = aclSpecification;
+            this.streamFetchSize = streamFetchSize;
+            this.maxInListSize = maxInListSize;
+            this.twoPhasePagination = twoPhasePagination;
+            this.detachStreamedEntities = detachStreamedEntities;
         }
 
         @Override
@@ -130,7 +140,8 @@ public final class AclJpaQueryLookupStrategy {
 
             try {
                 if (needAcl) {
-                    return new PartTreeAclJpaQuery(method, em, persistenceProvider, escape, aclSpecification);
+                    return new PartTreeAclJpaQuery(method, em, persistenceProvider, escape, aclSpecification,
+                            streamFetchSize, maxInListSize, twoPhasePagination, detachStreamedEntities);
                 } else {
                     return new PartTreeJpaQuery(method, em, persistenceProvider, escape);
                 }
@@ -273,7 +284,11 @@ public final class AclJpaQueryLookupStrategy {
                                              QueryExtractor extractor,
                                              QueryMethodEvaluationContextProvider evaluationContextProvider,
                                              EscapeCharacter escape,
-                                             AclSpecification aclSpecification) {
+                                             AclSpecification aclSpecification,
+                                             int streamFetchSize,
+                                             int maxInListSize,
+                                             boolean twoPhasePagination,
+                                             boolean detachStreamedEntities) {
 
         Assert.notNull(em, "EntityManager must not be null!");
         Assert.notNull(extractor, "QueryExtractor must not be null!");
@@ -281,12 +296,14 @@ public final class AclJpaQueryLookupStrategy {
 
         switch (key != null ? key : Key.CREATE_IF_NOT_FOUND) {
             case CREATE:
-                return new CreateQueryLookupStrategy(em, extractor, escape, aclSpecification);
+                return new CreateQueryLookupStrategy(em, extractor, escape, aclSpecification, streamFetchSize,
+                        maxInListSize, twoPhasePagination, detachStreamedEntities);
             case USE_DECLARED_QUERY:
                 return new DeclaredQueryLookupStrategy(em, extractor, evaluationContextProvider);
             case CREATE_IF_NOT_FOUND:
                 return new CreateIfNotFoundQueryLookupStrategy(em, extractor,
-                        new CreateQueryLookupStrategy(em, extractor, escape, aclSpecification),
+                        new CreateQueryLookupStrategy(em, extractor, escape, aclSpecification, streamFetchSize,
+                        maxInListSize, twoPhasePagination, detachStreamedEntities),
                         new DeclaredQueryLookupStrategy(em, extractor, evaluationContextProvider));
             default:
                 throw new IllegalArgumentException(String.format("Unsupported query lookup strategy %s!", key));
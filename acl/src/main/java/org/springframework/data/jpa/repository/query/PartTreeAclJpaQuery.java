@@ -15,9 +15,13 @@
  */
 package org.springframework.data.jpa.repository.query;
 
+import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
+
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -25,20 +29,29 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.provider.PersistenceProvider;
 import org.springframework.data.jpa.repository.query.JpaQueryExecution.DeleteExecution;
 import org.springframework.data.jpa.repository.query.JpaQueryExecution.ExistsExecution;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.PagedExecution;
+import org.springframework.data.jpa.repository.query.JpaQueryExecution.StreamExecution;
 import org.springframework.data.jpa.repository.query.ParameterMetadataProvider.ParameterMetadata;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.ResultProcessor;
 import org.springframework.data.repository.query.ReturnedType;
 import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 
 import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.repository.AclPages;
+import com.berrycloud.acl.repository.AclStreams;
 import com.berrycloud.acl.search.Search;
 
 /**
@@ -61,10 +74,23 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
 
   private final QueryPreparer query;
   private final QueryPreparer countQuery;
+  private final QueryPreparer idQuery;
   private final EntityManager em;
   private final EscapeCharacter escape;
   
   private final AclSpecification aclSpecification;
+  private final int streamFetchSize;
+  private final int maxInListSize;
+
+  /**
+   * Whether the streamed entities are detached periodically while a {@link Stream} result is consumed
+   */
+  private final boolean detachStreamedEntities;
+
+  /**
+   * The id of the domain class if the pages are read in two phases (the ids of the page first, then the entities)
+   */
+  private final SingularAttribute<?, ?> idAttribute;
 
   /**
    * Creates a new {@link PartTreeJpaQuery}.
@@ -77,7 +103,8 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
    *          must not be {@literal null}.
    */
   PartTreeAclJpaQuery(JpaQueryMethod method, EntityManager em, PersistenceProvider persistenceProvider, EscapeCharacter escape,
-      AclSpecification aclSpecification) {
+      AclSpecification aclSpecification, int streamFetchSize, int maxInListSize, boolean twoPhasePagination,
+      boolean detachStreamedEntities) {
 
     super(method, em);
 
@@ -86,12 +113,21 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
     Class<?> domainClass = method.getEntityInformation().getJavaType();
     this.parameters = method.getParameters();
     this.aclSpecification = aclSpecification;
+    this.streamFetchSize = streamFetchSize;
+    this.maxInListSize = maxInListSize;
+    this.detachStreamedEntities = detachStreamedEntities;
+
+    EntityType<?> entityType = em.getMetamodel().entity(domainClass);
+    this.idAttribute = twoPhasePagination && entityType.hasSingleIdAttribute()
+        ? entityType.getId(entityType.getIdType().getJavaType())
+        : null;
 
     try {
 
       this.tree = new PartTree(method.getName(), domainClass);
       this.countQuery = new CountQueryPreparer(persistenceProvider);
       this.query = tree.isCountProjection() ? countQuery : new QueryPreparer(persistenceProvider);
+      this.idQuery = new IdQueryPreparer(persistenceProvider);
 
     } catch (Exception o_O) {
       throw new IllegalArgumentException(
@@ -132,11 +168,77 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
       return new DeleteExecution(em);
     } else if (this.tree.isExistsProjection()) {
       return new ExistsExecution();
+    } else if (getQueryMethod().isStreamQuery() && detachStreamedEntities) {
+      return new AclStreamExecution();
+    } else if (idAttribute != null && getQueryMethod().isPageQuery()) {
+      return new TwoPhasePagedExecution();
     }
 
     return super.getExecution();
   }
 
+  /**
+   * {@link StreamExecution} what detaches the streamed entities periodically while the stream is consumed. (See
+   * {@link AclStreams}.)
+   *
+   * @author István Rátkai (Selindek)
+   */
+  private class AclStreamExecution extends StreamExecution {
+
+    @Override
+    protected Object doExecute(AbstractJpaQuery query, Object[] values) {
+      return AclStreams.detaching((Stream<?>) super.doExecute(query, values), em, streamFetchSize);
+    }
+  }
+
+  /**
+   * {@link PagedExecution} what selects the ids of the page first (with the ACL predicates, the sort keys and the search
+   * relevance), then fetches the entities by their ids and reorders them in memory. Projections and unpaged queries are
+   * executed in a single phase.
+   *
+   * @author István Rátkai (Selindek)
+   */
+  private class TwoPhasePagedExecution extends PagedExecution {
+
+    TwoPhasePagedExecution() {
+      super(parameters);
+    }
+
+    @Override
+    protected Object doExecute(AbstractJpaQuery repositoryQuery, Object[] values) {
+      ParametersParameterAccessor accessor = new ParametersParameterAccessor(parameters, values);
+      Pageable pageable = accessor.getPageable();
+      if (pageable.isUnpaged()
+          || getQueryMethod().getResultProcessor().withDynamicProjection(accessor).getReturnedType().isProjecting()) {
+        return super.doExecute(repositoryQuery, values);
+      }
+
+      List<?> content = fetchByIds(idQuery.createQuery(values).getResultList());
+      return PageableExecutionUtils.getPage(content, pageable, () -> {
+        List<?> totals = repositoryQuery.createCountQuery(values).getResultList();
+        return totals.size() == 1 ? ((Number) totals.get(0)).longValue() : totals.size();
+      });
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<?> fetchByIds(List<?> ids) {
+      Class<Object> domainClass = (Class<Object>) getQueryMethod().getEntityInformation().getJavaType();
+      JpaEntityGraph entityGraph = getQueryMethod().getEntityGraph();
+      Map<String, Object> fetchGraphHints = entityGraph == null ? Collections.emptyMap()
+          : Jpa21Utils.tryGetFetchGraphHints(em, entityGraph, domainClass);
+
+      return AclPages.fetchByIds(ids, maxInListSize, chunk -> {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object> fetchQuery = cb.createQuery(domainClass);
+        Root<Object> root = fetchQuery.from(domainClass);
+        fetchQuery.select(root).where(root.get((SingularAttribute) idAttribute).in(chunk));
+        TypedQuery<Object> typedQuery = applyHints(em.createQuery(fetchQuery), getQueryMethod());
+        fetchGraphHints.forEach(typedQuery::setHint);
+        return typedQuery.getResultList();
+      }, em.getEntityManagerFactory().getPersistenceUnitUtil()::getIdentifier);
+    }
+  }
+
   /**
    * Query preparer to create {@link CriteriaQuery} instances and potentially cache them.
    * 
@@ -158,6 +260,7 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
      */
     public Query createQuery(Object[] values) {
 
+      long start = System.nanoTime();
       ParametersParameterAccessor accessor = new ParametersParameterAccessor(parameters, values);
 
       JpaQueryCreator creator = createCreator(persistenceProvider, Optional.of(accessor));
@@ -174,13 +277,24 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
         if (creator instanceof JpaCountQueryCreator) {
           criteriaQuery.orderBy(Collections.<Order> emptyList());
         }
+      } else if (creator instanceof JpaIdQueryCreator) {
+        // The ACL predicates could make the query distinct
+        ((JpaIdQueryCreator) creator).orderIds(criteriaQuery);
       }
 
       if (parameterBinder == null) {
         throw new IllegalStateException("ParameterBinder is null!");
       }
 
-      return restrictMaxResultsIfNecessary(invokeBinding(parameterBinder, createQuery(criteriaQuery), values));
+      Query query = restrictMaxResultsIfNecessary(invokeBinding(parameterBinder, createQuery(criteriaQuery), values));
+      if (getQueryMethod().isStreamQuery()) {
+        query.setHint(AclStreams.FETCH_SIZE_HINT, streamFetchSize);
+      }
+      aclSpecification.getMetrics().recordQueryCreation(
+          creator instanceof JpaCountQueryCreator ? "part-tree-count"
+              : creator instanceof JpaIdQueryCreator ? "part-tree-id" : "part-tree",
+          criteriaQuery.getRoots().iterator().next().getJavaType(), READ_PERMISSION, System.nanoTime() - start);
+      return query;
     }
 
     private void applyAcl(CriteriaQuery<?> criteriaQuery) {
@@ -307,4 +421,71 @@ public class PartTreeAclJpaQuery extends AbstractJpaQuery {
       return binder.bind(query, values);
     }
   }
+
+  /**
+   * Special {@link QueryPreparer} to create the id queries of the two-phase pagination.
+   *
+   * @author István Rátkai (Selindek)
+   */
+  private class IdQueryPreparer extends QueryPreparer {
+
+    IdQueryPreparer(PersistenceProvider persistenceProvider) {
+      super(persistenceProvider);
+    }
+
+    @Override
+    protected JpaQueryCreator createCreator(PersistenceProvider persistenceProvider,
+        Optional<ParametersParameterAccessor> accessor) {
+
+      EntityManager entityManager = getEntityManager();
+      CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+      ParameterMetadataProvider provider = accessor
+          .map(it -> new ParameterMetadataProvider(builder, it, persistenceProvider, escape))//
+          .orElseGet(() -> new ParameterMetadataProvider(builder, parameters, persistenceProvider, escape));
+
+      return new JpaIdQueryCreator(tree, getQueryMethod().getResultProcessor().getReturnedType(), builder, provider);
+    }
+  }
+
+  /**
+   * {@link JpaQueryCreator} what selects only the id of the domain class.
+   *
+   * @author István Rátkai (Selindek)
+   */
+  private class JpaIdQueryCreator extends JpaQueryCreator {
+
+    private CriteriaBuilder builder;
+    private Path<?> id;
+    private List<Order> orders;
+
+    JpaIdQueryCreator(PartTree tree, ReturnedType type, CriteriaBuilder builder, ParameterMetadataProvider provider) {
+      super(tree, type, builder, provider);
+    }
+
+    @Override
+    protected CriteriaQuery<? extends Object> createCriteriaQuery(CriteriaBuilder builder, ReturnedType type) {
+      return builder.createQuery(Object.class);
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected CriteriaQuery<? extends Object> complete(Predicate predicate, Sort sort,
+        CriteriaQuery<? extends Object> query, CriteriaBuilder builder, Root<?> root) {
+
+      this.builder = builder;
+      this.id = root.get((SingularAttribute) idAttribute);
+      this.orders = sort instanceof Search ? Collections.<Order> emptyList() : QueryUtils.toOrders(sort, root, builder);
+
+      CriteriaQuery<Object> idQuery = ((CriteriaQuery<Object>) query).select(id);
+      return predicate == null ? idQuery : idQuery.where(predicate);
+    }
+
+    /**
+     * Applies the orders of the sort to the (completed) id query.
+     */
+    void orderIds(CriteriaQuery<?> query) {
+      AclPages.orderIds(query, builder, id, orders);
+    }
+  }
 }
@@ -25,10 +25,17 @@ import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.FlushModeType;
@@ -50,9 +57,14 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Selection;
 import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
 
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -61,12 +73,18 @@ import org.springframework.data.mapping.PersistentProperty;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import com.berrycloud.acl.AclEntityListener;
 import com.berrycloud.acl.AclSpecification;
+import com.berrycloud.acl.metrics.AclMetrics;
 import com.berrycloud.acl.repository.AclJpaRepository;
+import com.berrycloud.acl.repository.AclPages;
+import com.berrycloud.acl.repository.AclStreams;
 import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.security.access.AclPermissionDecisionCache;
 
 /**
  * Default implementation of the {@link AclJpaRepository} interface. This class uses the default SimpleJpaRepository
@@ -85,11 +103,22 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
 
   private static final String ID_MUST_NOT_BE_NULL = "The given id must not be null!";
 
+  public static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+  public static final int DEFAULT_DELETE_CHUNK_SIZE = 10000;
+  public static final int DEFAULT_MAX_IN_LIST_SIZE = 1000;
+
   private final JpaEntityInformation<T, ?> entityInformation;
   private final EntityManager em;
 
   private AclSpecification aclSpecification;
 
+  private AclPermissionDecisionCache permissionDecisionCache;
+
+  private int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+  private int deleteChunkSize = DEFAULT_DELETE_CHUNK_SIZE;
+  private int maxInListSize = DEFAULT_MAX_IN_LIST_SIZE;
+  private boolean twoPhasePagination;
+
   /**
    * Creates a new {@link SimpleAclJpaRepository} to manage objects of the given {@link JpaEntityInformation}.
    *
@@ -121,6 +150,26 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     this.aclSpecification = aclSpecification;
   }
 
+  public void setPermissionDecisionCache(AclPermissionDecisionCache permissionDecisionCache) {
+    this.permissionDecisionCache = permissionDecisionCache;
+  }
+
+  public void setStreamFetchSize(int streamFetchSize) {
+    this.streamFetchSize = streamFetchSize;
+  }
+
+  public void setDeleteChunkSize(int deleteChunkSize) {
+    this.deleteChunkSize = deleteChunkSize;
+  }
+
+  public void setMaxInListSize(int maxInListSize) {
+    this.maxInListSize = maxInListSize;
+  }
+
+  public void setTwoPhasePagination(boolean twoPhasePagination) {
+    this.twoPhasePagination = twoPhasePagination;
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -176,27 +225,19 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
       for (T e : entities) {
         ids.add((ID) entityInformation.getId(e));
       }
-      doDelete(findAllById(ids, DELETE_PERMISSION));
+      for (int i = 0; i < ids.size(); i += maxInListSize) {
+        List<ID> chunk = ids.subList(i, Math.min(i + maxInListSize, ids.size()));
+        executeAclDelete(null, (id, cb) -> id.in(chunk));
+      }
 
     } else {
       applyAndBind(getQueryString(DELETE_ALL_QUERY_STRING, entityInformation.getEntityName()), entities, em)
           .executeUpdate();
     }
+    fireEntitiesDeleted();
 
   }
 
-  protected void doDelete(List<T> list) {
-    CriteriaBuilder cb = em.getCriteriaBuilder();
-    CriteriaDelete<T> delete = cb.createCriteriaDelete(getDomainClass());
-    Root<T> root = delete.from(getDomainClass());
-
-    Predicate inPredicate = root.in(list);
-
-    delete.where(inPredicate);
-
-    em.createQuery(delete).executeUpdate();
-  }
-
   @Override
   public List<T> findAllById(Iterable<ID> ids, String permission) {
     if (ids == null || !ids.iterator().hasNext()) {
@@ -205,10 +246,18 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
 
     if (entityInformation.hasCompositeId()) {
 
-      List<T> results = new ArrayList<>();
+      List<String> idAttributeNames = new ArrayList<>();
+      entityInformation.getIdAttributeNames().forEach(idAttributeNames::add);
+      List<ID> idList = new ArrayList<>();
+      ids.forEach(idList::add);
 
-      for (ID id : ids) {
-        findById(id).ifPresent(results::add);
+      // Every id needs one parameter per id attribute
+      int chunkSize = Math.max(1, maxInListSize / idAttributeNames.size());
+      List<T> results = new ArrayList<>();
+      for (int i = 0; i < idList.size(); i += chunkSize) {
+        List<ID> chunk = idList.subList(i, Math.min(i + chunkSize, idList.size()));
+        results.addAll(getQuery(new CompositeIdsSpecification<>(entityInformation, idAttributeNames, chunk),
+            Sort.unsorted(), permission).getResultList());
       }
 
       return results;
@@ -228,7 +277,94 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
   @Override
   @Transactional
   public void deleteAll() {
-    doDelete(findAll(DELETE_PERMISSION));
+    deleteAllInBatch((Specification<T>) null);
+  }
+
+  @Override
+  @Transactional
+  public long deleteAllInBatch(@Nullable Specification<T> spec) {
+    long count = 0;
+    if (deleteChunkSize <= 0) {
+      count = executeAclDelete(spec, (id, cb) -> null);
+    } else {
+      // The id ranges are found via the id index without the ACL predicate, so the ranges are of the same size
+      Comparable<Object> lowerId = null;
+      do {
+        Comparable<Object> from = lowerId;
+        Comparable<Object> to = findIdRangeUpperBound(lowerId);
+        count += executeAclDelete(spec, (id, cb) -> {
+          Predicate lower = from == null ? cb.conjunction() : cb.greaterThan(id, from);
+          return to == null ? lower : cb.and(lower, cb.lessThanOrEqualTo(id, to));
+        });
+        lowerId = to;
+      } while (lowerId != null);
+    }
+    fireEntitiesDeleted();
+    return count;
+  }
+
+  /**
+   * Returns the id of the last entity of the id range starting after the given id or null if the range is the last
+   * (partial) one.
+   */
+  @SuppressWarnings("unchecked")
+  private Comparable<Object> findIdRangeUpperBound(@Nullable Comparable<Object> lowerId) {
+    String idName = entityInformation.getIdAttribute().getName();
+    String queryString = String.format("select x.%s from %s x%s order by x.%s", idName,
+        entityInformation.getEntityName(), lowerId == null ? "" : " where x." + idName + " > :lowerId", idName);
+
+    Query query = em.createQuery(queryString).setFirstResult(deleteChunkSize - 1).setMaxResults(1);
+    if (lowerId != null) {
+      query.setParameter("lowerId", lowerId);
+    }
+    List<Object> result = query.getResultList();
+    return result.isEmpty() ? null : (Comparable<Object>) result.get(0);
+  }
+
+  /**
+   * Executes a {@code DELETE FROM T WHERE id IN (SELECT id FROM T WHERE <spec> AND <id restriction> AND <acl>)}
+   * statement. The id restriction is applied to the id of the outer statement too.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private int executeAclDelete(@Nullable Specification<T> spec,
+      BiFunction<Path<Comparable<Object>>, CriteriaBuilder, Predicate> idRestriction) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    SingularAttribute idAttribute = entityInformation.getIdAttribute();
+
+    CriteriaDelete<T> delete = cb.createCriteriaDelete(getDomainClass());
+    Root<T> root = delete.from(getDomainClass());
+    Subquery subquery = delete.subquery(entityInformation.getIdType());
+    Root<T> subRoot = subquery.from(getDomainClass());
+
+    List<Predicate> predicates = new ArrayList<>();
+    if (spec != null) {
+      Predicate predicate = spec.toPredicate(subRoot, cb.createQuery(), cb);
+      if (predicate != null) {
+        predicates.add(predicate);
+      }
+    }
+    Predicate subRestriction = idRestriction.apply(subRoot.get(idAttribute), cb);
+    if (subRestriction != null) {
+      predicates.add(subRestriction);
+    }
+    if (aclSpecification != null) {
+      predicates.add(aclSpecification.toSubqueryPredicate(subRoot, subquery, cb, DELETE_PERMISSION));
+    }
+    subquery.select(subRoot.get(idAttribute)).where(predicates.toArray(new Predicate[predicates.size()]));
+
+    Predicate predicate = root.get(idAttribute).in(subquery);
+    Predicate restriction = idRestriction.apply(root.get(idAttribute), cb);
+    delete.where(restriction == null ? predicate : cb.and(restriction, predicate));
+
+    return em.createQuery(delete).executeUpdate();
+  }
+
+  /**
+   * The bulk deletes don't send any event for the deleted entities, so the caches and the indexes are notified about
+   * the deleted type.
+   */
+  private void fireEntitiesDeleted() {
+    AclEntityListener.fireEntitiesDeleted(em.getEntityManagerFactory(), getDomainClass());
   }
 
   /*
@@ -247,6 +383,7 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     CriteriaDelete<T> delete = cb.createCriteriaDelete(getDomainClass());
     delete.from(getDomainClass());
     em.createQuery(delete).executeUpdate();
+    fireEntitiesDeleted();
   }
 
   @Override
@@ -267,6 +404,20 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
   @Override
   public Optional<T> findById(ID id, String permission) {
     Assert.notNull(id, ID_MUST_NOT_BE_NULL);
+    if (aclSpecification == null || permissionDecisionCache == null) {
+      return findByIdWithPermissionCheck(id, permission);
+    }
+    Boolean permitted = permissionDecisionCache.get(getDomainClass(), id, permission);
+    if (permitted != null) {
+      // The permission was already checked in this request: load the entity (usually from the persistence context)
+      return permitted ? super.findById(id) : Optional.empty();
+    }
+    Optional<T> result = findByIdWithPermissionCheck(id, permission);
+    permissionDecisionCache.put(getDomainClass(), id, permission, result.isPresent());
+    return result;
+  }
+
+  private Optional<T> findByIdWithPermissionCheck(ID id, String permission) {
     return findOne(new Specification<T>() {
 
       private static final long serialVersionUID = 1L;
@@ -304,7 +455,35 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
    */
   @Override
   public boolean existsById(ID id) {
-    return findById(id).isPresent();
+    return exists(id, READ_PERMISSION);
+  }
+
+  @Override
+  public boolean exists(ID id, String permission) {
+    Assert.notNull(id, ID_MUST_NOT_BE_NULL);
+    if (aclSpecification != null && permissionDecisionCache != null) {
+      Boolean permitted = permissionDecisionCache.get(getDomainClass(), id, permission);
+      if (permitted != null) {
+        return permitted;
+      }
+    }
+
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+    Root<T> root = query.from(getDomainClass());
+
+    Predicate predicate = cb.equal(root.get(entityInformation.getIdAttribute()), id);
+    if (aclSpecification != null) {
+      predicate = cb.and(predicate, aclSpecification.toPredicate(root, query, cb, permission));
+    }
+    // A single constant row is enough: no DISTINCT and the DB can stop at the first matching ACL branch
+    query.select(cb.literal(1)).where(predicate).distinct(false);
+    boolean exists = !applyRepositoryMethodMetadata(em.createQuery(query)).setMaxResults(1).getResultList().isEmpty();
+
+    if (aclSpecification != null && permissionDecisionCache != null) {
+      permissionDecisionCache.put(getDomainClass(), id, permission, exists);
+    }
+    return exists;
   }
 
   /*
@@ -322,6 +501,112 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     return getQuery(null, Sort.unsorted(), permission).getResultList();
   }
 
+  @Override
+  @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+  public Stream<T> streamAll(@Nullable Specification<T> spec, String permission) {
+    return AclStreams.stream(getQuery(spec, Sort.unsorted(), permission), em, streamFetchSize);
+  }
+
+  @Override
+  public void forEachChunk(@Nullable Specification<T> spec, String permission, int chunkSize,
+      Consumer<? super List<T>> consumer) {
+    Assert.isTrue(chunkSize > 0, "Chunk size must be positive!");
+
+    try (Stream<T> stream = AclStreams.stream(getQuery(spec, Sort.unsorted(), permission), em, chunkSize)) {
+      List<T> chunk = new ArrayList<>(chunkSize);
+      Iterator<T> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        chunk.add(iterator.next());
+        if (chunk.size() == chunkSize) {
+          consumer.accept(chunk);
+          chunk = new ArrayList<>(chunkSize);
+        }
+      }
+      if (!chunk.isEmpty()) {
+        consumer.accept(chunk);
+      }
+    }
+  }
+
+  @Override
+  public List<T> findAllAfter(@Nullable Specification<T> spec, Sort sort, @Nullable List<?> lastSeenValues, int limit,
+      String permission) {
+    return findAllAfter(spec, getDomainClass(), sort, lastSeenValues, limit, permission);
+  }
+
+  @Override
+  public List<Object> getKeysetValues(T entity, Sort sort) {
+    Assert.notNull(entity, "The given entity must not be null!");
+
+    BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+    List<Object> values = new ArrayList<>();
+    for (Sort.Order order : toKeysetSort(sort, getDomainClass())) {
+      values.add(wrapper.getPropertyValue(order.getProperty()));
+    }
+    return values;
+  }
+
+  /**
+   * Executes a keyset query. The selected entities are not necessarily the root entities (see
+   * {@link PropertySpecification}), so the type of the selected entities is needed for the tiebreaker id key.
+   */
+  private List<T> findAllAfter(@Nullable Specification<T> spec, Class<?> selectedType, Sort sort,
+      @Nullable List<?> lastSeenValues, int limit, String permission) {
+    Assert.isTrue(limit > 0, "Limit must be positive!");
+
+    Sort keysetSort = toKeysetSort(sort, selectedType);
+    if (lastSeenValues != null) {
+      Assert.isTrue(lastSeenValues.size() == keysetSort.stream().count(),
+          "The number of the last seen values must match the number of the keys: " + keysetSort);
+    }
+    // The keyset specification also orders the query (with explicit null precedence of the nullable keys)
+    spec = new KeysetSpecification<>(spec, keysetSort, getNullableKeys(keysetSort, selectedType), lastSeenValues);
+
+    TypedQuery<T> query = getQuery(spec, Sort.unsorted(), permission);
+    query.setMaxResults(limit);
+    return query.getResultList();
+  }
+
+  /**
+   * Returns the orders of the given sort (without any search patterns) completed with the id of the given type as
+   * the last key.
+   */
+  private Sort toKeysetSort(@Nullable Sort sort, Class<?> type) {
+    EntityType<?> entityType = em.getMetamodel().entity(type);
+    String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+    Sort keysetSort = sort == null ? Sort.unsorted() : Sort.by(sort.stream().collect(Collectors.toList()));
+    if (keysetSort.getOrderFor(idName) == null) {
+      keysetSort = keysetSort.and(Sort.by(idName));
+    }
+    return keysetSort;
+  }
+
+  /**
+   * Returns the properties of the given sort which can be {@literal null} (optional attributes or attributes of
+   * optional associations).
+   */
+  private Set<String> getNullableKeys(Sort sort, Class<?> type) {
+    Set<String> nullableKeys = new HashSet<>();
+    for (Sort.Order order : sort) {
+      ManagedType<?> managedType = em.getMetamodel().managedType(type);
+      for (String part : order.getProperty().split("\\.")) {
+        Attribute<?, ?> attribute = managedType.getAttribute(part);
+        if (!(attribute instanceof SingularAttribute) || ((SingularAttribute<?, ?>) attribute).isOptional()
+            && !((SingularAttribute<?, ?>) attribute).isId() && !attribute.getJavaType().isPrimitive()) {
+          nullableKeys.add(order.getProperty());
+          break;
+        }
+        Type<?> attributeType = ((SingularAttribute<?, ?>) attribute).getType();
+        if (!(attributeType instanceof ManagedType)) {
+          break;
+        }
+        managedType = (ManagedType<?>) attributeType;
+      }
+    }
+    return nullableKeys;
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -376,8 +661,9 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
       FlushModeType oldMode = em.getFlushMode();
       em.setFlushMode(FlushModeType.COMMIT);
       Object id = entityInformation.getId(entity);
-      findById((ID) id, UPDATE_PERMISSION).orElseThrow(
-          () -> new AclUpdatePermissionException("Cannot update" + getDomainClass().getName() + " with id " + id));
+      if (!exists((ID) id, UPDATE_PERMISSION)) {
+        throw new AclUpdatePermissionException("Cannot update" + getDomainClass().getName() + " with id " + id);
+      }
       em.setFlushMode(oldMode);
       return em.merge(entity);
     }
@@ -389,6 +675,81 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     return super.save(entity);
   }
 
+  /**
+   * Saves all the given entities after checking the permissions of the whole batch. The create permission is checked
+   * once per entity type, and the update permission of the existing entities is checked by loading them in chunks of
+   * {@code spring.data.jpa.acl.max-in-list-size} with a single ACL-filtered {@code IN} query per chunk. Nothing is
+   * written if any of the entities cannot be saved. The loaded entities stay in the persistence context, so the merges
+   * do not need any further selects and the updates can be sent in JDBC batches.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  @Transactional
+  public <S extends T> List<S> saveAll(Iterable<S> entities) {
+    Assert.notNull(entities, "The given Iterable of entities not be null!");
+    if (aclSpecification == null || entityInformation.hasCompositeId()) {
+      List<S> result = new ArrayList<>();
+      for (S entity : entities) {
+        result.add(save(entity));
+      }
+      return result;
+    }
+
+    Set<Class<?>> creatableTypes = new HashSet<>();
+    Set<ID> ids = new LinkedHashSet<>();
+    for (S entity : entities) {
+      if (entityInformation.isNew(entity)) {
+        if (creatableTypes.add(entity.getClass()) && !aclSpecification.canBeCreated(entity)) {
+          throw new AclCreatePermissionException("New entity cannot be created.");
+        }
+      } else {
+        ids.add((ID) entityInformation.getId(entity));
+      }
+    }
+
+    if (!ids.isEmpty()) {
+      FlushModeType oldMode = em.getFlushMode();
+      em.setFlushMode(FlushModeType.COMMIT);
+      try {
+        Set<Object> permittedIds = findPermittedIds(new ArrayList<>(ids), UPDATE_PERMISSION);
+        for (ID id : ids) {
+          if (!permittedIds.contains(id)) {
+            throw new AclUpdatePermissionException("Cannot update" + getDomainClass().getName() + " with id " + id);
+          }
+        }
+      } finally {
+        em.setFlushMode(oldMode);
+      }
+    }
+
+    List<S> result = new ArrayList<>();
+    for (S entity : entities) {
+      if (entityInformation.isNew(entity)) {
+        em.persist(entity);
+        result.add(entity);
+      } else {
+        result.add(em.merge(entity));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Loads the entities of the given ids what the current user has the given permission to, and returns their ids. The
+   * ids are checked in chunks of {@code spring.data.jpa.acl.max-in-list-size}.
+   */
+  private Set<Object> findPermittedIds(List<ID> ids, String permission) {
+    Set<Object> permittedIds = new HashSet<>();
+    for (int i = 0; i < ids.size(); i += maxInListSize) {
+      List<ID> chunk = ids.subList(i, Math.min(i + maxInListSize, ids.size()));
+      Specification<T> idSpec = (root, query, cb) -> root.get(entityInformation.getIdAttribute()).in(chunk);
+      for (T entity : getQuery(idSpec, Sort.unsorted(), permission).getResultList()) {
+        permittedIds.add(entityInformation.getId(entity));
+      }
+    }
+    return permittedIds;
+  }
+
   /**
    * Creates a {@link TypedQuery} for the given {@link Specification} and {@link Sort}.
    *
@@ -426,6 +787,7 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
   protected <S extends T> TypedQuery<S> getQuery(Specification<S> spec, Class<S> domainClass, Sort sort,
       String permission) {
 
+    long start = System.nanoTime();
     CriteriaBuilder builder = em.getCriteriaBuilder();
     CriteriaQuery<S> query = builder.createQuery(domainClass);
 
@@ -436,13 +798,15 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     if (query.getSelection() instanceof From) {
       From<?, ?> from = (From<?, ?>) query.getSelection();
       if (aclSpecification != null && sort instanceof Search) {
-        aclSpecification.applySearch(query, builder, from, (Search) sort);
+        aclSpecification.applySearch(query, builder, from, (Search) sort, permission);
       } else if (sort.isSorted()) {
         query.orderBy(toOrders(sort, from, builder));
       }
     }
 
-    return applyRepositoryMethodMetadata(em.createQuery(query));
+    TypedQuery<S> typedQuery = applyRepositoryMethodMetadata(em.createQuery(query));
+    getMetrics().recordQueryCreation("query", domainClass, permission, System.nanoTime() - start);
+    return typedQuery;
   }
 
   /**
@@ -461,6 +825,7 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
 
   protected <S extends T> TypedQuery<Long> getCountQuery(Specification<S> spec, Class<S> domainClass, Sort sort) {
 
+    long start = System.nanoTime();
     CriteriaBuilder builder = em.getCriteriaBuilder();
     CriteriaQuery<Long> query = builder.createQuery(Long.class);
 
@@ -488,22 +853,73 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     // Remove all Orders the Specifications might have applied
     query.orderBy(Collections.<Order> emptyList());
 
-    return em.createQuery(query);
+    TypedQuery<Long> typedQuery = em.createQuery(query);
+    getMetrics().recordQueryCreation("count", domainClass, READ_PERMISSION, System.nanoTime() - start);
+    return typedQuery;
+  }
+
+  private AclMetrics getMetrics() {
+    return aclSpecification == null ? AclMetrics.NOOP : aclSpecification.getMetrics();
   }
 
   @Override
   protected <S extends T> Page<S> readPage(TypedQuery<S> query, final Class<S> domainClass, Pageable pageable,
       @Nullable Specification<S> spec) {
 
+    List<S> content = null;
     if (pageable.isPaged()) {
+      if (twoPhasePagination && !entityInformation.hasCompositeId()) {
+        content = readPageContentByIds(domainClass, pageable, spec);
+      }
       query.setFirstResult((int) pageable.getOffset());
       query.setMaxResults(pageable.getPageSize());
     }
 
-    return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+    return PageableExecutionUtils.getPage(content == null ? query.getResultList() : content, pageable,
         () -> executeCountQuery(getCountQuery(spec, domainClass, pageable.getSort())));
   }
 
+  /**
+   * Reads the content of the page in two phases: the first query selects only the permitted ids of the page (ordered by
+   * the sort keys or by the search relevance), then the entities are fetched by their ids (with the query hints and the
+   * fetch graph of the repository method) and they are reordered in memory. Returns {@literal null} if the selection
+   * of the query is not the root entity (see {@link PropertySpecification}).
+   */
+  @Nullable
+  private <S extends T> List<S> readPageContentByIds(Class<S> domainClass, Pageable pageable,
+      @Nullable Specification<S> spec) {
+
+    long start = System.nanoTime();
+    CriteriaBuilder builder = em.getCriteriaBuilder();
+    CriteriaQuery<Object> query = builder.createQuery(Object.class);
+
+    Root<S> root = applySpecificationToCriteria(spec, domainClass, query, READ_PERMISSION);
+    if (query.getSelection() != null) {
+      return null;
+    }
+    Path<?> id = root.get(entityInformation.getIdAttribute());
+    query.select(id);
+
+    Sort sort = pageable.getSort();
+    if (aclSpecification != null && sort instanceof Search) {
+      aclSpecification.applySearch(query, builder, root, (Search) sort);
+    } else if (sort.isSorted()) {
+      AclPages.orderIds(query, builder, id, toOrders(sort, root, builder));
+    }
+
+    TypedQuery<Object> idQuery = em.createQuery(query);
+    getMetrics().recordQueryCreation("id-query", domainClass, READ_PERMISSION, System.nanoTime() - start);
+    idQuery.setFirstResult((int) pageable.getOffset());
+    idQuery.setMaxResults(pageable.getPageSize());
+
+    return AclPages.fetchByIds(idQuery.getResultList(), maxInListSize, ids -> {
+      CriteriaQuery<S> fetchQuery = builder.createQuery(domainClass);
+      Root<S> fetchRoot = fetchQuery.from(domainClass);
+      fetchQuery.select(fetchRoot).where(fetchRoot.get(entityInformation.getIdAttribute()).in(ids));
+      return applyRepositoryMethodMetadata(em.createQuery(fetchQuery)).getResultList();
+    }, entityInformation::getId);
+  }
+
   /**
    * Executes a count query and transparently sums up all values returned.
    *
@@ -604,6 +1020,15 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
     return findAll(new PropertyComplementSpecification<>(id, property), pageable);
   }
 
+  @Override
+  @Transactional
+  public List<?> findPropertyAfter(ID id, PersistentProperty<? extends PersistentProperty<?>> property, Sort sort,
+      @Nullable List<?> lastSeenValues, int limit) {
+    Assert.isTrue(property.isCollectionLike(), "Keyset queries are supported only on collection-like properties!");
+    return findAllAfter(new PropertySpecification<>(id, property), property.getActualType(), sort, lastSeenValues,
+        limit, READ_PERMISSION);
+  }
+
   @Override
   @Transactional
   public Object findProperty(ID id, PersistentProperty<? extends PersistentProperty<?>> property, Object propertyId) {
@@ -688,6 +1113,131 @@ public class SimpleAclJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> im
 
   }
 
+  /**
+   * Selects the entities of the given composite ids with a {@code (a = a1 AND b = b1) OR (a = a2 AND b = b2) OR ...}
+   * predicate, because JPA has no portable tuple {@code IN} expression.
+   */
+  private static class CompositeIdsSpecification<S> implements Specification<S> {
+
+    private static final long serialVersionUID = -4164787853164227447L;
+
+    private final JpaEntityInformation<S, ?> entityInformation;
+    private final List<String> idAttributeNames;
+    private final List<?> ids;
+
+    public CompositeIdsSpecification(JpaEntityInformation<S, ?> entityInformation, List<String> idAttributeNames,
+        List<?> ids) {
+      this.entityInformation = entityInformation;
+      this.idAttributeNames = idAttributeNames;
+      this.ids = ids;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<S> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+      List<Predicate> branches = new ArrayList<>();
+      for (Object id : ids) {
+        List<Predicate> equals = new ArrayList<>();
+        for (String idAttributeName : idAttributeNames) {
+          equals.add(cb.equal(root.get(idAttributeName),
+              entityInformation.getCompositeIdAttributeValue(id, idAttributeName)));
+        }
+        branches.add(cb.and(equals.toArray(new Predicate[equals.size()])));
+      }
+      return cb.or(branches.toArray(new Predicate[branches.size()]));
+    }
+  }
+
+  /**
+   * Seek predicate and order of the keyset pagination. It wraps the original specification and appends the
+   * {@code (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...} predicate (with {@code <} for descending keys) on the selected
+   * entity, and orders the query by the keys.
+   * <p>
+   * The null precedence of the nullable keys is not left to the database: the {@literal null} values are sorted last
+   * (or first for {@link Sort.NullHandling#NULLS_FIRST}) by an additional {@code CASE} order, and the seek predicate
+   * has the matching {@code IS NULL} / {@code IS NOT NULL} branches.
+   */
+  private static class KeysetSpecification<S> implements Specification<S> {
+
+    private static final long serialVersionUID = 2713394584283117375L;
+
+    private final Specification<S> spec;
+    private final Sort sort;
+    private final Set<String> nullableKeys;
+    private final List<?> values;
+
+    public KeysetSpecification(@Nullable Specification<S> spec, Sort sort, Set<String> nullableKeys,
+        @Nullable List<?> values) {
+      this.spec = spec;
+      this.sort = sort;
+      this.nullableKeys = nullableKeys;
+      this.values = values;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public Predicate toPredicate(Root<S> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+      Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+
+      // The wrapped specification could change the selection (see PropertySpecification)
+      From<?, ?> from = query.getSelection() instanceof From ? (From<?, ?>) query.getSelection() : root;
+
+      List<Order> orders = new ArrayList<>();
+      for (Sort.Order order : sort) {
+        Expression<?> path = getPath(from, order.getProperty());
+        if (nullableKeys.contains(order.getProperty())) {
+          Expression<Integer> isNull = cb.<Integer> selectCase().when(cb.isNull(path), 1).otherwise(0);
+          orders.add(isNullsFirst(order) ? cb.desc(isNull) : cb.asc(isNull));
+        }
+        orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+      }
+      query.orderBy(orders);
+
+      if (values == null) {
+        return predicate;
+      }
+
+      List<Predicate> branches = new ArrayList<>();
+      List<Predicate> equals = new ArrayList<>();
+      Iterator<?> valueIterator = values.iterator();
+      for (Sort.Order order : sort) {
+        Expression path = getPath(from, order.getProperty());
+        Comparable value = (Comparable) valueIterator.next();
+        boolean nullable = nullableKeys.contains(order.getProperty());
+        Predicate after;
+        if (value == null) {
+          // Only the non-null values can follow a null if the nulls are first
+          after = nullable && isNullsFirst(order) ? cb.isNotNull(path) : null;
+        } else {
+          after = order.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+          if (nullable && !isNullsFirst(order)) {
+            after = cb.or(after, cb.isNull(path));
+          }
+        }
+        if (after != null) {
+          List<Predicate> branch = new ArrayList<>(equals);
+          branch.add(after);
+          branches.add(cb.and(branch.toArray(new Predicate[branch.size()])));
+        }
+        equals.add(value == null ? cb.isNull(path) : cb.equal(path, value));
+      }
+
+      Predicate seekPredicate = cb.or(branches.toArray(new Predicate[branches.size()]));
+      return predicate == null ? seekPredicate : cb.and(predicate, seekPredicate);
+    }
+
+    private static boolean isNullsFirst(Sort.Order order) {
+      return order.getNullHandling() == Sort.NullHandling.NULLS_FIRST;
+    }
+
+    private static Path<?> getPath(From<?, ?> from, String property) {
+      Path<?> path = from;
+      for (String part : property.split("\\.")) {
+        path = path.get(part);
+      }
+      return path;
+    }
+  }
+
   /**
    * Specification that gives access to the {@link Parameter} instance used to bind the ids for
    * {@link SimpleJpaRepository#findAllById(Iterable)}. Workaround for OpenJPA not binding collections to in-clauses
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.rest.webmvc;
+
+import java.util.List;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.AclReadPermissionException;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.data.rest.webmvc.support.DefaultedPageable;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.berrycloud.acl.AclConstants;
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+/**
+ * Helper for the {@code ?after=} cursor parameter of the collection and property-reference endpoints. The cursor is
+ * the id of the last entity of the previous chunk (or empty for the first chunk). The values of the sort keys are
+ * loaded from that entity, so the cursor remains valid as long as the entity is readable by the current user.
+ *
+ * @author István Rátkai (Selindek)
+ */
+final class AclKeysetCursor {
+
+  static final String AFTER_PARAMETER = "after";
+
+  private static final int DEFAULT_LIMIT = 20;
+
+  private AclKeysetCursor() {
+  }
+
+  /**
+   * Returns the last seen values for the given cursor or null if the cursor is empty.
+   *
+   * @throws AclReadPermissionException
+   *           if the cursor entity cannot be found or the current user has no READ permission to it
+   */
+  static List<?> getLastSeenValues(AclJpaRepository<Object, Object> repository, Class<?> idType, String after,
+      Sort sort, ConversionService conversionService) {
+
+    if (after == null || after.isEmpty()) {
+      return null;
+    }
+    Object lastSeen = repository.findById(conversionService.convert(after, idType), AclConstants.READ_PERMISSION)
+        .orElseThrow(() -> new AclReadPermissionException());
+    return repository.getKeysetValues(lastSeen, sort);
+  }
+
+  static Sort getSort(DefaultedPageable pageable) {
+    return pageable == null ? Sort.unsorted() : pageable.getPageable().getSort();
+  }
+
+  static int getLimit(DefaultedPageable pageable) {
+    Pageable page = pageable == null ? Pageable.unpaged() : pageable.getPageable();
+    return page.isPaged() ? page.getPageSize() : DEFAULT_LIMIT;
+  }
+
+  /**
+   * Adds a 'next' link to the resources if the chunk is full, so there might be more entities after it.
+   */
+  static void addNextLink(Resources<?> resources, List<?> content, int limit, Class<?> domainType,
+      Repositories repositories) {
+    if (content.size() < limit) {
+      return;
+    }
+    Object last = content.get(content.size() - 1);
+    Object lastId = repositories.getEntityInformationFor(domainType).getId(last);
+
+    String href = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("page")
+        .replaceQueryParam(AFTER_PARAMETER, lastId).build().toUriString();
+    resources.add(new Link(href, Link.REL_NEXT));
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.rest.webmvc;
+
+import static org.springframework.data.rest.webmvc.AclKeysetCursor.AFTER_PARAMETER;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.data.rest.core.mapping.ResourceType;
+import org.springframework.data.rest.webmvc.support.DefaultedPageable;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.berrycloud.acl.AclConstants;
+import com.berrycloud.acl.repository.AclJpaRepository;
+
+/**
+ * Keyset (seek) pagination of the collection resources. Requests with an {@code after} parameter are served by this
+ * controller instead of the original {@link RepositoryEntityController}. (See {@link AclKeysetCursor}.)
+ *
+ * @author István Rátkai (Selindek)
+ */
+@RepositoryRestController
+@SuppressWarnings({ "unchecked" })
+public class RepositoryAclEntityController extends AbstractRepositoryRestController {
+
+  private static final String BASE_MAPPING = "/{repository}";
+
+  private final Repositories repositories;
+  private final ConversionService conversionService;
+
+  @Autowired
+  public RepositoryAclEntityController(Repositories repositories, PagedResourcesAssembler<Object> assembler,
+      ConversionService defaultConversionService) {
+
+    super(assembler);
+
+    this.repositories = repositories;
+    this.conversionService = defaultConversionService;
+  }
+
+  @ResponseBody
+  @RequestMapping(value = BASE_MAPPING, method = GET, params = AFTER_PARAMETER)
+  public Resources<?> getCollectionResourceAfter(final RootResourceInformation resourceInformation,
+      DefaultedPageable pageable, @RequestParam(AFTER_PARAMETER) String after,
+      PersistentEntityResourceAssembler assembler)
+      throws ResourceNotFoundException, HttpRequestMethodNotSupportedException {
+
+    resourceInformation.verifySupportedMethod(HttpMethod.GET, ResourceType.COLLECTION);
+
+    Class<?> domainType = resourceInformation.getDomainType();
+    AclJpaRepository<Object, Object> repository = getAclRepository(domainType);
+    Class<?> idType = repositories.getEntityInformationFor(domainType).getIdType();
+
+    Sort sort = AclKeysetCursor.getSort(pageable);
+    int limit = AclKeysetCursor.getLimit(pageable);
+    List<?> lastSeenValues = AclKeysetCursor.getLastSeenValues(repository, idType, after, sort, conversionService);
+
+    List<Object> content = repository.findAllAfter(null, sort, lastSeenValues, limit, AclConstants.READ_PERMISSION);
+
+    Resources<?> resources = toResources(content, assembler, domainType, Optional.empty());
+    AclKeysetCursor.addNextLink(resources, content, limit, domainType, repositories);
+    return resources;
+  }
+
+  protected AclJpaRepository<Object, Object> getAclRepository(Class<?> type) {
+    Object repository = repositories.getRepositoryFor(type).orElseThrow(() -> new ResourceNotFoundException());
+
+    if (!AclJpaRepository.class.isAssignableFrom(AopUtils.getTargetClass(repository))) {
+      throw new ResourceNotFoundException();
+    }
+    return (AclJpaRepository<Object, Object>) repository;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package org.springframework.data.rest.webmvc;
 
+import static org.springframework.data.rest.webmvc.AclKeysetCursor.AFTER_PARAMETER;
 import static org.springframework.data.rest.webmvc.ControllerUtils.EMPTY_RESOURCE_LIST;
 import static org.springframework.data.rest.webmvc.RestMediaTypes.SPRING_DATA_COMPACT_JSON_VALUE;
 import static org.springframework.data.rest.webmvc.RestMediaTypes.TEXT_URI_LIST_VALUE;
@@ -50,6 +51,7 @@ import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.AclReadPermissionException;
 import org.springframework.data.jpa.repository.support.AclUpdatePermissionException;
 import org.springframework.data.mapping.PersistentProperty;
@@ -79,6 +81,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import com.berrycloud.acl.AclConstants;
 import com.berrycloud.acl.annotation.AclLinkRole;
@@ -130,7 +133,8 @@ public class RepositoryAclPropertyReferenceController extends AbstractRepository
   @RequestMapping(value = BASE_MAPPING, method = GET)
   public ResponseEntity<ResourceSupport> followPropertyReference(final RootResourceInformation repoRequest,
       @BackendId Serializable id, final @PathVariable String property,
-      final PersistentEntityResourceAssembler assembler, DefaultedPageable pageable) throws Exception {
+      final PersistentEntityResourceAssembler assembler, DefaultedPageable pageable,
+      @RequestParam(name = AFTER_PARAMETER, required = false) String after) throws Exception {
 
     final HttpHeaders headers = new HttpHeaders();
 
@@ -145,6 +149,15 @@ public class RepositoryAclPropertyReferenceController extends AbstractRepository
         return new Resource<Object>(resources);
       }
 
+      if (after != null && prop.property.isCollectionLike()) {
+        // Keyset pagination via ACL
+        List<?> content = findPropertyAfter(prop, pageable, after);
+        Resources<?> resources = toResources(content, assembler, prop.propertyType, Optional.empty());
+        AclKeysetCursor.addNextLink(resources, content, AclKeysetCursor.getLimit(pageable), prop.propertyType,
+            repositories);
+        return resources;
+      }
+
       // Load via ACL
       Object propertyValue = findProperty(prop, pageable);
 
@@ -273,7 +286,7 @@ public class RepositoryAclPropertyReferenceController extends AbstractRepository
       @BackendId Serializable id, @PathVariable String property, PersistentEntityResourceAssembler assembler,
       DefaultedPageable pageable) throws Exception {
 
-    return createCompactResponse(followPropertyReference(repoRequest, id, property, assembler, pageable));
+    return createCompactResponse(followPropertyReference(repoRequest, id, property, assembler, pageable, null));
   }
 
   private ResponseEntity<ResourceSupport> createCompactResponse(ResponseEntity<ResourceSupport> response) {
@@ -598,8 +611,11 @@ public class RepositoryAclPropertyReferenceController extends AbstractRepository
         // Other side is a singular property: need UPDATE permission only to the other side of the association
         propertyPermission = AclConstants.UPDATE_PERMISSION;
       } else {
-        domainObj = parentRepository.findById(id, AclConstants.UPDATE_PERMISSION);
-        if (!domainObj.isPresent()) {
+        if (parentRepository.exists(id, AclConstants.UPDATE_PERMISSION)) {
+          // The permission is already checked, so the entity can be loaded directly (the id could be a String here)
+          Class<Object> ownerIdType = repositories.getEntityInformationFor(property.getOwner().getType()).getIdType();
+          domainObj = parentRepository.findByIdWithoutPermissionCheck(conversionService.convert(id, ownerIdType));
+        } else {
           if (property.isMap() || property.isAnnotationPresent(ManyToOne.class)) {
             // Singular property reference or map: UPDATE permission is mandatory on this side
             throw new AclUpdatePermissionException();
@@ -650,6 +666,18 @@ public class RepositoryAclPropertyReferenceController extends AbstractRepository
     return prop.parentRepository.findProperty(ownerId, prop.property, page);
   }
 
+  protected List<?> findPropertyAfter(ReferencedProperty prop, DefaultedPageable pageable, String after) {
+
+    Object ownerId = prop.accessor.getProperty(prop.property.getOwner().getIdProperty());
+
+    // find the next chunk of the collection property
+    Sort sort = AclKeysetCursor.getSort(pageable);
+    List<?> lastSeenValues = AclKeysetCursor.getLastSeenValues(prop.propertyRepository, prop.idType, after, sort,
+        conversionService);
+    return prop.parentRepository.findPropertyAfter(ownerId, prop.property, sort, lastSeenValues,
+        AclKeysetCursor.getLimit(pageable));
+  }
+
   protected Page<Object> findPropertyComplement(ReferencedProperty prop, DefaultedPageable pageable) {
 
     Object ownerId = prop.accessor.getProperty(prop.property.getOwner().getIdProperty());
@@ -0,0 +1,11 @@
+package com.berrycloud.acl;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs all the repository tests using the {@link AclPredicateStrategy#EXISTS} predicate strategy.
+ */
+@TestPropertySource(properties = "spring.data.jpa.acl.predicate-strategy=exists")
+public class AclAllRepositoryExistsStrategyIntegrationTest extends AclAllRepositoryIntegrationTest {
+
+}
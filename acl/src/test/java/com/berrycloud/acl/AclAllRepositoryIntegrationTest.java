@@ -3,14 +3,21 @@ package com.berrycloud.acl;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -36,6 +43,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.berrycloud.acl.data.AuthorityMask;
 import com.berrycloud.acl.domain.SimpleAclRole;
 import com.berrycloud.acl.domain.SimpleAclUser;
 import com.berrycloud.acl.sample.all.AclAppAll;
@@ -55,8 +63,10 @@ import com.berrycloud.acl.sample.all.repository.ProjectRepository;
 import com.berrycloud.acl.sample.all.repository.RoleRepository;
 import com.berrycloud.acl.sample.all.repository.ThemeRepository;
 import com.berrycloud.acl.sample.all.service.PersonService;
+import com.berrycloud.acl.search.Search;
 import com.berrycloud.acl.security.AclUserDetails;
 import com.berrycloud.acl.security.AclUserDetailsService;
+import com.berrycloud.acl.security.access.AclPermissionEvaluator;
 
 @SpringBootTest(classes = AclAppAll.class)
 @RunWith(SpringRunner.class)
@@ -99,6 +109,9 @@ public class AclAllRepositoryIntegrationTest {
   @Autowired
   private PersonService personService;
 
+  @Autowired
+  private AclPermissionEvaluator aclPermissionEvaluator;
+
   private SimpleAclRole adminRole;
   private SimpleAclRole editorRole;
   private SimpleAclRole manipulatorRole;
@@ -440,6 +453,52 @@ public class AclAllRepositoryIntegrationTest {
     personRepository.save(user3);
   }
 
+  @Test
+  public void testGivenAdminAuthenticationWhenCallFindAllWithSearchThenReturnMatchingObjects() {
+    setAuthentication("admin");
+    List<Person> list = personRepository.findAll(new Search("user2"));
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+  }
+
+  @Test
+  public void testGivenAdminAuthenticationWhenCallSaveAllThenObjectsAreSaved() {
+    setAuthentication("admin");
+    em.flush();
+    em.clear();
+    Person detachedUser = new Person("user", "changed", "u");
+    detachedUser.setId(user.getId());
+    Person newUser = new Person("user4", "u4", "u4");
+    List<Person> saved = personRepository.saveAll(Arrays.asList(detachedUser, newUser));
+    em.flush();
+    em.clear();
+
+    assertThat(saved.size(), is(2));
+    assertThat(personRepository.getOne(user.getId()).getFirstName(), is("changed"));
+    assertTrue(personRepository.findById(saved.get(1).getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallSaveAllWithoutPermissionThenNothingIsSaved() {
+    setAuthentication("user");
+    em.flush();
+    em.clear();
+    Person detachedUser2 = new Person("user2", "changed", "u2");
+    detachedUser2.setId(user2.getId());
+    Person detachedAdmin = new Person("admin", "changed", "a");
+    detachedAdmin.setId(admin.getId());
+    try {
+      personRepository.saveAll(Arrays.asList(detachedUser2, detachedAdmin));
+      fail("AclUpdatePermissionException expected");
+    } catch (AclUpdatePermissionException e) {
+      // expected
+    }
+    em.flush();
+    em.clear();
+
+    assertThat(personRepository.getOne(user2.getId()).getFirstName(), is("u2"));
+  }
+
   @Test
   public void testGivenUserAuthenticationWhenCallfindAllSortedThenReturnPermittedObjectsInProperOrder() {
     setAuthentication("user");
@@ -514,6 +573,39 @@ public class AclAllRepositoryIntegrationTest {
     assertTrue(personService.loadInvalidObject(null, AclConstants.READ_PERMISSION));
   }
 
+  @Test
+  public void testGivenUserAuthenticationWhenCallHasPermissionsThenReturnPermittedIds() {
+    setAuthentication("user");
+    Set<Object> ids = aclPermissionEvaluator.hasPermissions(SecurityContextHolder.getContext().getAuthentication(),
+        Arrays.asList(admin.getId(), user.getId(), user2.getId(), user3.getId()), Person.class,
+        AclConstants.READ_PERMISSION);
+    assertThat(ids, is(new HashSet<Object>(Arrays.asList(user.getId(), user2.getId()))));
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallAuthorizedMethodByIdCollectionWithPermissionThenMethodIsCalled() {
+    setAuthentication("user");
+    assertTrue(personService.loadPersons(Arrays.asList(user.getId(), user2.getId()), AclConstants.READ_PERMISSION));
+  }
+
+  @Test(expected = AccessDeniedException.class)
+  public void testGivenUserAuthenticationWhenCallAuthorizedMethodByIdCollectionWithoutPermissionThenThrowException() {
+    setAuthentication("user");
+    personService.loadPersons(Arrays.asList(user.getId(), user3.getId()), AclConstants.READ_PERMISSION);
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallAuthorizedMethodByObjectCollectionWithPermissionThenMethodIsCalled() {
+    setAuthentication("user");
+    assertTrue(personService.loadPersonObjects(Arrays.asList(user, user2), AclConstants.READ_PERMISSION));
+  }
+
+  @Test(expected = AccessDeniedException.class)
+  public void testGivenUserAuthenticationWhenCallAuthorizedMethodByObjectCollectionWithoutPermissionThenThrowException() {
+    setAuthentication("user");
+    personService.loadPersonObjects(Arrays.asList(user, admin), AclConstants.READ_PERMISSION);
+  }
+
   @Test
   public void testGivenUserAuthenticationWhenCallHasAuthorityThenReturnProperValues() {
     setAuthentication("user");
@@ -689,4 +781,127 @@ public class AclAllRepositoryIntegrationTest {
 
     assertTrue(personRepository.existsById(user.getId()));
   }
+
+  @Test
+  public void testGivenAuthenticationWhenCallFindAllThenAuthorityMaskIsCachedOnPrincipal() {
+    setAuthentication("user");
+    AclUserDetails userDetails = AclUserDetailsService.getAclUserDetails();
+    assertNull(userDetails.getAuthorityMask());
+    personRepository.findAll();
+    AuthorityMask authorityMask = userDetails.getAuthorityMask();
+    assertNotNull(authorityMask);
+    personRepository.findAll();
+    assertSame(authorityMask, userDetails.getAuthorityMask());
+  }
+
+  @Test
+  public void testGivenAdminAuthenticationWhenCallFindAllAfterThenReturnChunksInSortOrder() {
+    setAuthentication("admin");
+    Sort sort = Sort.by(Sort.Direction.DESC, "username");
+
+    List<Person> chunk = personRepository.findAllAfter(null, sort, null, 2, AclConstants.READ_PERMISSION);
+    assertThat(chunk, is(Arrays.asList(user3, user2)));
+
+    List<Object> lastSeenValues = personRepository.getKeysetValues(chunk.get(1), sort);
+    assertThat(lastSeenValues, is(Arrays.asList("user2", user2.getId())));
+    chunk = personRepository.findAllAfter(null, sort, lastSeenValues, 2, AclConstants.READ_PERMISSION);
+    assertThat(chunk, is(Arrays.asList(user, admin)));
+
+    lastSeenValues = personRepository.getKeysetValues(chunk.get(1), sort);
+    assertTrue(personRepository.findAllAfter(null, sort, lastSeenValues, 2, AclConstants.READ_PERMISSION).isEmpty());
+  }
+
+  @Test
+  public void testGivenNullSortValuesWhenCallFindAllAfterThenAllEntitiesArePagedOnce() {
+    setAuthentication("admin");
+    admin.setLastName(null);
+    user2.setLastName(null);
+    em.flush();
+
+    // The nulls are sorted last by default
+    assertThat(readAllByKeyset(Sort.by("lastName")), is(Arrays.asList(user, user3, admin, user2)));
+    assertThat(readAllByKeyset(Sort.by(Sort.Direction.DESC, "lastName")), is(Arrays.asList(user3, user, admin, user2)));
+    assertThat(readAllByKeyset(Sort.by(Sort.Order.asc("lastName").nullsFirst())),
+        is(Arrays.asList(admin, user2, user, user3)));
+  }
+
+  private List<Person> readAllByKeyset(Sort sort) {
+    List<Person> result = new ArrayList<>();
+    List<Object> lastSeenValues = null;
+    for (List<Person> chunk; !(chunk = personRepository.findAllAfter(null, sort, lastSeenValues, 1,
+        AclConstants.READ_PERMISSION)).isEmpty();) {
+      result.addAll(chunk);
+      lastSeenValues = personRepository.getKeysetValues(chunk.get(0), sort);
+    }
+    return result;
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallFindAllAfterThenReturnOnlyPermittedEntities() {
+    setAuthentication("user");
+    Sort sort = Sort.by("username");
+
+    List<Person> chunk = personRepository.findAllAfter(null, sort, null, 1, AclConstants.READ_PERMISSION);
+    assertThat(chunk, is(Arrays.asList(user)));
+
+    chunk = personRepository.findAllAfter(null, sort, personRepository.getKeysetValues(user, sort), 1,
+        AclConstants.READ_PERMISSION);
+    assertThat(chunk, is(Arrays.asList(user2)));
+
+    chunk = personRepository.findAllAfter(null, sort, personRepository.getKeysetValues(user2, sort), 1,
+        AclConstants.READ_PERMISSION);
+    assertTrue(chunk.isEmpty());
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallStreamAllThenReturnPermittedEntities() {
+    setAuthentication("user");
+    try (Stream<Person> stream = personRepository.streamAll(null, AclConstants.READ_PERMISSION)) {
+      assertThat(stream.map(Person::getUsername).collect(Collectors.toSet()),
+          is(new HashSet<>(Arrays.asList("user", "user2"))));
+    }
+  }
+
+  @Test
+  public void testGivenAdminAuthenticationWhenCallForEachChunkThenPreviousChunksAreDetached() {
+    setAuthentication("admin");
+    List<List<Person>> chunks = new ArrayList<>();
+    personRepository.forEachChunk(null, AclConstants.READ_PERMISSION, 3, chunk -> {
+      chunk.forEach(person -> assertTrue(em.contains(person)));
+      chunks.forEach(previous -> previous.forEach(person -> assertFalse(em.contains(person))));
+      chunks.add(chunk);
+    });
+
+    assertThat(chunks.size(), is(2));
+    assertThat(chunks.get(0).size(), is(3));
+    assertThat(chunks.get(1).size(), is(1));
+  }
+
+  @Test
+  public void testGivenChangesWhenCallForEachChunkThenChangesAreFlushedAndOtherEntitiesStayManaged() {
+    setAuthentication("admin");
+    personRepository.forEachChunk(null, AclConstants.READ_PERMISSION, 3, chunk -> {
+      chunk.forEach(person -> person.setFirstName("changed"));
+    });
+
+    assertTrue(em.contains(editorRole));
+    assertThat(em.createQuery("select count(p) from Person p where p.firstName = 'changed'", Long.class)
+        .getSingleResult(), is(4L));
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallDerivedStreamMethodThenReturnPermittedEntities() {
+    setAuthentication("user");
+    try (Stream<Person> stream = personRepository.streamAllByOrderByUsernameAsc()) {
+      assertThat(stream.map(Person::getUsername).collect(Collectors.toList()), is(Arrays.asList("user", "user2")));
+    }
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallExistsThenCheckPermissionWithoutLoading() {
+    setAuthentication("user");
+    assertTrue(personRepository.exists(user2.getId(), AclConstants.UPDATE_PERMISSION));
+    assertFalse(personRepository.exists(admin.getId(), AclConstants.READ_PERMISSION));
+    assertFalse(personRepository.exists(-1, AclConstants.READ_PERMISSION));
+  }
 }
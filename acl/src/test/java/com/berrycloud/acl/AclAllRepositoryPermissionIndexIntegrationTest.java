@@ -0,0 +1,11 @@
+package com.berrycloud.acl;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs all the repository tests using the materialized permission-index.
+ */
+@TestPropertySource(properties = "spring.data.jpa.acl.permission-index.enabled=true")
+public class AclAllRepositoryPermissionIndexIntegrationTest extends AclAllRepositoryIntegrationTest {
+
+}
@@ -0,0 +1,80 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.bind-parameters=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class AclBindParametersIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  private Authentication userAuthentication, user2Authentication;
+
+  @Before
+  public void initTests() {
+    personRepository.saveWithoutPermissionCheck(new Person("user", "u", "u"));
+    personRepository.saveWithoutPermissionCheck(new Person("user2", "u2", "u2"));
+    em.flush();
+
+    userAuthentication = createAuthentication("user");
+    user2Authentication = createAuthentication("user2");
+  }
+
+  private Authentication createAuthentication(String username) {
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername(username);
+    return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+  }
+
+  @Test
+  public void testGivenBoundParametersWhenDifferentUsersCallFindAllThenQueryPlanIsReused() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    SecurityContextHolder.getContext().setAuthentication(userAuthentication);
+    assertThat(personRepository.findAll().size(), is(1));
+    SecurityContextHolder.getContext().setAuthentication(user2Authentication);
+    assertThat(personRepository.findAll().size(), is(1));
+
+    // The query plan cache is keyed by the query string, so a single string means a single parsed plan
+    String[] queries = statistics.getQueries();
+    assertThat(queries.length, is(1));
+    assertThat(statistics.getQueryStatistics(queries[0]).getExecutionCount(), is(2L));
+  }
+}
@@ -0,0 +1,131 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.PermissionBits;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.entity.PersonHasReportPermission;
+import com.berrycloud.acl.sample.all.entity.Report;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.ReportRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+import com.berrycloud.acl.security.access.AclPermissionEvaluator;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+public class AclBitmaskPermissionLinkIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private AclPermissionEvaluator aclPermissionEvaluator;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private ReportRepository reportRepository;
+
+  private Person user;
+  private Report report;
+  private PermissionBits permissionBits;
+
+  @Before
+  public void initTests() {
+    Person owner = new Person("owner", "o", "o");
+    personRepository.saveWithoutPermissionCheck(owner);
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    report = new Report("report", owner);
+    reportRepository.saveWithoutPermissionCheck(report);
+    em.flush();
+    permissionBits = aclMetaData.getPermissionBits();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  private void addPermissionLink(String... permissions) {
+    em.persist(new PersonHasReportPermission(user, report, permissionBits.getMask(permissions)));
+    em.flush();
+  }
+
+  private boolean hasPermission(String permission) {
+    return aclPermissionEvaluator.hasPermission(SecurityContextHolder.getContext().getAuthentication(), report,
+        permission);
+  }
+
+  @Test
+  public void testGivenDefaultPermissionBitsWhenCallGetMaskThenBitsAreInListOrder() {
+    assertThat(permissionBits.getMask("all"), is(1L));
+    assertThat(permissionBits.getMask("read", "update"), is(6L));
+    assertThat(permissionBits.getPermissions(24L), is(Arrays.asList("delete", "create")));
+  }
+
+  @Test
+  public void testGivenNoPermissionLinkWhenCallFindByIdThenReturnNothing() {
+    assertFalse(reportRepository.findById(report.getId()).isPresent());
+    assertFalse(hasPermission(AclConstants.READ_PERMISSION));
+  }
+
+  @Test
+  public void testGivenUpdateAndDeleteBitsWhenCheckPermissionsThenOnlyTheseAndReadAreGranted() {
+    addPermissionLink("update", "delete");
+
+    assertTrue(reportRepository.findById(report.getId()).isPresent());
+    assertTrue(hasPermission(AclConstants.UPDATE_PERMISSION));
+    assertTrue(hasPermission(AclConstants.DELETE_PERMISSION));
+    assertFalse(hasPermission(AclConstants.CREATE_PERMISSION));
+  }
+
+  @Test
+  public void testGivenAllBitWhenCheckPermissionsThenAllAreGranted() {
+    addPermissionLink("all");
+
+    assertTrue(hasPermission(AclConstants.READ_PERMISSION));
+    assertTrue(hasPermission(AclConstants.CREATE_PERMISSION));
+  }
+
+  @Test
+  public void testGivenChangedMaskWhenCheckPermissionsThenNewMaskIsUsed() {
+    addPermissionLink("update");
+    PersonHasReportPermission link = em.createQuery("select l from PersonHasReportPermission l",
+        PersonHasReportPermission.class).getSingleResult();
+    link.setPermissionMask(permissionBits.getMask("delete"));
+    em.flush();
+
+    assertFalse(hasPermission(AclConstants.UPDATE_PERMISSION));
+    assertTrue(hasPermission(AclConstants.DELETE_PERMISSION));
+  }
+}
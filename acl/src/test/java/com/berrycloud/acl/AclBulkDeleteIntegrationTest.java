@@ -0,0 +1,92 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.delete-chunk-size=2", "spring.data.jpa.acl.max-in-list-size=2" })
+public class AclBulkDeleteIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  private Person user, user2;
+
+  private List<Person> deletable, notDeletable;
+
+  @Before
+  public void initTests() {
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    user2 = new Person("user2", "u2", "u2");
+    personRepository.saveWithoutPermissionCheck(user2);
+
+    deletable = new ArrayList<>();
+    notDeletable = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      deletable.add(personRepository.saveWithoutPermissionCheck(new Person("delme" + i, "d", "d", user)));
+      notDeletable.add(personRepository.saveWithoutPermissionCheck(new Person("keepme" + i, "k", "k", user2)));
+    }
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenChunkedDeleteWhenCallDeleteAllInBatchWithSpecificationThenReturnNumberOfDeletedEntities() {
+    long count = personRepository.deleteAllInBatch((root, query, cb) -> cb.like(root.get("username"), "%me%"));
+    personRepository.clear();
+
+    assertThat(count, is(5L));
+    deletable.forEach(p -> assertFalse(personRepository.findByIdWithoutPermissionCheck(p.getId()).isPresent()));
+    notDeletable.forEach(p -> assertTrue(personRepository.findByIdWithoutPermissionCheck(p.getId()).isPresent()));
+    assertTrue(personRepository.findByIdWithoutPermissionCheck(user.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenChunkedInListWhenCallDeleteInBatchThenOnlyPermittedEntitiesAreDeleted() {
+    List<Person> entities = new ArrayList<>(deletable);
+    entities.addAll(notDeletable);
+    personRepository.deleteInBatch(entities);
+    personRepository.clear();
+
+    deletable.forEach(p -> assertFalse(personRepository.findByIdWithoutPermissionCheck(p.getId()).isPresent()));
+    notDeletable.forEach(p -> assertTrue(personRepository.findByIdWithoutPermissionCheck(p.getId()).isPresent()));
+  }
+}
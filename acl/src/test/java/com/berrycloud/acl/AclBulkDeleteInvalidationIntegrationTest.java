@@ -0,0 +1,106 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.AclEffectivePermission;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsCache;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.user-cache.enabled=true",
+    "spring.data.jpa.acl.permission-index.enabled=true" })
+public class AclBulkDeleteInvalidationIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private AclUserDetailsCache userDetailsCache;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  private Person user;
+
+  private List<Person> deletable;
+
+  @Before
+  public void initTests() {
+    userDetailsCache.clear();
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    deletable = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      deletable.add(personRepository.saveWithoutPermissionCheck(new Person("delme" + i, "d", "d", user)));
+    }
+    em.flush();
+    userDetailsCache.clear();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  private long countIndexRows(String property, Person person) {
+    return em
+        .createQuery("select count(p) from " + AclEffectivePermission.class.getSimpleName() + " p where p." + property
+            + " = :id", Long.class)
+        .setParameter("id", person.getId().longValue()).getSingleResult();
+  }
+
+  @Test
+  public void testGivenCachedUserWhenCallDeleteInBatchThenCacheIsInvalidated() {
+    aclUserDetailsService.loadUserByUsername("delme0");
+    assertThat(userDetailsCache.size(), is(2));
+
+    personRepository.deleteInBatch(deletable);
+    personRepository.clear();
+
+    assertThat(userDetailsCache.size(), is(0));
+    assertThat(userDetailsCache.get("delme0"), is(nullValue()));
+  }
+
+  @Test
+  public void testGivenIndexedEntitiesWhenCallDeleteAllInBatchThenIndexRowsAreRemoved() {
+    Person deleted = deletable.get(0);
+    assertThat(countIndexRows("entityId", deleted) > 0, is(true));
+    assertThat(countIndexRows("userId", deleted) > 0, is(true));
+
+    long count = personRepository.deleteAllInBatch((root, query, cb) -> cb.like(root.get("username"), "delme%"));
+    personRepository.clear();
+
+    assertThat(count, is(3L));
+    assertThat(countIndexRows("entityId", deleted), is(0L));
+    assertThat(countIndexRows("userId", deleted), is(0L));
+    assertThat(countIndexRows("userId", user) > 0, is(true));
+  }
+}
@@ -0,0 +1,82 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.stream.fetch-size=2",
+    "spring.data.jpa.acl.stream.detach-derived-queries=false" })
+public class AclDerivedStreamNoDetachIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole adminRole = new SimpleAclRole(AclConstants.ROLE_ADMIN);
+    roleRepository.saveWithoutPermissionCheck(adminRole);
+
+    Person admin = new Person("admin", "a", "a");
+    admin.getAclRoles().add(adminRole);
+    personRepository.saveWithoutPermissionCheck(admin);
+    for (int i = 1; i < 5; i++) {
+      personRepository.saveWithoutPermissionCheck(new Person("user" + i, "u" + i, "u" + i));
+    }
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("admin");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenDetachingTurnedOffWhenCallDerivedStreamMethodThenEntitiesStayManaged() {
+    List<Person> streamed = new ArrayList<>();
+    try (Stream<Person> stream = personRepository.streamAllByOrderByUsernameAsc()) {
+      stream.forEach(person -> {
+        streamed.add(person);
+        streamed.forEach(previous -> assertTrue(em.contains(previous)));
+      });
+    }
+
+    assertThat(streamed.size(), is(5));
+  }
+}
@@ -0,0 +1,109 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.search.FullTextDialect;
+import com.berrycloud.acl.search.FullTextSearch;
+import com.berrycloud.acl.search.MySQLFullTextDialect;
+import com.berrycloud.acl.search.PostgreSQLFullTextDialect;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.search.full-text.enabled=true")
+public class AclFullTextSearchIntegrationTest {
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private FullTextSearch fullTextSearch;
+
+  private Person user, user2;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    user = new Person("user", "u", "u");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    user2 = new Person("user2", "u2", "u2");
+    user2.getAclRoles().add(userRole);
+    user2.setCreatedBy(user);
+    personRepository.saveWithoutPermissionCheck(user2);
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenUnsupportedDialectWhenCallFindAllWithSearchThenInbuiltSearchIsUsed() {
+    assertFalse(fullTextSearch.isSupported());
+
+    List<Person> list = personRepository.findAll(new Search("user2"));
+
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+  }
+
+  @Test
+  public void testGivenPostgreSQLDialectWhenRenderThenTextSearchExpressionsAreCreated() {
+    FullTextDialect dialect = new PostgreSQLFullTextDialect();
+    List<String> columns = Arrays.asList("username", "last_name");
+    String vector = "to_tsvector('simple', coalesce(username, '') || ' ' || coalesce(last_name, ''))";
+
+    assertThat(dialect.createQuery(Arrays.asList("foo", "b'a:r&")), is("foo:* & bar:*"));
+    assertThat(dialect.renderMatch(columns, "?"), is("(" + vector + " @@ to_tsquery('simple', ?))"));
+    assertThat(dialect.renderScore(columns, "?"), is("ts_rank(" + vector + ", to_tsquery('simple', ?))"));
+    assertThat(dialect.createIndexStatements("person", columns),
+        is(Arrays.asList("create index if not exists acl_ft_person on person using gin (" + vector + ")")));
+  }
+
+  @Test
+  public void testGivenMySQLDialectWhenRenderThenMatchAgainstExpressionsAreCreated() {
+    FullTextDialect dialect = new MySQLFullTextDialect();
+    List<String> columns = Arrays.asList("username", "last_name");
+
+    assertThat(dialect.createQuery(Arrays.asList("foo", "-bar*")), is("+foo* +bar*"));
+    assertThat(dialect.renderMatch(columns, "?"), is("match(username, last_name) against(? in boolean mode) and 1"));
+    assertThat(dialect.renderScore(columns, "?"), is("match(username, last_name) against(? in boolean mode)"));
+    assertThat(dialect.createIndexStatements("person", columns),
+        is(Arrays.asList("create fulltext index acl_ft_person on person (username, last_name)")));
+  }
+}
@@ -0,0 +1,53 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.StandardSQLFunction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.berrycloud.acl.configuration.AclMetadataBuilderContributor;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.search.FullTextSearchFunction;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.metadata_builder_contributor="
+        + "com.berrycloud.acl.AclMetadataBuilderContributorIntegrationTest$TestMetadataBuilderContributor" })
+public class AclMetadataBuilderContributorIntegrationTest {
+
+  public static class TestMetadataBuilderContributor implements MetadataBuilderContributor {
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+      metadataBuilder.applySqlFunction("test_function", new StandardSQLFunction("abs"));
+    }
+  }
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  public void testGivenApplicationContributorWhenBitmaskLinksAreUsedThenBothContributorsAreApplied() {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+    assertThat(sessionFactory.getSqlFunctionRegistry().findSQLFunction("test_function"), notNullValue());
+    assertThat(sessionFactory.getSqlFunctionRegistry().findSQLFunction(BitAndFunction.NAME), notNullValue());
+    assertThat(sessionFactory.getSqlFunctionRegistry().findSQLFunction(FullTextSearchFunction.MATCH_FUNCTION),
+        notNullValue());
+    assertThat(sessionFactory.getProperties().get("hibernate.metadata_builder_contributor"),
+        instanceOf(AclMetadataBuilderContributor.class));
+  }
+}
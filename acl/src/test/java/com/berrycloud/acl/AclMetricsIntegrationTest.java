@@ -0,0 +1,148 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.metrics.AclDecisionPath;
+import com.berrycloud.acl.metrics.AclMetrics;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+import com.berrycloud.acl.security.access.AclPermissionEvaluator;
+
+@SpringBootTest(classes = { AclAppAll.class, AclMetricsIntegrationTest.MetricsConfiguration.class })
+@RunWith(SpringRunner.class)
+@Transactional
+public class AclMetricsIntegrationTest {
+
+  @TestConfiguration
+  static class MetricsConfiguration {
+    @Bean
+    public RecordingAclMetrics aclMetrics() {
+      return new RecordingAclMetrics();
+    }
+  }
+
+  static class RecordingAclMetrics implements AclMetrics {
+    final List<String> events = new CopyOnWriteArrayList<>();
+    int lastJoinCount;
+    int lastBranchCount;
+
+    @Override
+    public void recordQueryCreation(String source, Class<?> domainType, String permission, long nanos) {
+      events.add("query:" + source + ":" + domainType.getSimpleName() + ":" + permission);
+    }
+
+    @Override
+    public void recordPredicate(Class<?> domainType, String permission, AclDecisionPath path, int joinCount,
+        int branchCount) {
+      events.add("predicate:" + domainType.getSimpleName() + ":" + permission + ":" + path);
+      lastJoinCount = joinCount;
+      lastBranchCount = branchCount;
+    }
+
+    @Override
+    public void recordPermissionCheck(Class<?> domainType, String permission, boolean permitted, long nanos) {
+      events.add("check:" + domainType.getSimpleName() + ":" + permission + ":" + permitted);
+    }
+
+    @Override
+    public void recordUserDetailsLoad(boolean cached, long nanos) {
+      events.add("user:" + cached);
+    }
+  }
+
+  @Autowired
+  private RecordingAclMetrics aclMetrics;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private AclPermissionEvaluator aclPermissionEvaluator;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private Person user;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole adminRole = new SimpleAclRole(AclConstants.ROLE_ADMIN);
+    roleRepository.saveWithoutPermissionCheck(adminRole);
+    Person admin = new Person("admin", "a", "a");
+    admin.getAclRoles().add(adminRole);
+    personRepository.saveWithoutPermissionCheck(admin);
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    aclMetrics.events.clear();
+  }
+
+  private void setAuthentication(String username) {
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername(username);
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities()));
+  }
+
+  @Test
+  public void testGivenUserWhenCallFindAllThenPredicateAndQueryCreationAreRecorded() {
+    setAuthentication("user");
+    personRepository.findAll();
+
+    assertThat(aclMetrics.events, hasItem("user:false"));
+    assertThat(aclMetrics.events, hasItem("predicate:Person:read:PREDICATE"));
+    assertThat(aclMetrics.events, hasItem("query:query:Person:read"));
+    assertThat(aclMetrics.lastJoinCount, greaterThan(0));
+    assertThat(aclMetrics.lastBranchCount, greaterThan(0));
+  }
+
+  @Test
+  public void testGivenAdminWhenCallFindAllThenRoleGrantedPathIsRecorded() {
+    setAuthentication("admin");
+    personRepository.findAll();
+
+    assertThat(aclMetrics.events, hasItem("predicate:Person:read:ROLE_GRANTED"));
+    assertThat(aclMetrics.lastJoinCount, is(0));
+  }
+
+  @Test
+  public void testGivenUserWhenCallDerivedQueryThenPartTreeQueryCreationIsRecorded() {
+    setAuthentication("user");
+    personRepository.findByLastName("u");
+
+    assertThat(aclMetrics.events, hasItem("query:part-tree:Person:read"));
+  }
+
+  @Test
+  public void testGivenUserWhenCallHasPermissionThenPermissionCheckIsRecorded() {
+    setAuthentication("user");
+    aclPermissionEvaluator.hasPermission(SecurityContextHolder.getContext().getAuthentication(), user.getId(),
+        Person.class, AclConstants.UPDATE_PERMISSION);
+
+    assertThat(aclMetrics.events, hasItem("check:Person:update:false"));
+  }
+}
@@ -1,6 +1,7 @@
 package com.berrycloud.acl;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasProperty;
@@ -8,6 +9,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +45,17 @@ public class AclMinimalIntegrationTest {
   @Autowired(required = false)
   private AclSpecification aclSpecification;
 
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  public void testGivenNoBitmaskLinksNorFullTextSearchWhenStartThenAclQueryFunctionsAreNotRegistered() {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+    assertThat(sessionFactory.getProperties().containsKey("hibernate.metadata_builder_contributor"), is(false));
+    assertThat(sessionFactory.getSqlFunctionRegistry().findSQLFunction(BitAndFunction.NAME), nullValue());
+  }
+
   @Test
   public void testDefaultBeans() {
     assertNotNull(aclLogic);
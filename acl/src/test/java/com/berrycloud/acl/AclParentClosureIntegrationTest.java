@@ -0,0 +1,197 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.AclParentClosure;
+import com.berrycloud.acl.index.AclClosureTable;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Folder;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.FolderRepository;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.parent-closure.enabled=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class AclParentClosureIntegrationTest {
+
+  private static final int DEPTH = 10;
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private AclSpecification aclSpecification;
+
+  @Autowired
+  private AclClosureTable closureTable;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private FolderRepository folderRepository;
+
+  private Person user;
+  private List<Folder> folders;
+  private Folder otherRoot;
+
+  @Before
+  public void initTests() {
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    Person other = new Person("other", "o", "o");
+    personRepository.saveWithoutPermissionCheck(other);
+
+    // A deep folder tree: only the root is owned by the user
+    folders = new ArrayList<>();
+    Folder parent = null;
+    for (int i = 0; i < DEPTH; i++) {
+      parent = new Folder("folder" + i, i == 0 ? user : other, parent);
+      folderRepository.saveWithoutPermissionCheck(parent);
+      folders.add(parent);
+    }
+    otherRoot = new Folder("other", other, null);
+    folderRepository.saveWithoutPermissionCheck(otherRoot);
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  private Set<List<Object>> getClosureRows() {
+    Set<List<Object>> rows = new HashSet<>();
+    for (AclParentClosure row : em
+        .createQuery("select c from " + AclParentClosure.class.getSimpleName() + " c", AclParentClosure.class)
+        .getResultList()) {
+      rows.add(Arrays.<Object> asList(row.getDescendantId(), row.getAncestorId(), row.getDepth()));
+    }
+    return rows;
+  }
+
+  private long countStatementsOfMove(Folder folder, Folder parent) {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    folder.setParent(parent);
+    em.flush();
+    closureTable.synchronize();
+    return statistics.getPrepareStatementCount();
+  }
+
+  private long countClosureRows() {
+    return em.createQuery("select count(c) from " + AclParentClosure.class.getSimpleName() + " c", Long.class)
+        .getSingleResult();
+  }
+
+  @Test
+  public void testGivenDeepHierarchyWhenCallFindByIdThenPermissionIsInheritedFromRoot() {
+    assertTrue(folderRepository.findById(folders.get(DEPTH - 1).getId()).isPresent());
+    assertFalse(folderRepository.findById(otherRoot.getId()).isPresent());
+    assertThat(folderRepository.findAll().size(), is(DEPTH));
+    assertThat(countClosureRows(), is((long) DEPTH * (DEPTH - 1) / 2));
+  }
+
+  @Test
+  public void testGivenMovedSubtreeWhenCallFindByIdThenPermissionsFollowTheNewParent() {
+    folders.get(DEPTH / 2).setParent(otherRoot);
+    em.flush();
+
+    assertTrue(folderRepository.findById(folders.get(DEPTH / 2 - 1).getId()).isPresent());
+    assertFalse(folderRepository.findById(folders.get(DEPTH - 1).getId()).isPresent());
+    assertThat(folderRepository.findAll().size(), is(DEPTH / 2));
+  }
+
+  @Test
+  public void testGivenMovedSubtreeWhenRebuildThenClosureIsTheSame() {
+    folders.get(DEPTH / 2).setParent(otherRoot);
+    em.flush();
+    closureTable.synchronize();
+    Set<List<Object>> rows = getClosureRows();
+    assertThat(rows.size(), is((DEPTH / 2) * (DEPTH / 2 - 1) / 2 + (DEPTH / 2) * (DEPTH / 2 + 1) / 2));
+
+    closureTable.rebuild();
+    assertThat(getClosureRows(), is(rows));
+  }
+
+  @Test
+  public void testGivenSubtreesOfDifferentSizeWhenMoveThenTheSameNumberOfStatementsIsExecuted() {
+    // Apply the rows of the created folders first
+    closureTable.synchronize();
+
+    long bigSubtree = countStatementsOfMove(folders.get(1), otherRoot);
+    long smallSubtree = countStatementsOfMove(folders.get(DEPTH - 2), otherRoot);
+
+    assertThat(bigSubtree, is(smallSubtree));
+    assertTrue(folderRepository.findById(folders.get(0).getId()).isPresent());
+    assertFalse(folderRepository.findById(folders.get(1).getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenPendingMoveWhenCreateClosurePredicateThenPersistenceContextIsNotFlushed() {
+    folders.get(DEPTH / 2).setParent(otherRoot);
+
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Folder> query = cb.createQuery(Folder.class);
+    Root<Folder> root = query.from(Folder.class);
+    query.where(aclSpecification.toPredicate(root, query, cb, AclConstants.READ_PERMISSION));
+
+    assertTrue(em.unwrap(Session.class).isDirty());
+    assertThat(em.createQuery(query).getResultList().size(), is(DEPTH / 2));
+    assertFalse(em.unwrap(Session.class).isDirty());
+  }
+
+  @Test
+  public void testGivenRemovedLeafWhenRebuildThenClosureIsTheSame() {
+    Folder leaf = folders.get(DEPTH - 1);
+    folderRepository.deleteWithoutPermissionCheck(leaf);
+    em.flush();
+    closureTable.synchronize();
+    long rows = countClosureRows();
+    assertThat(rows, is((long) (DEPTH - 1) * (DEPTH - 2) / 2));
+
+    closureTable.rebuild();
+    assertThat(countClosureRows(), is(rows));
+  }
+}
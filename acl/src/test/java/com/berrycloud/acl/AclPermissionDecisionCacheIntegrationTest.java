@@ -0,0 +1,109 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+import com.berrycloud.acl.security.access.AclPermissionDecisionCache;
+import com.berrycloud.acl.security.access.AclPermissionEvaluator;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.decision-cache.enabled=true")
+public class AclPermissionDecisionCacheIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private AclPermissionDecisionCache decisionCache;
+
+  @Autowired
+  private AclPermissionEvaluator aclPermissionEvaluator;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  private Person user, user2;
+
+  @Before
+  public void initTests() {
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    user2 = new Person("user2", "u2", "u2");
+    personRepository.saveWithoutPermissionCheck(user2);
+    em.flush();
+    decisionCache.clear();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenUserAuthenticationWhenCallFindByIdThenDecisionIsCached() {
+    assertTrue(personRepository.findById(user.getId()).isPresent());
+    assertFalse(personRepository.findById(user2.getId()).isPresent());
+
+    assertThat(decisionCache.get(Person.class, user.getId(), AclConstants.READ_PERMISSION), is(true));
+    assertThat(decisionCache.get(Person.class, user2.getId(), AclConstants.READ_PERMISSION), is(false));
+  }
+
+  @Test
+  public void testGivenCachedDecisionWhenCallHasPermissionThenCachedDecisionIsUsed() {
+    decisionCache.put(Person.class, user.getId(), AclConstants.READ_PERMISSION, false);
+    assertFalse(aclPermissionEvaluator.hasPermission(SecurityContextHolder.getContext().getAuthentication(),
+        user.getId(), Person.class, AclConstants.READ_PERMISSION));
+    assertFalse(personRepository.findById(user.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenCachedDecisionWhenEntityIsChangedThenCacheIsCleared() {
+    personRepository.findById(user.getId());
+    user2.setCreatedBy(user);
+    em.flush();
+
+    assertThat(decisionCache.get(Person.class, user.getId(), AclConstants.READ_PERMISSION), is(nullValue()));
+    assertTrue(personRepository.findById(user2.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenCachedDecisionWhenAccessIsRevokedInSameTransactionThenFindByIdIsDenied() {
+    user2.setCreatedBy(user);
+    em.flush();
+    assertTrue(personRepository.findById(user2.getId()).isPresent());
+    assertThat(decisionCache.get(Person.class, user2.getId(), AclConstants.READ_PERMISSION), is(true));
+
+    // The change is not flushed yet
+    user2.setCreatedBy(null);
+
+    assertFalse(personRepository.findById(user2.getId()).isPresent());
+    assertFalse(personRepository.existsById(user2.getId()));
+  }
+}
@@ -0,0 +1,88 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Document;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.security.access.AclPermissionEvaluator;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+public class AclPermissionEvaluatorConcurrencyIntegrationTest {
+
+  private static final int THREADS = 16;
+
+  /**
+   * Leaves the startup caches empty, so every type is resolved lazily via the fallback caches.
+   */
+  static class ColdAclPermissionEvaluator extends AclPermissionEvaluator {
+
+    private final Set<JpaEntityInformation<?, ?>> resolvedEntityInformations = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    protected <T> JpaEntityInformation<T, ?> getEntityInformation(Class<T> domainClass) {
+      JpaEntityInformation<T, ?> entityInformation = super.getEntityInformation(domainClass);
+      if (domainClass == Person.class) {
+        resolvedEntityInformations.add(entityInformation);
+      }
+      return entityInformation;
+    }
+  }
+
+  @Autowired
+  private ApplicationContext applicationContext;
+
+  @Test
+  public void testGivenColdFallbackTypeWhenCallHasPermissionConcurrentlyThenItIsResolvedOnce() throws Exception {
+    ColdAclPermissionEvaluator evaluator = applicationContext.getAutowireCapableBeanFactory()
+        .createBean(ColdAclPermissionEvaluator.class);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          // Both the type name and the class are resolved via the fallback caches (the ids do not exist)
+          return evaluator.hasPermission(null, -1, Person.class.getName(), "read")
+              || evaluator.hasPermission(null, -1, Document.class.getName(), "read")
+              || evaluator.hasPermission(null, -1, Person.class, "update");
+        }));
+      }
+      start.countDown();
+
+      for (Future<Boolean> result : results) {
+        // A ConcurrentModificationException of the caches would be rethrown here
+        assertThat(result.get(), is(false));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(evaluator.resolvedEntityInformations.size(), is(1));
+  }
+}
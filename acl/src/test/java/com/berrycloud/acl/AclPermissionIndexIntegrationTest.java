@@ -0,0 +1,130 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.AclEffectivePermission;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.entity.TestGroup;
+import com.berrycloud.acl.sample.all.repository.GroupRepository;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.permission-index.enabled=true")
+public class AclPermissionIndexIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclSpecification aclSpecification;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private GroupRepository groupRepository;
+
+  private Person user, target;
+  private TestGroup group;
+
+  @Before
+  public void initTests() {
+    Person owner = new Person("owner", "o", "o");
+    personRepository.saveWithoutPermissionCheck(owner);
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+
+    // The members of the group can read the group and (via the owner-group) the persons in the group
+    group = new TestGroup("group", owner);
+    groupRepository.saveWithoutPermissionCheck(group);
+    target = new Person("target", "t", "t", owner);
+    target.getGroups().add(group);
+    personRepository.saveWithoutPermissionCheck(target);
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  private long countReadIndexRows(Person user, Person entity) {
+    return em
+        .createQuery("select count(p) from " + AclEffectivePermission.class.getSimpleName()
+            + " p where p.userId = :userId and p.entityType = :entityType and p.entityId = :entityId"
+            + " and p.permission = :permission", Long.class)
+        .setParameter("userId", user.getId().longValue()).setParameter("entityType", Person.class.getName())
+        .setParameter("entityId", entity.getId().longValue())
+        .setParameter("permission", AclConstants.READ_PERMISSION).getSingleResult();
+  }
+
+  @Test
+  public void testGivenNonMemberWhenAddedToGroupThenAccessIsGranted() {
+    assertFalse(groupRepository.findById(group.getId()).isPresent());
+    assertFalse(personRepository.findById(target.getId()).isPresent());
+
+    // Only the collection of the user is changed
+    user.getGroups().add(group);
+
+    assertTrue(groupRepository.findById(group.getId()).isPresent());
+    assertTrue(personRepository.findById(target.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenMemberWhenRemovedFromGroupThenAccessIsRevoked() {
+    user.getGroups().add(group);
+    assertTrue(groupRepository.findById(group.getId()).isPresent());
+    assertTrue(personRepository.findById(target.getId()).isPresent());
+    assertThat(countReadIndexRows(user, target), is(1L));
+
+    // Only the collection of the user is changed
+    user.getGroups().remove(group);
+
+    assertFalse(groupRepository.findById(group.getId()).isPresent());
+    assertFalse(personRepository.findById(target.getId()).isPresent());
+    assertThat(countReadIndexRows(user, target), is(0L));
+  }
+
+  @Test
+  public void testGivenPendingChangeWhenCreateIndexPredicateThenPersistenceContextIsNotFlushed() {
+    user.getGroups().add(group);
+
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Person> query = cb.createQuery(Person.class);
+    Root<Person> root = query.from(Person.class);
+    query.where(aclSpecification.toPredicate(root, query, cb, AclConstants.READ_PERMISSION));
+
+    assertTrue(em.unwrap(Session.class).isDirty());
+    assertThat(em.createQuery(query).getResultList().contains(target), is(true));
+    assertFalse(em.unwrap(Session.class).isDirty());
+  }
+}
@@ -0,0 +1,119 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.PermissionPlan.PermissionCheck;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Document;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.entity.PersonHasDocumentPermission;
+import com.berrycloud.acl.sample.all.repository.DocumentRepository;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.permission-link.exact-match=true",
+    "spring.data.jpa.acl.permission-link.extra-permissions=publish" })
+public class AclPermissionLinkExactMatchIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private DocumentRepository documentRepository;
+
+  private Person user;
+  private Document document;
+
+  @Before
+  public void initTests() {
+    Person owner = new Person("owner", "o", "o");
+    personRepository.saveWithoutPermissionCheck(owner);
+    user = new Person("user", "u", "u");
+    personRepository.saveWithoutPermissionCheck(user);
+    document = new Document("document", "content", owner);
+    documentRepository.saveWithoutPermissionCheck(document);
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  private void addPermissionLink(String permission) {
+    em.persist(new PersonHasDocumentPermission(user, document, permission));
+    em.flush();
+  }
+
+  @Test
+  public void testGivenExactMatchWhenCreatePermissionPlanThenPermissionListIsUsed() {
+    List<PermissionCheck> checks = aclMetaData.getPermissionPlan(Document.class, AclConstants.READ_PERMISSION, 2)
+        .getPermissionLinks().get(0).getPermissionChecks();
+
+    assertThat(checks.size(), is(1));
+    assertThat(checks.get(0).getType(), is(PermissionCheck.Type.IN));
+    assertThat(checks.get(0).getValues(), hasItems("all", "read", "update", "delete", "publish"));
+    assertThat(checks.get(0).getValues(), not(hasItems("attachments-read")));
+
+    checks = aclMetaData.getPermissionPlan(Document.class, "attachments-read", 1).getPermissionLinks().get(0)
+        .getPermissionChecks();
+    assertThat(checks.get(0).getValues(), hasItems("read", "attachments-all", "attachments-read", "attachments-update"));
+  }
+
+  @Test
+  public void testGivenKnownPermissionLinkWhenCallFindByIdThenReturnEntity() {
+    assertFalse(documentRepository.findById(document.getId()).isPresent());
+    addPermissionLink("publish");
+
+    assertTrue(documentRepository.findById(document.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenPrefixedPermissionLinkWhenCallFindByIdThenReturnNothing() {
+    addPermissionLink("attachments-update");
+
+    assertFalse(documentRepository.findById(document.getId()).isPresent());
+  }
+
+  @Test
+  public void testGivenUnknownPermissionLinkWhenCallFindByIdThenReturnNothing() {
+    addPermissionLink("unknown");
+
+    assertFalse(documentRepository.findById(document.getId()).isPresent());
+  }
+}
@@ -0,0 +1,161 @@
+package com.berrycloud.acl;
+
+import static com.berrycloud.acl.AclConstants.PERMISSION_PREFIX_DELIMITER;
+import static com.berrycloud.acl.AclConstants.READ_PERMISSION;
+import static com.berrycloud.acl.AclConstants.UPDATE_PERMISSION;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.data.AclMetaData;
+import com.berrycloud.acl.data.PermissionPlan;
+import com.berrycloud.acl.data.PermissionPlan.ParentStep;
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Attachment;
+import com.berrycloud.acl.sample.all.entity.Document;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.AttachmentRepository;
+import com.berrycloud.acl.sample.all.repository.DocumentRepository;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+public class AclPermissionPlanIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclMetaData aclMetaData;
+
+  @Autowired
+  private AclSpecification aclSpecification;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private DocumentRepository documentRepository;
+
+  @Autowired
+  private AttachmentRepository attachmentRepository;
+
+  private Person user, user2;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    user = new Person("user", "u", "u");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    user2 = new Person("user2", "u2", "u2");
+    user2.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user2);
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenSameTypeAndPermissionWhenCallGetPermissionPlanThenReturnSameInstance() {
+    PermissionPlan plan = aclMetaData.getPermissionPlan(Attachment.class, READ_PERMISSION, 2);
+
+    assertSame(plan, aclMetaData.getPermissionPlan(Attachment.class, READ_PERMISSION, 2));
+    assertThat(aclMetaData.getPermissionPlan(Attachment.class, UPDATE_PERMISSION, 2), not(sameInstance(plan)));
+    assertThat(aclMetaData.getPermissionPlan(Attachment.class, READ_PERMISSION, 1), not(sameInstance(plan)));
+  }
+
+  @Test
+  public void testGivenPrefixedAndPlainParentsWhenCallGetPermissionPlanThenParentPlansAreTheCachedInstances() {
+    PermissionPlan plan = aclMetaData.getPermissionPlan(Attachment.class, READ_PERMISSION, 2);
+
+    List<String> parentNames = plan.getParents().stream().map(ParentStep::getPropertyName)
+        .collect(Collectors.toList());
+    assertThat(parentNames, containsInAnyOrder("creator", "document"));
+    for (ParentStep parent : plan.getParents()) {
+      if ("creator".equals(parent.getPropertyName())) {
+        assertSame(aclMetaData.getPermissionPlan(Person.class, READ_PERMISSION, 1), parent.getPlan());
+      } else {
+        assertSame(aclMetaData.getPermissionPlan(Document.class,
+            "attachments" + PERMISSION_PREFIX_DELIMITER + READ_PERMISSION, 1), parent.getPlan());
+      }
+    }
+  }
+
+  @Test
+  public void testGivenCachedPlanWhenCreatePredicateAgainThenQueryAndResultAreTheSame() {
+    Document document = new Document("document", "content", user);
+    documentRepository.saveWithoutPermissionCheck(document);
+    Document otherDocument = new Document("other", "content", user2);
+    documentRepository.saveWithoutPermissionCheck(otherDocument);
+
+    // Permitted via the prefixed document parent
+    Attachment attachment = new Attachment("attachment", "content", null, document);
+    attachmentRepository.saveWithoutPermissionCheck(attachment);
+    // Permitted via the creator
+    Attachment ownAttachment = new Attachment("own", "content", user, otherDocument);
+    attachmentRepository.saveWithoutPermissionCheck(ownAttachment);
+    Attachment otherAttachment = new Attachment("other", "content", user2, otherDocument);
+    attachmentRepository.saveWithoutPermissionCheck(otherAttachment);
+
+    TypedQuery<Attachment> query = createPermittedAttachmentQuery();
+    TypedQuery<Attachment> cachedQuery = createPermittedAttachmentQuery();
+    List<Attachment> list = query.getResultList();
+
+    assertThat(getQueryString(cachedQuery), is(getQueryString(query)));
+    assertThat(cachedQuery.getResultList(), is(list));
+    assertThat(list.stream().map(Attachment::getId).collect(Collectors.toList()),
+        containsInAnyOrder(attachment.getId(), ownAttachment.getId()));
+  }
+
+  private TypedQuery<Attachment> createPermittedAttachmentQuery() {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Attachment> query = cb.createQuery(Attachment.class);
+    Root<Attachment> root = query.from(Attachment.class);
+    query.where(aclSpecification.toPredicate(root, query, cb, READ_PERMISSION));
+    return em.createQuery(query);
+  }
+
+  private String getQueryString(TypedQuery<?> query) {
+    return query.unwrap(org.hibernate.query.Query.class).getQueryString();
+  }
+}
@@ -0,0 +1,203 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.search.SearchBackend;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = { AclAppAll.class, AclSearchBackendIntegrationTest.TestSearchBackendConfiguration.class })
+@RunWith(SpringRunner.class)
+@Transactional
+// The candidates are split into chunks of a single id
+@TestPropertySource(properties = { "spring.data.jpa.acl.search.max-candidates=2",
+    "spring.data.jpa.acl.max-in-list-size=1" })
+public class AclSearchBackendIntegrationTest {
+
+  @Configuration
+  static class TestSearchBackendConfiguration {
+
+    @Bean
+    public TestSearchBackend testSearchBackend() {
+      return new TestSearchBackend();
+    }
+  }
+
+  static class TestSearchBackend implements SearchBackend {
+
+    private Map<Object, Float> candidates = new LinkedHashMap<>();
+
+    private List<String> patterns;
+
+    private int maxLimit;
+
+    @Override
+    public boolean supports(Class<?> domainClass) {
+      return Person.class.equals(domainClass);
+    }
+
+    @Override
+    public Map<Object, Float> search(Class<?> domainClass, List<String> patterns, int maxResults) {
+      this.patterns = patterns;
+      maxLimit = Math.max(maxLimit, maxResults);
+      Map<Object, Float> result = new LinkedHashMap<>();
+      candidates.entrySet().stream().limit(maxResults).forEach(e -> result.put(e.getKey(), e.getValue()));
+      return result;
+    }
+  }
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclSpecification aclSpecification;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private TestSearchBackend searchBackend;
+
+  private Person user, user2, user3;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    user = new Person("user", "u", "u");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    user2 = new Person("user2", "u2", "u2");
+    user2.getAclRoles().add(userRole);
+    user2.setCreatedBy(user);
+    personRepository.saveWithoutPermissionCheck(user2);
+
+    user3 = new Person("user3", "u3", "u3");
+    user3.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user3);
+
+    searchBackend.candidates.clear();
+    searchBackend.maxLimit = 0;
+    searchBackend.candidates.put(user3.getId(), 5f);
+    searchBackend.candidates.put(user2.getId(), 3f);
+    searchBackend.candidates.put(user.getId(), 1f);
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenSearchBackendWhenCallFindAllWithSearchThenReturnPermittedCandidatesOrderedByScore() {
+    List<Person> list = personRepository.findAll(new Search("foo bar"));
+
+    assertThat(list.size(), is(2));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+    assertThat(list.get(1).getId(), is(user.getId()));
+    assertThat(searchBackend.patterns.size(), is(2));
+  }
+
+  @Test
+  public void testGivenSearchBackendWhenCallFindAllPageWithSearchThenReturnPermittedCandidatesOrderedByScore() {
+    Page<Person> page = personRepository.findAll(PageRequest.of(0, 1, new Search("foo")));
+
+    assertThat(page.getTotalElements(), is(2L));
+    assertThat(page.getContent().get(0).getId(), is(user2.getId()));
+  }
+
+  @Test
+  public void testGivenPermittedCandidatesBelowCutoffWhenCallFindAllWithSearchThenReturnPermittedCandidates() {
+    Map<Object, Float> candidates = new LinkedHashMap<>();
+    for (int i = 4; i < 9; i++) {
+      Person other = new Person("user" + i, "u" + i, "u" + i);
+      personRepository.saveWithoutPermissionCheck(other);
+      candidates.put(other.getId(), 10f - i);
+    }
+    candidates.putAll(searchBackend.candidates);
+    searchBackend.candidates = candidates;
+
+    List<Person> list = personRepository.findAll(new Search("foo"));
+
+    assertThat(list.size(), is(2));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+    assertThat(list.get(1).getId(), is(user.getId()));
+    assertThat(searchBackend.maxLimit, is(8));
+  }
+
+  @Test
+  public void testGivenUpdatePermissionWhenApplySearchThenCandidatesAreFilteredByUpdatePermission() {
+    // The user can read itself but cannot update itself, so it must not take the place of the updatable candidates
+    Map<Object, Float> candidates = new LinkedHashMap<>();
+    candidates.put(user.getId(), 9f);
+    List<Person> created = new ArrayList<>();
+    for (int i = 4; i < 6; i++) {
+      Person other = new Person("user" + i, "u" + i, "u" + i);
+      other.setCreatedBy(user);
+      personRepository.saveWithoutPermissionCheck(other);
+      created.add(other);
+      candidates.put(other.getId(), 9f - i);
+    }
+    searchBackend.candidates = candidates;
+
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Person> query = cb.createQuery(Person.class);
+    Root<Person> root = query.from(Person.class);
+    query.where(aclSpecification.toPredicate(root, query, cb, "update"));
+    aclSpecification.applySearch(query, cb, root, new Search("foo"), "update");
+    List<Person> list = em.createQuery(query).getResultList();
+
+    assertThat(list.size(), is(2));
+    assertThat(list.get(0).getId(), is(created.get(0).getId()));
+    assertThat(list.get(1).getId(), is(created.get(1).getId()));
+  }
+
+  @Test
+  public void testGivenNoCandidatesWhenCallFindAllWithSearchThenReturnEmptyList() {
+    searchBackend.candidates.clear();
+
+    assertTrue(personRepository.findAll(new Search("foo")).isEmpty());
+  }
+}
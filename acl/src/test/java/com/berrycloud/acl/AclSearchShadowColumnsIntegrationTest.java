@@ -0,0 +1,125 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.Locale;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.search.SearchShadowColumns;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.search.shadow-columns.enabled=true")
+public class AclSearchShadowColumnsIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private SearchShadowColumns searchShadowColumns;
+
+  private Person user, user2;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    user = new Person("user", "u", "Kovács");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    user2 = new Person("user2", "u2", "Ötvös");
+    user2.getAclRoles().add(userRole);
+    user2.setCreatedBy(user);
+    personRepository.saveWithoutPermissionCheck(user2);
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenAccentedTextWhenNormalizeThenAccentsAreRemovedAndTextIsLowercased() {
+    assertThat(SearchShadowColumns.normalize("Árvíztűrő Tükörfúrógép"), is("arvizturo tukorfurogep"));
+  }
+
+  @Test
+  public void testGivenTurkishDefaultLocaleWhenNormalizeThenTextIsLowercasedLocaleIndependently() {
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(new Locale("tr", "TR"));
+    try {
+      assertThat(SearchShadowColumns.normalize("TITLE"), is("title"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void testGivenMissingShadowValuesWhenRebuildThenShadowValuesArePopulated() {
+    em.createQuery("update Person set lastNameSearch = null").executeUpdate();
+    em.clear();
+
+    searchShadowColumns.rebuild();
+    em.clear();
+
+    assertThat(personRepository.findByIdWithoutPermissionCheck(user.getId()).get().getLastNameSearch(), is("kovacs"));
+    assertThat(personRepository.findByIdWithoutPermissionCheck(user2.getId()).get().getLastNameSearch(), is("otvos"));
+  }
+
+  @Test
+  public void testGivenShadowPropertyWhenEntityIsPersistedOrUpdatedThenShadowIsMaintained() {
+    assertThat(user2.getLastNameSearch(), is("otvos"));
+
+    user2.setLastName("Szűcs");
+    em.flush();
+
+    assertThat(user2.getLastNameSearch(), is("szucs"));
+  }
+
+  @Test
+  public void testGivenShadowPropertyWhenCallFindAllWithSearchThenAccentsAreIgnored() {
+    List<Person> list = personRepository.findAll(new Search("otvos"));
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+
+    list = personRepository.findAll(new Search("KOVÁ"));
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user.getId()));
+  }
+}
@@ -0,0 +1,119 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = { "spring.data.jpa.acl.search.shadow-columns.enabled=true",
+    "spring.data.jpa.acl.search.shadow-columns.prefix-match=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.berrycloud.acl.AclSearchShadowPrefixMatchIntegrationTest$SqlRecorder" })
+public class AclSearchShadowPrefixMatchIntegrationTest {
+
+  public static class SqlRecorder implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private Person user, user2;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    user = new Person("user", "u", "Kovács");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    user2 = new Person("user2", "u2", "Ötvös");
+    user2.getAclRoles().add(userRole);
+    user2.setCreatedBy(user);
+    personRepository.saveWithoutPermissionCheck(user2);
+    em.flush();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+    SqlRecorder.STATEMENTS.clear();
+  }
+
+  @Test
+  public void testGivenPrefixMatchWhenCallFindAllWithSearchThenShadowIsMatchedWithLikePrefix() {
+    List<Person> list = personRepository.findAll(new Search("ÖTV"));
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user2.getId()));
+
+    String sql = SqlRecorder.STATEMENTS.get(SqlRecorder.STATEMENTS.size() - 1).toLowerCase();
+    assertThat(sql, containsString("last_name_search like ?"));
+    assertThat(sql, not(containsString("locate(?, person0_.last_name_search")));
+  }
+
+  @Test
+  public void testGivenPrefixMatchWhenCallFindAllWithInnerPartOfShadowThenItIsNotFound() {
+    assertTrue(personRepository.findAll(new Search("tvos")).isEmpty());
+
+    List<Person> list = personRepository.findAll(new Search("kov"));
+    assertThat(list.size(), is(1));
+    assertThat(list.get(0).getId(), is(user.getId()));
+  }
+
+  @Test
+  public void testGivenLikeWildcardInPatternWhenCallFindAllWithSearchThenWildcardIsMatchedLiterally() {
+    assertTrue(personRepository.findAll(new Search("_tvos")).isEmpty());
+    assertTrue(personRepository.findAll(new Search("%")).isEmpty());
+  }
+}
@@ -0,0 +1,107 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.search.Search;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsService;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.two-phase-pagination=true")
+public class AclTwoPhasePaginationIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Before
+  public void initTests() {
+    SimpleAclRole userRole = new SimpleAclRole(AclConstants.ROLE_USER);
+    roleRepository.saveWithoutPermissionCheck(userRole);
+
+    Person user = new Person("user", "u", "z");
+    user.getAclRoles().add(userRole);
+    personRepository.saveWithoutPermissionCheck(user);
+
+    for (String lastName : Arrays.asList("e", "c", "a", "d", "b")) {
+      Person person = new Person("user-" + lastName, lastName, lastName, user);
+      person.getAclRoles().add(userRole);
+      personRepository.saveWithoutPermissionCheck(person);
+    }
+    // Not visible for user
+    personRepository.saveWithoutPermissionCheck(new Person("other", "o", "aa"));
+    em.flush();
+    em.clear();
+
+    AclUserDetails userDetails = aclUserDetailsService.loadUserByUsername("user");
+    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "",
+        userDetails.getAuthorities());
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @Test
+  public void testGivenSortWhenCallFindAllPageThenPermittedEntitiesAreReturnedInOrder() {
+    Page<Person> page = personRepository.findAll(PageRequest.of(1, 2, Sort.by("lastName")));
+
+    assertThat(lastNames(page), is(Arrays.asList("c", "d")));
+    assertThat(page.getTotalElements(), is(6L));
+  }
+
+  @Test
+  public void testGivenSearchWhenCallFindAllPageThenPermittedEntitiesAreReturnedByRelevance() {
+    Page<Person> page = personRepository.findAll(PageRequest.of(0, 3, new Search("user-")));
+
+    assertThat(page.getContent().size(), is(3));
+    assertThat(page.getTotalElements(), is(5L));
+  }
+
+  @Test
+  public void testGivenDerivedQueryWhenCallWithPageThenPermittedEntitiesAreReturnedInOrder() {
+    Page<Person> page = personRepository.findByIdNotNull(PageRequest.of(1, 2, Sort.by(Direction.DESC, "lastName")));
+
+    assertThat(lastNames(page), is(Arrays.asList("d", "c")));
+    assertThat(page.getTotalElements(), is(6L));
+  }
+
+  private static List<String> lastNames(Page<Person> page) {
+    return page.getContent().stream().map(Person::getLastName).collect(Collectors.toList());
+  }
+}
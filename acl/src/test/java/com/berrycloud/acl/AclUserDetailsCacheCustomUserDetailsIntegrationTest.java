@@ -0,0 +1,143 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.AclUser;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsCache;
+import com.berrycloud.acl.security.SimpleAclUserDetails;
+import com.berrycloud.acl.security.SimpleAclUserDetailsService;
+
+@SpringBootTest(classes = { AclAppAll.class,
+    AclUserDetailsCacheCustomUserDetailsIntegrationTest.CustomUserDetailsConfiguration.class })
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.user-cache.enabled=true")
+public class AclUserDetailsCacheCustomUserDetailsIntegrationTest {
+
+  @Configuration
+  static class CustomUserDetailsConfiguration {
+
+    @Bean
+    public CustomUserDetailsService customUserDetailsService() {
+      return new CustomUserDetailsService();
+    }
+  }
+
+  static class CustomUserDetails extends SimpleAclUserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    CustomUserDetails(Object userId, String username, String password,
+        Collection<SimpleGrantedAuthority> authorities) {
+      super(userId, username, password, authorities);
+    }
+  }
+
+  static class CustomUserDetailsService extends SimpleAclUserDetailsService {
+
+    private boolean copyable;
+
+    // The service is proxied because of its transactional method, so the flag is set through a method
+    public void setCopyable(boolean copyable) {
+      this.copyable = copyable;
+    }
+
+    @Override
+    protected AclUserDetails createUserDetails(AclUser aclUser, Collection<SimpleGrantedAuthority> authorities) {
+      return new CustomUserDetails(((Person) aclUser).getId(), aclUser.getUsername(), aclUser.getPassword(),
+          authorities);
+    }
+
+    @Override
+    protected AclUserDetails copyUserDetails(AclUserDetails userDetails) {
+      return copyable ? new CustomUserDetails(userDetails.getUserId(), userDetails.getUsername(),
+          userDetails.getPassword(), Collections.<SimpleGrantedAuthority> emptySet()) : super.copyUserDetails(
+              userDetails);
+    }
+  }
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private CustomUserDetailsService userDetailsService;
+
+  @Autowired
+  private AclUserDetailsCache userDetailsCache;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  private ProviderManager authenticationManager;
+
+  @Before
+  public void initTests() {
+    personRepository.saveWithoutPermissionCheck(new Person("user", "u", "u"));
+    em.flush();
+    userDetailsCache.clear();
+    userDetailsService.setCopyable(false);
+
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(userDetailsService);
+    provider.setPasswordEncoder(NoOpPasswordEncoder.getInstance());
+    // The provider manager erases the credentials of the authenticated user-details
+    authenticationManager = new ProviderManager(Collections.singletonList(provider));
+  }
+
+  private Authentication authenticate() {
+    return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("user", "password"));
+  }
+
+  @Test
+  public void testGivenNotCopyableUserDetailsWhenAuthenticateTwiceThenBothSucceedAndNothingIsCached() {
+    assertTrue(authenticate().isAuthenticated());
+    assertTrue(authenticate().isAuthenticated());
+
+    assertThat(userDetailsCache.size(), is(0));
+  }
+
+  @Test
+  public void testGivenCopyableUserDetailsWhenAuthenticateTwiceThenBothSucceedFromCache() {
+    userDetailsService.setCopyable(true);
+
+    Authentication first = authenticate();
+    Authentication second = authenticate();
+
+    assertTrue(second.isAuthenticated());
+    assertThat(second.getPrincipal(), instanceOf(CustomUserDetails.class));
+    assertThat(second.getPrincipal(), not(sameInstance(first.getPrincipal())));
+    assertThat(userDetailsCache.size(), is(1));
+    assertThat(userDetailsCache.get("user").getPassword(), is("password"));
+  }
+}
@@ -0,0 +1,144 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+import com.berrycloud.acl.security.AclUserDetails;
+import com.berrycloud.acl.security.AclUserDetailsCache;
+import com.berrycloud.acl.security.AclUserDetailsService;
+import com.berrycloud.acl.security.SimpleAclUserDetails;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.data.jpa.acl.user-cache.enabled=true")
+public class AclUserDetailsCacheIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private AclUserDetailsService<?> aclUserDetailsService;
+
+  @Autowired
+  private AclUserDetailsCache userDetailsCache;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private Person user;
+  private SimpleAclRole editorRole;
+
+  @Before
+  public void initTests() {
+    userDetailsCache.clear();
+    editorRole = new SimpleAclRole("ROLE_EDITOR");
+    roleRepository.saveWithoutPermissionCheck(editorRole);
+    user = new Person("user", "u", "u");
+    user.getAclRoles().add(editorRole);
+    personRepository.saveWithoutPermissionCheck(user);
+    em.flush();
+    userDetailsCache.clear();
+  }
+
+  @Test
+  public void testGivenCachedUserWhenCallLoadUserByUsernameThenReturnCopyFromCache() {
+    long hits = userDetailsCache.getHitCount();
+    AclUserDetails first = aclUserDetailsService.loadUserByUsername("user");
+    AclUserDetails second = aclUserDetailsService.loadUserByUsername("user");
+
+    assertThat(userDetailsCache.getHitCount(), is(hits + 1));
+    assertThat(second, not(sameInstance(first)));
+    assertThat(second.getUserId(), is(first.getUserId()));
+    assertThat(second.getPassword(), is("password"));
+  }
+
+  @Test
+  public void testGivenCachedUserWhenChangePasswordThenCacheIsInvalidated() {
+    aclUserDetailsService.loadUserByUsername("user");
+    assertThat(userDetailsCache.size(), is(1));
+
+    user.setPassword("new password");
+    em.flush();
+
+    assertThat(userDetailsCache.size(), is(0));
+    assertThat(aclUserDetailsService.loadUserByUsername("user").getPassword(), is("new password"));
+  }
+
+  @Test
+  public void testGivenCachedUserWhenRevokeRoleThenCacheIsInvalidated() {
+    assertThat(hasAuthority(aclUserDetailsService.loadUserByUsername("user"), "ROLE_EDITOR"), is(true));
+    assertThat(userDetailsCache.size(), is(1));
+
+    // Only the role collection of the user is changed
+    user.getAclRoles().remove(editorRole);
+    em.flush();
+
+    assertThat(userDetailsCache.size(), is(0));
+    assertThat(hasAuthority(aclUserDetailsService.loadUserByUsername("user"), "ROLE_EDITOR"), is(false));
+  }
+
+  @Test
+  public void testGivenUserEvictedDuringLoadWhenPutThenItIsNotCached() {
+    long generation = userDetailsCache.getGeneration();
+    AclUserDetails userDetails = new SimpleAclUserDetails(user.getId(), "user", "password", Collections.emptySet());
+
+    // A concurrent change of the user is committed after the load started
+    userDetailsCache.evictUser(user.getId());
+    userDetailsCache.put("user", userDetails, generation);
+
+    assertThat(userDetailsCache.size(), is(0));
+
+    userDetailsCache.put("user", userDetails, userDetailsCache.getGeneration());
+    assertThat(userDetailsCache.size(), is(1));
+  }
+
+  @Test
+  public void testGivenOtherUserEvictedDuringLoadWhenPutThenItIsCached() {
+    long generation = userDetailsCache.getGeneration();
+    AclUserDetails userDetails = new SimpleAclUserDetails(user.getId(), "user", "password", Collections.emptySet());
+
+    userDetailsCache.evictUser(-1);
+    userDetailsCache.put("user", userDetails, generation);
+
+    assertThat(userDetailsCache.size(), is(1));
+  }
+
+  @Test
+  public void testGivenCacheClearedDuringLoadWhenPutThenItIsNotCached() {
+    long generation = userDetailsCache.getGeneration();
+    AclUserDetails userDetails = new SimpleAclUserDetails(user.getId(), "user", "password", Collections.emptySet());
+
+    userDetailsCache.clear();
+    userDetailsCache.put("user", userDetails, generation);
+
+    assertThat(userDetailsCache.size(), is(0));
+  }
+
+  private boolean hasAuthority(AclUserDetails userDetails, String authority) {
+    return userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(authority));
+  }
+}
@@ -0,0 +1,94 @@
+package com.berrycloud.acl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.berrycloud.acl.domain.AclRole;
+import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.sample.all.AclAppAll;
+import com.berrycloud.acl.sample.all.entity.Person;
+import com.berrycloud.acl.sample.all.entity.TestGroup;
+import com.berrycloud.acl.sample.all.repository.GroupRepository;
+import com.berrycloud.acl.sample.all.repository.PersonRepository;
+import com.berrycloud.acl.sample.all.repository.RoleRepository;
+
+@SpringBootTest(classes = AclAppAll.class)
+@RunWith(SpringRunner.class)
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class AclUserRolesIntegrationTest {
+
+  @Autowired
+  private EntityManager em;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private AclLogic aclLogic;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private GroupRepository groupRepository;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  private SimpleAclRole editorRole, manipulatorRole;
+  private Person user;
+
+  @Before
+  public void initTests() {
+    editorRole = new SimpleAclRole("ROLE_EDITOR");
+    manipulatorRole = new SimpleAclRole("ROLE_MANIPULATOR");
+    roleRepository.saveWithoutPermissionCheck(editorRole);
+    roleRepository.saveWithoutPermissionCheck(manipulatorRole);
+
+    Person owner = new Person("owner", "o", "o");
+    personRepository.saveWithoutPermissionCheck(owner);
+
+    // The user has a direct role and gets another role from its group
+    TestGroup group = new TestGroup("group", owner);
+    group.setRole(manipulatorRole);
+    groupRepository.saveWithoutPermissionCheck(group);
+    user = new Person("user", "u", "u");
+    user.getAclRoles().add(editorRole);
+    user.getGroups().add(group);
+    personRepository.saveWithoutPermissionCheck(user);
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void testGivenDirectAndProvidedRolesWhenCallGetAllRolesThenRolesAreFetchedWithSingleQuery() {
+    Person loadedUser = em.find(Person.class, user.getId());
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    Set<AclRole> roles = aclLogic.getAllRoles(loadedUser);
+
+    assertThat(statistics.getPrepareStatementCount(), is(1L));
+    assertThat(roles.size(), is(2));
+    assertTrue(roles.contains(em.find(SimpleAclRole.class, editorRole.getId())));
+    assertTrue(roles.contains(em.find(SimpleAclRole.class, manipulatorRole.getId())));
+  }
+}
@@ -0,0 +1,72 @@
+package com.berrycloud.acl.sample.all.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+import com.berrycloud.acl.annotation.AclOwner;
+import com.berrycloud.acl.annotation.AclParent;
+
+@Entity
+public class Folder {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	private String name;
+
+	@AclOwner
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Person owner;
+
+	@AclParent(closure = true)
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Folder parent;
+
+	public Folder() {
+	}
+
+	public Folder(String name, Person owner, Folder parent) {
+		super();
+		this.name = name;
+		this.owner = owner;
+		this.parent = parent;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Person getOwner() {
+		return owner;
+	}
+
+	public void setOwner(Person owner) {
+		this.owner = owner;
+	}
+
+	public Folder getParent() {
+		return parent;
+	}
+
+	public void setParent(Folder parent) {
+		this.parent = parent;
+	}
+
+}
@@ -20,6 +20,7 @@ import com.berrycloud.acl.annotation.AclRoleProvider;
 import com.berrycloud.acl.annotation.AclSelf;
 import com.berrycloud.acl.domain.AclUser;
 import com.berrycloud.acl.domain.SimpleAclRole;
+import com.berrycloud.acl.search.AclSearchable;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
@@ -31,6 +32,7 @@ public class Person implements AclUser {
   @GeneratedValue(strategy = GenerationType.AUTO)
   private Integer id;
 
+  @AclSearchable
   @Column(unique = true, nullable = false)
   private String username;
   @JsonIgnore
@@ -41,7 +43,10 @@ public class Person implements AclUser {
 
   @AclOwner // generates warning
   private String firstName;
+  @AclSearchable(shadow = "lastNameSearch")
   private String lastName;
+  @JsonIgnore
+  private String lastNameSearch;
 
   @ManyToOne(fetch = FetchType.LAZY)
   @AclOwner()
@@ -107,6 +112,14 @@ public class Person implements AclUser {
     this.lastName = lastName;
   }
 
+  public String getLastNameSearch() {
+    return lastNameSearch;
+  }
+
+  public void setLastNameSearch(String lastNameSearch) {
+    this.lastNameSearch = lastNameSearch;
+  }
+
   // @AclOwner
   public Person getCreatedBy() {
     return createdBy;
@@ -0,0 +1,19 @@
+package com.berrycloud.acl.sample.all.entity;
+
+import javax.persistence.Entity;
+
+import com.berrycloud.acl.domain.BitmaskPermissionLink;
+
+
+@Entity
+public class PersonHasReportPermission
+	extends BitmaskPermissionLink<Person, Report> {
+
+    public PersonHasReportPermission() {
+    }
+
+    public PersonHasReportPermission(Person owner, Report target, long permissionMask) {
+	super(owner,target,permissionMask);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.berrycloud.acl.sample.all.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+
+import com.berrycloud.acl.annotation.AclOwner;
+
+@Entity
+public class Report {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Integer id;
+
+	private String name;
+
+	@AclOwner
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Person creator;
+
+	@OneToMany(mappedBy = "target")
+	private List<PersonHasReportPermission> personOwner = new ArrayList<>();
+
+	public Report() {
+	}
+
+	public Report(String name, Person creator) {
+		super();
+		this.name = name;
+		this.creator = creator;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Person getCreator() {
+		return creator;
+	}
+
+	public void setCreator(Person creator) {
+		this.creator = creator;
+	}
+
+	public List<PersonHasReportPermission> getPersonOwner() {
+		return personOwner;
+	}
+
+	public void setPersonOwner(List<PersonHasReportPermission> personOwner) {
+		this.personOwner = personOwner;
+	}
+
+}
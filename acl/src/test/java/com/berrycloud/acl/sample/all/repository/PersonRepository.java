@@ -1,10 +1,14 @@
 package com.berrycloud.acl.sample.all.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 import com.berrycloud.acl.repository.AclJpaRepository;
 import com.berrycloud.acl.repository.NoAcl;
@@ -28,8 +32,14 @@ public interface PersonRepository extends AclJpaRepository<Person, Integer>, Jpa
 
   List<Person> findAllByOrderByIdAsc();
 
+  @RestResource(exported = false)
+  Stream<Person> streamAllByOrderByUsernameAsc();
+
   Long countByIdGreaterThan(@Param("id") Integer id);
 
+  @RestResource(exported = false)
+  Page<Person> findByIdNotNull(Pageable pageable);
+
   @NoAcl
   Person findNoAclByUsername(@Param("username") String username);
 
@@ -1,5 +1,7 @@
 package com.berrycloud.acl.sample.all.service;
 
+import java.util.Collection;
+
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
@@ -23,6 +25,16 @@ public class PersonService {
 		return true;
 	}
 
+	@PreAuthorize("hasPermission(#ids, 'com.berrycloud.acl.sample.all.entity.Person', #permission)")
+	public boolean loadPersons(Collection<Integer> ids, String permission) {
+		return true;
+	}
+
+	@PreAuthorize("hasPermission(#persons, #permission)")
+	public boolean loadPersonObjects(Collection<Person> persons, String permission) {
+		return true;
+	}
+
 	@PreAuthorize("hasPermission(#person, #permission)")
 	public boolean loadInvalidObject(String person, String permission) {
 		return true;